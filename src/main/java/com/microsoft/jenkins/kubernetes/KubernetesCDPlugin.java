@@ -7,12 +7,34 @@
 package com.microsoft.jenkins.kubernetes;
 
 import com.microsoft.jenkins.azurecommons.telemetry.AppInsightsClientFactory;
+import com.microsoft.jenkins.azurecommons.telemetry.AppInsightsUtils;
+import com.microsoft.jenkins.kubernetes.util.Constants;
 import hudson.Plugin;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class KubernetesCDPlugin extends Plugin {
+    /**
+     * Properties whose values are hashed before they are sent, on the sender thread.
+     */
+    private static final Set<String> HASHED_PROPERTIES = Collections.singleton(Constants.AI_K8S_MASTER);
+
+    private static final TelemetrySender SENDER = new TelemetrySender(new TelemetrySender.Sink() {
+        @Override
+        public void send(String item, String action, Map<String, String> properties) {
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                if (HASHED_PROPERTIES.contains(entry.getKey())) {
+                    entry.setValue(AppInsightsUtils.hash(entry.getValue()));
+                }
+            }
+            AppInsightsClientFactory.getInstance(KubernetesCDPlugin.class)
+                    .sendEvent(item, action, properties, false);
+        }
+    });
+
     public static void sendEvent(String item, String action, String... properties) {
         Map<String, String> props = new HashMap<>();
         for (int i = 1; i < properties.length; ++i) {
@@ -21,8 +43,16 @@ public class KubernetesCDPlugin extends Plugin {
         sendEvent(item, action, props);
     }
 
+    /**
+     * Queue the telemetry event to be sent in the background. This never blocks, and the event is dropped if the
+     * queue is full.
+     */
     public static void sendEvent(String item, String action, Map<String, String> properties) {
-        AppInsightsClientFactory.getInstance(KubernetesCDPlugin.class)
-                .sendEvent(item, action, properties, false);
+        SENDER.offer(item, action, new HashMap<>(properties));
+    }
+
+    @Override
+    public void stop() throws Exception {
+        SENDER.stop();
     }
 }
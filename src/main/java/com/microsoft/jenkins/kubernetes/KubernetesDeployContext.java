@@ -17,17 +17,20 @@ import com.microsoft.jenkins.azurecommons.command.BaseCommandContext;
 import com.microsoft.jenkins.azurecommons.command.CommandService;
 import com.microsoft.jenkins.azurecommons.command.IBaseCommandData;
 import com.microsoft.jenkins.azurecommons.command.ICommand;
-import com.microsoft.jenkins.azurecommons.command.SimpleBuildStepExecution;
 import com.microsoft.jenkins.azurecommons.remote.SSHClient;
 import com.microsoft.jenkins.kubernetes.command.DeploymentCommand;
+import com.microsoft.jenkins.kubernetes.command.PartialFailurePolicy;
 import com.microsoft.jenkins.kubernetes.credentials.ClientWrapperFactory;
 import com.microsoft.jenkins.kubernetes.credentials.ConfigFileCredentials;
+import com.microsoft.jenkins.kubernetes.credentials.DockerRegistryTokenCache;
+import com.microsoft.jenkins.kubernetes.credentials.KubeconfigClientWrapperFactory;
 import com.microsoft.jenkins.kubernetes.credentials.KubeconfigCredentials;
 import com.microsoft.jenkins.kubernetes.credentials.KubernetesCredentialsType;
 import com.microsoft.jenkins.kubernetes.credentials.ResolvedDockerRegistryEndpoint;
 import com.microsoft.jenkins.kubernetes.credentials.SSHCredentials;
 import com.microsoft.jenkins.kubernetes.credentials.TextCredentials;
 import com.microsoft.jenkins.kubernetes.util.Constants;
+import com.microsoft.jenkins.kubernetes.wrapper.DockerSecretType;
 import com.microsoft.jenkins.kubernetes.wrapper.KubernetesClientWrapper;
 import hudson.EnvVars;
 import hudson.Extension;
@@ -41,7 +44,6 @@ import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import org.apache.commons.lang3.StringUtils;
 import org.jenkinsci.plugins.docker.commons.credentials.DockerRegistryEndpoint;
-import org.jenkinsci.plugins.docker.commons.credentials.DockerRegistryToken;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
@@ -52,16 +54,23 @@ import org.kohsuke.stapler.QueryParameter;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class KubernetesDeployContext extends BaseCommandContext implements
         DeploymentCommand.IDeploymentCommand {
 
     private String kubeconfigId;
+    private List<String> kubeconfigIds;
+    private List<String> contexts;
+    private String partialFailurePolicy;
+    private int maxRequestsPerSecond;
 
     private String credentialsType;
     private SSHCredentials ssh;
@@ -72,10 +81,16 @@ public class KubernetesDeployContext extends BaseCommandContext implements
     private boolean enableConfigSubstitution;
 
     private String secretNamespace;
+    private String secretType;
     private String secretName;
     private List<DockerRegistryEndpoint> dockerCredentials;
+    private int pruneSecretsOlderThan;
 
     private boolean deleteResource;
+    private boolean verbose;
+    private boolean rawApply;
+
+    private transient boolean resumed;
 
     @DataBoundConstructor
     public KubernetesDeployContext() {
@@ -106,6 +121,88 @@ public class KubernetesDeployContext extends BaseCommandContext implements
         this.kubeconfigId = kubeconfigId;
     }
 
+    public List<String> getKubeconfigIds() {
+        if (kubeconfigIds == null) {
+            return ImmutableList.of();
+        }
+        return ImmutableList.copyOf(kubeconfigIds);
+    }
+
+    /**
+     * Set the kubeconfig credentials of the clusters to deploy to, in addition to the {@link #getKubeconfigId()}.
+     * The configurations are deployed to all the clusters concurrently.
+     *
+     * @param kubeconfigIds the kubeconfig credentials IDs
+     */
+    @DataBoundSetter
+    public void setKubeconfigIds(List<String> kubeconfigIds) {
+        this.kubeconfigIds = trimDistinct(kubeconfigIds);
+    }
+
+    private static List<String> trimDistinct(List<String> values) {
+        List<String> result = new ArrayList<>();
+        if (values != null) {
+            for (String value : values) {
+                value = StringUtils.trimToNull(value);
+                if (value != null && !result.contains(value)) {
+                    result.add(value);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getContexts() {
+        if (contexts == null) {
+            return ImmutableList.of();
+        }
+        return ImmutableList.copyOf(contexts);
+    }
+
+    /**
+     * Select the contexts of the kubeconfig to deploy to, instead of the current context. The configurations are
+     * deployed to all the selected contexts concurrently.
+     *
+     * @param contexts the names of the contexts in the kubeconfig
+     */
+    @DataBoundSetter
+    public void setContexts(List<String> contexts) {
+        this.contexts = trimDistinct(contexts);
+    }
+
+    public String getPartialFailurePolicy() {
+        if (StringUtils.isEmpty(partialFailurePolicy)) {
+            return PartialFailurePolicy.DEFAULT.name();
+        }
+        return partialFailurePolicy;
+    }
+
+    @Override
+    public PartialFailurePolicy getPartialFailurePolicyEnum() {
+        return PartialFailurePolicy.fromString(getPartialFailurePolicy());
+    }
+
+    @DataBoundSetter
+    public void setPartialFailurePolicy(String partialFailurePolicy) {
+        this.partialFailurePolicy = StringUtils.trimToEmpty(partialFailurePolicy);
+    }
+
+    @Override
+    public int getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond;
+    }
+
+    /**
+     * Limit the rate of the API requests sent to each of the clusters.
+     *
+     * @param maxRequestsPerSecond the maximum number of requests per second per cluster, or 0 for no limit
+     */
+    @DataBoundSetter
+    public void setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = Math.max(0, maxRequestsPerSecond);
+    }
+
     @Deprecated
     public String getCredentialsType() {
         if (StringUtils.isEmpty(credentialsType)) {
@@ -172,6 +269,29 @@ public class KubernetesDeployContext extends BaseCommandContext implements
         }
     }
 
+    public String getSecretType() {
+        if (StringUtils.isEmpty(secretType)) {
+            return DockerSecretType.DEFAULT.name();
+        }
+        return secretType;
+    }
+
+    @Override
+    public DockerSecretType getSecretTypeEnum() {
+        return DockerSecretType.fromString(getSecretType());
+    }
+
+    /**
+     * Select the type of the Docker registry secret, {@code DOCKERCFG} for {@code kubernetes.io/dockercfg} or
+     * {@code DOCKERCONFIGJSON} for {@code kubernetes.io/dockerconfigjson}.
+     *
+     * @param secretType the type of the secret
+     */
+    @DataBoundSetter
+    public void setSecretType(String secretType) {
+        this.secretType = StringUtils.trimToEmpty(secretType);
+    }
+
     @Override
     public String getConfigs() {
         return configs;
@@ -192,6 +312,22 @@ public class KubernetesDeployContext extends BaseCommandContext implements
         this.secretName = secretName;
     }
 
+    @Override
+    public int getPruneSecretsOlderThan() {
+        return pruneSecretsOlderThan;
+    }
+
+    /**
+     * Delete the Docker registry secrets created by the earlier builds of the job, once they are older than the given
+     * number of builds.
+     *
+     * @param pruneSecretsOlderThan the number of builds, or 0 to keep all the secrets
+     */
+    @DataBoundSetter
+    public void setPruneSecretsOlderThan(int pruneSecretsOlderThan) {
+        this.pruneSecretsOlderThan = Math.max(0, pruneSecretsOlderThan);
+    }
+
     @Override
     public boolean isEnableConfigSubstitution() {
         return enableConfigSubstitution;
@@ -245,35 +381,49 @@ public class KubernetesDeployContext extends BaseCommandContext implements
     }
 
     @Override
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    @DataBoundSetter
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    @Override
+    public boolean isRawApply() {
+        return rawApply;
+    }
+
+    @DataBoundSetter
+    public void setRawApply(boolean rawApply) {
+        this.rawApply = rawApply;
+    }
+
+    @Override
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    void setResumed(boolean resumed) {
+        this.resumed = resumed;
+    }
+
     public List<ResolvedDockerRegistryEndpoint> resolveEndpoints(Item context) throws IOException {
-        List<ResolvedDockerRegistryEndpoint> endpoints = new ArrayList<>();
-        List<DockerRegistryEndpoint> configured = getDockerCredentials();
-        for (DockerRegistryEndpoint endpoint : configured) {
-            DockerRegistryToken token = endpoint.getToken(context);
-            if (token == null) {
-                throw new IllegalArgumentException("No credentials found for " + endpoint);
-            }
-            endpoints.add(new ResolvedDockerRegistryEndpoint(endpoint.getEffectiveUrl(), token));
-        }
-        return endpoints;
+        return resolveEndpoints(context, null);
+    }
+
+    @Override
+    public List<ResolvedDockerRegistryEndpoint> resolveEndpoints(Item context, PrintStream logger)
+            throws IOException {
+        return DockerRegistryTokenCache.resolve(context, getDockerCredentials(), logger);
     }
 
     @Override
     public ClientWrapperFactory clientFactory(Item owner) {
         final String configId = getKubeconfigId();
         if (StringUtils.isNotBlank(configId)) {
-            final KubeconfigCredentials credentials = CredentialsMatchers.firstOrNull(
-                    CredentialsProvider.lookupCredentials(
-                            KubeconfigCredentials.class,
-                            owner,
-                            ACL.SYSTEM,
-                            Collections.<DomainRequirement>emptyList()),
-                    CredentialsMatchers.withId(configId));
-            if (credentials == null) {
-                throw new IllegalArgumentException("Cannot find kubeconfig credentials with id " + configId);
-            }
-            credentials.bindToAncestor(owner);
-            return new ClientWrapperFactoryImpl(credentials);
+            return kubeconfigClientFactory(owner, configId);
         }
 
         // Fallback to the legacy handling
@@ -290,6 +440,54 @@ public class KubernetesDeployContext extends BaseCommandContext implements
         }
     }
 
+    /**
+     * Check that the contexts are only selected with the credentials backed by a kubeconfig. The legacy
+     * {@link KubernetesCredentialsType#Text} credentials have no kubeconfig to select the contexts from.
+     *
+     * @throws IllegalArgumentException if the contexts cannot be selected with the configured credentials
+     */
+    public void validateContexts() {
+        if (!getContexts().isEmpty()
+                && StringUtils.isBlank(getKubeconfigId())
+                && getKubeconfigIds().isEmpty()
+                && getCredentialsTypeEnum() == KubernetesCredentialsType.Text) {
+            throw new IllegalArgumentException(
+                    Messages.KubernetesDeployContext_contextsNotSupported(getCredentialsTypeEnum()));
+        }
+    }
+
+    @Override
+    public Map<String, ClientWrapperFactory> clientFactories(Item owner) {
+        validateContexts();
+        Map<String, ClientWrapperFactory> factories = new LinkedHashMap<>();
+        List<String> ids = getKubeconfigIds();
+        String configId = StringUtils.trimToNull(getKubeconfigId());
+        if (configId != null || ids.isEmpty()) {
+            factories.put(StringUtils.defaultString(configId, Constants.DEFAULT_CLUSTER_LABEL), clientFactory(owner));
+        }
+        for (String id : ids) {
+            if (!factories.containsKey(id)) {
+                factories.put(id, kubeconfigClientFactory(owner, id));
+            }
+        }
+        return factories;
+    }
+
+    private static ClientWrapperFactory kubeconfigClientFactory(Item owner, String configId) {
+        final KubeconfigCredentials credentials = CredentialsMatchers.firstOrNull(
+                CredentialsProvider.lookupCredentials(
+                        KubeconfigCredentials.class,
+                        owner,
+                        ACL.SYSTEM,
+                        Collections.<DomainRequirement>emptyList()),
+                CredentialsMatchers.withId(configId));
+        if (credentials == null) {
+            throw new IllegalArgumentException("Cannot find kubeconfig credentials with id " + configId);
+        }
+        credentials.bindToAncestor(owner);
+        return new ClientWrapperFactoryImpl(credentials);
+    }
+
     @Override
     public IBaseCommandData getDataForCommand(ICommand command) {
         return this;
@@ -297,7 +495,8 @@ public class KubernetesDeployContext extends BaseCommandContext implements
 
     @Override
     public StepExecution startImpl(StepContext context) throws Exception {
-        return new SimpleBuildStepExecution(new KubernetesDeploy(this), context);
+        validateContexts();
+        return new KubernetesDeployStepExecution(this, context);
     }
 
     @Extension
@@ -470,7 +669,7 @@ public class KubernetesDeployContext extends BaseCommandContext implements
         }
     }
 
-    private static class ClientWrapperFactoryImpl implements ClientWrapperFactory {
+    private static class ClientWrapperFactoryImpl implements KubeconfigClientWrapperFactory {
         private final KubeconfigCredentials kubeconfig;
 
         ClientWrapperFactoryImpl(KubeconfigCredentials kubeconfig) {
@@ -481,5 +680,16 @@ public class KubernetesDeployContext extends BaseCommandContext implements
         public KubernetesClientWrapper buildClient(FilePath workspace) {
             return new KubernetesClientWrapper(new StringReader(kubeconfig.getContent()));
         }
+
+        @Override
+        public Map<String, KubernetesClientWrapper> buildClients(FilePath workspace, List<String> contexts)
+                throws Exception {
+            return KubernetesClientWrapper.forContexts(new StringReader(kubeconfig.getContent()), contexts);
+        }
+
+        @Override
+        public void invalidate() {
+            kubeconfig.invalidateContent();
+        }
     }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import jenkins.model.Jenkins;
+import jenkins.util.ContextResettingExecutorService;
+import jenkins.util.NamingThreadFactory;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous execution of the {@code kubernetesDeploy} pipeline step.
+ * <p>
+ * The deployment is submitted to an executor shared by all the deployments on the controller, which has a bounded
+ * number of threads. Deployments beyond the bound are queued, so the thread usage stays constant no matter how many
+ * pipelines deploy concurrently. The step context is completed from the worker thread when the deployment finishes,
+ * or from {@link #stop(Throwable)} when the step is aborted, whichever comes first; it's never completed twice.
+ * <p>
+ * The step configuration is persisted with the execution. If the controller restarts while the deployment is in
+ * progress, the deployment is submitted again on resume, marked as {@link KubernetesDeployContext#isResumed()
+ * resumed}. Applying the configurations is idempotent and is run again from the start, but the passes which are not,
+ * pruning the secrets and deleting the resources, are skipped.
+ */
+public class KubernetesDeployStepExecution extends StepExecution {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(KubernetesDeployStepExecution.class.getName());
+
+    private static final int DEFAULT_MAX_CONCURRENT_DEPLOYMENTS = 10;
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * Maximum number of the deployments running at the same time on the controller.
+     */
+    static final int MAX_CONCURRENT_DEPLOYMENTS = Math.max(1, Integer.getInteger(
+            KubernetesDeployStepExecution.class.getName() + ".maxConcurrentDeployments",
+            DEFAULT_MAX_CONCURRENT_DEPLOYMENTS));
+
+    private static ExecutorService executorService;
+
+    /**
+     * XML form of the step, which is used to rebuild the step after the controller restarts.
+     */
+    private final String stepXml;
+
+    private transient KubernetesDeployContext step;
+    private transient volatile Future<?> task;
+    private transient volatile boolean running;
+    private transient boolean completed;
+
+    KubernetesDeployStepExecution(KubernetesDeployContext step, StepContext context) {
+        super(context);
+        this.step = step;
+        this.stepXml = Jenkins.XSTREAM2.toXML(step);
+    }
+
+    @Override
+    public boolean start() throws Exception {
+        submit();
+        return false;
+    }
+
+    @Override
+    public void stop(@Nonnull Throwable cause) throws Exception {
+        Future<?> future = task;
+        if (future != null) {
+            future.cancel(true);
+        }
+        fail(cause);
+    }
+
+    @Override
+    public void onResume() {
+        if (task != null) {
+            return;
+        }
+        try {
+            step = (KubernetesDeployContext) Jenkins.XSTREAM2.fromXML(stepXml);
+            step.setResumed(true);
+            getContext().get(TaskListener.class).getLogger()
+                    .println(Messages.KubernetesDeployStepExecution_resuming());
+        } catch (Exception e) {
+            fail(e);
+            return;
+        }
+        submit();
+    }
+
+    @Override
+    public String getStatus() {
+        if (task == null) {
+            return "not started";
+        }
+        return running ? "deploying" : "waiting for one of the "
+                + MAX_CONCURRENT_DEPLOYMENTS + " deployment threads";
+    }
+
+    private void submit() {
+        task = getExecutorService().submit(new Runnable() {
+            @Override
+            public void run() {
+                running = true;
+                try {
+                    deploy();
+                    if (complete()) {
+                        getContext().onSuccess(null);
+                    } else {
+                        LOGGER.log(Level.FINE, "Kubernetes deployment finished after the step was completed");
+                    }
+                } catch (Throwable t) {
+                    fail(t);
+                } finally {
+                    running = false;
+                }
+            }
+        });
+    }
+
+    private void fail(Throwable cause) {
+        if (complete()) {
+            LOGGER.log(Level.FINE, "Kubernetes deployment failed", cause);
+            getContext().onFailure(cause);
+        } else {
+            LOGGER.log(Level.FINE, "Kubernetes deployment failed after the step was completed", cause);
+        }
+    }
+
+    /**
+     * Mark the step as completed.
+     *
+     * @return {@code false} if it was already completed by the worker or by {@link #stop(Throwable)}
+     */
+    private synchronized boolean complete() {
+        if (completed) {
+            return false;
+        }
+        completed = true;
+        return true;
+    }
+
+    private void deploy() throws Exception {
+        StepContext context = getContext();
+        Run<?, ?> run = context.get(Run.class);
+        FilePath workspace = context.get(FilePath.class);
+        Launcher launcher = context.get(Launcher.class);
+        TaskListener listener = context.get(TaskListener.class);
+
+        new KubernetesDeploy(step).perform(run, workspace, launcher, listener);
+    }
+
+    private static synchronized ExecutorService getExecutorService() {
+        if (executorService == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    MAX_CONCURRENT_DEPLOYMENTS,
+                    MAX_CONCURRENT_DEPLOYMENTS,
+                    THREAD_KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "KubernetesDeployStepExecution"));
+            executor.allowCoreThreadTimeOut(true);
+            executorService = new ContextResettingExecutorService(executor);
+        }
+        return executorService;
+    }
+}
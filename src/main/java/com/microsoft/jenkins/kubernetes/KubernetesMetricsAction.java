@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes;
+
+import com.microsoft.jenkins.kubernetes.wrapper.DeploymentMetrics;
+import hudson.Extension;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Exposes the performance measurements of the Kubernetes deployments in the Prometheus text format, at
+ * {@code $JENKINS_URL/kubernetes-cd-metrics/}.
+ * <p>
+ * The measurements of each deployment are taken on the agent, and added to the totals of the controller when the
+ * deployment returns. The totals are kept in memory and start over when Jenkins restarts, as expected of the
+ * Prometheus counters. Reading them requires the administer permission.
+ */
+@Extension
+public final class KubernetesMetricsAction implements RootAction {
+    public static final String URL_NAME = "kubernetes-cd-metrics";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final DeploymentMetrics TOTALS = new DeploymentMetrics();
+
+    /**
+     * Add the measurements of a deployment to the totals.
+     */
+    public static void record(DeploymentMetrics metrics) {
+        TOTALS.merge(metrics);
+    }
+
+    @Override
+    public String getIconFileName() {
+        // not shown in the side panel
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.KubernetesMetricsAction_displayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        StringWriter buffer = new StringWriter();
+        TOTALS.writePrometheus(buffer);
+        rsp.setContentType(CONTENT_TYPE);
+        try (Writer writer = rsp.getWriter()) {
+            writer.write(buffer.toString());
+        }
+    }
+}
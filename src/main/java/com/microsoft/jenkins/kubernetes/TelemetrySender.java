@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends the telemetry events from a background thread, so that the builds never wait on the telemetry sink.
+ * <p>
+ * The events are put in a bounded queue and dropped if the queue is full. The sender thread drains the queue in
+ * batches. If the sink fails, the events are dropped for a back-off period which doubles on every consecutive failure,
+ * so that an unreachable sink is not retried for every event.
+ */
+final class TelemetrySender {
+    private static final Logger LOGGER = Logger.getLogger(TelemetrySender.class.getName());
+
+    static final int QUEUE_CAPACITY = 1000;
+    static final int BATCH_SIZE = 50;
+    static final long INITIAL_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    /**
+     * Destination of the events.
+     */
+    interface Sink {
+        void send(String item, String action, Map<String, String> properties) throws Exception;
+    }
+
+    private static final class Event {
+        private final String item;
+        private final String action;
+        private final Map<String, String> properties;
+
+        Event(String item, String action, Map<String, String> properties) {
+            this.item = item;
+            this.action = action;
+            this.properties = properties;
+        }
+    }
+
+    private final Sink sink;
+    private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private Thread thread;
+    private long backoffMillis;
+    private long backoffUntil;
+
+    TelemetrySender(Sink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Queue the event without blocking. The event is dropped if the queue is full.
+     *
+     * @return whether the event is queued
+     */
+    boolean offer(String item, String action, Map<String, String> properties) {
+        ensureStarted();
+        if (queue.offer(new Event(item, action, properties))) {
+            return true;
+        }
+        if (dropped.incrementAndGet() == 1) {
+            LOGGER.log(Level.FINE, "Telemetry queue is full, dropping events");
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of events dropped because the queue was full or the sink failed
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private synchronized void ensureStarted() {
+        if (thread == null) {
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            }, "KubernetesCDPlugin telemetry sender");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void drain() {
+        List<Event> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                sendBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendBatch(List<Event> batch) {
+        for (int i = 0; i < batch.size(); ++i) {
+            if (System.currentTimeMillis() < backoffUntil) {
+                dropped.addAndGet(batch.size() - i);
+                return;
+            }
+            Event event = batch.get(i);
+            try {
+                sink.send(event.item, event.action, event.properties);
+                backoffMillis = 0;
+            } catch (Exception e) {
+                backoffMillis = backoffMillis == 0
+                        ? INITIAL_BACKOFF_MILLIS : Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+                backoffUntil = System.currentTimeMillis() + backoffMillis;
+                dropped.incrementAndGet();
+                LOGGER.log(Level.FINE, "Failed to send telemetry, pausing for " + backoffMillis + " ms", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.command;
+
+import com.microsoft.jenkins.azurecommons.command.CommandState;
+import com.microsoft.jenkins.kubernetes.Messages;
+import com.microsoft.jenkins.kubernetes.wrapper.KubernetesClientWrapper;
+import io.kubernetes.client.openapi.ApiException;
+import jenkins.util.NamingThreadFactory;
+import org.apache.http.HttpStatus;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the deployment on several clusters concurrently, one thread per cluster.
+ * <p>
+ * The failure on one cluster does not stop the deployment on the others. It is recorded in the
+ * {@link DeploymentCommand.ClusterResult} of the cluster instead. If the calling thread is interrupted, the deployments
+ * on all the clusters are cancelled.
+ */
+final class ClusterFanOut {
+    private static final long CANCEL_TIMEOUT_SECONDS = 10L;
+
+    interface ClusterTask {
+        /**
+         * Deploy to one of the clusters.
+         *
+         * @param index   the position of the cluster in the fan-out
+         * @param wrapper the client for the cluster
+         * @throws Exception if the deployment to the cluster failed
+         */
+        void deploy(int index, KubernetesClientWrapper wrapper) throws Exception;
+    }
+
+    private ClusterFanOut() {
+        // hide constructor
+    }
+
+    static Map<String, DeploymentCommand.ClusterResult> deploy(
+            Map<String, KubernetesClientWrapper> clusters,
+            final ClusterTask task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(clusters.size(),
+                new NamingThreadFactory(Executors.defaultThreadFactory(), "ClusterFanOut"));
+        Map<String, Future<DeploymentCommand.ClusterResult>> futures = new LinkedHashMap<>();
+        try {
+            int index = 0;
+            for (Map.Entry<String, KubernetesClientWrapper> entry : clusters.entrySet()) {
+                futures.put(entry.getKey(), executor.submit(deployTask(index++, entry.getValue(), task)));
+            }
+
+            Map<String, DeploymentCommand.ClusterResult> results = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<DeploymentCommand.ClusterResult>> entry : futures.entrySet()) {
+                try {
+                    results.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    // only Errors escape from the deploy task
+                    results.put(entry.getKey(), new DeploymentCommand.ClusterResult(
+                            CommandState.HasError, 0, describe(e.getCause()), false));
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            for (KubernetesClientWrapper wrapper : clusters.values()) {
+                wrapper.cancel();
+            }
+            for (Future<?> future : futures.values()) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+            executor.awaitTermination(CANCEL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            for (KubernetesClientWrapper wrapper : clusters.values()) {
+                wrapper.logAbortReport();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Callable<DeploymentCommand.ClusterResult> deployTask(
+            final int index,
+            final KubernetesClientWrapper wrapper,
+            final ClusterTask task) {
+        return new Callable<DeploymentCommand.ClusterResult>() {
+            @Override
+            public DeploymentCommand.ClusterResult call() {
+                long start = System.nanoTime();
+                try {
+                    task.deploy(index, wrapper);
+                    return new DeploymentCommand.ClusterResult(
+                            CommandState.Success, elapsedMillis(start), null, false);
+                } catch (Exception e) {
+                    String error = describe(e);
+                    wrapper.getLogger().println(Messages.errorMessage(error));
+                    return new DeploymentCommand.ClusterResult(
+                            CommandState.HasError, elapsedMillis(start), error, isUnauthorized(e));
+                }
+            }
+        };
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static boolean isUnauthorized(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ApiException && ((ApiException) t).getCode() == HttpStatus.SC_UNAUTHORIZED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(Throwable e) {
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+}
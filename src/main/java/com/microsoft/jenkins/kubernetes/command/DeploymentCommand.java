@@ -12,28 +12,53 @@ import com.microsoft.jenkins.azurecommons.command.CommandState;
 import com.microsoft.jenkins.azurecommons.command.IBaseCommandData;
 import com.microsoft.jenkins.azurecommons.command.ICommand;
 import com.microsoft.jenkins.azurecommons.core.EnvironmentInjector;
-import com.microsoft.jenkins.azurecommons.telemetry.AppInsightsUtils;
 import com.microsoft.jenkins.kubernetes.KubernetesCDPlugin;
+import com.microsoft.jenkins.kubernetes.KubernetesMetricsAction;
 import com.microsoft.jenkins.kubernetes.Messages;
 import com.microsoft.jenkins.kubernetes.credentials.ClientWrapperFactory;
+import com.microsoft.jenkins.kubernetes.credentials.KubeconfigClientWrapperFactory;
 import com.microsoft.jenkins.kubernetes.credentials.ResolvedDockerRegistryEndpoint;
 import com.microsoft.jenkins.kubernetes.util.Constants;
+import com.microsoft.jenkins.kubernetes.util.KubernetesJsonUtils;
+import com.microsoft.jenkins.kubernetes.util.LinePrefixOutputStream;
+import com.microsoft.jenkins.kubernetes.wrapper.DeploymentEvent;
+import com.microsoft.jenkins.kubernetes.wrapper.DeploymentEventBus;
+import com.microsoft.jenkins.kubernetes.wrapper.DeploymentEventListener;
+import com.microsoft.jenkins.kubernetes.wrapper.DeploymentJournal;
+import com.microsoft.jenkins.kubernetes.wrapper.DeploymentMetrics;
+import com.microsoft.jenkins.kubernetes.wrapper.DiscoverySnapshot;
+import com.microsoft.jenkins.kubernetes.wrapper.DockerSecretType;
 import com.microsoft.jenkins.kubernetes.wrapper.KubernetesClientWrapper;
+import com.microsoft.jenkins.kubernetes.wrapper.RawResource;
+import com.microsoft.jenkins.kubernetes.wrapper.ResourceUpdaterFactory;
+import com.microsoft.jenkins.kubernetes.wrapper.ResourceUpdaterRegistry;
 import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.model.Item;
+import hudson.model.Result;
 import hudson.model.TaskListener;
 import hudson.remoting.ProxyException;
 import hudson.util.VariableResolver;
 import io.kubernetes.client.openapi.ApiClient;
 import jenkins.security.MasterToSlaveCallable;
+import jenkins.util.BuildListenerAdapter;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import static com.google.common.base.Preconditions.checkState;
 
@@ -43,6 +68,15 @@ import static com.google.common.base.Preconditions.checkState;
  * Mark it as serializable so that the inner Callable can be serialized correctly.
  */
 public class DeploymentCommand implements ICommand<DeploymentCommand.IDeploymentCommand>, Serializable {
+    private static final Logger LOGGER = Logger.getLogger(DeploymentCommand.class.getName());
+
+    /**
+     * The journal of the operations is archived under this directory of the build artifacts.
+     */
+    static final String JOURNAL_ARTIFACT_DIR = "kubernetes-deploy/";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String RESUMED_JOURNAL_PREFIX = "journal-resumed-";
+    private static final String JOURNAL_SUFFIX = ".jsonl.gz";
 
     @Override
     public void execute(IDeploymentCommand context) {
@@ -51,33 +85,66 @@ public class DeploymentCommand implements ICommand<DeploymentCommand.IDeployment
         EnvVars envVars = context.getEnvVars();
 
         TaskResult taskResult = null;
+        FilePath journalFile = null;
         try {
+            // the operations run again after a restart are kept apart from the ones of the interrupted deployment
+            journalFile = workspace.createTempFile(context.isResumed() ? RESUMED_JOURNAL_PREFIX : JOURNAL_PREFIX,
+                    JOURNAL_SUFFIX);
             DeploymentTask task = new DeploymentTask();
+            task.setJournalFile(journalFile);
             task.setWorkspace(workspace);
             task.setTaskListener(jobContext.getTaskListener());
-            task.setClientFactory(context.clientFactory(context.getJobContext().getRun().getParent()));
+            Map<String, ClientWrapperFactory> clientFactories =
+                    context.clientFactories(context.getJobContext().getRun().getParent());
+            task.setClientFactories(clientFactories);
             task.setEnvVars(envVars);
             task.setConfigPaths(context.getConfigs());
             task.setSecretNamespace(context.getSecretNamespace());
+            task.setSecretType(context.getSecretTypeEnum());
             task.setSecretNameCfg(context.getSecretName());
-            task.setDefaultSecretNameSeed(jobContext.getRun().getDisplayName());
+            task.setJobFullName(jobContext.getRun().getParent().getFullName());
+            task.setBuildNumber(jobContext.getRun().getNumber());
+            task.setPruneSecretsOlderThan(context.getPruneSecretsOlderThan());
             task.setEnableSubstitution(context.isEnableConfigSubstitution());
-            task.setDockerRegistryEndpoints(context.resolveEndpoints(jobContext.getRun().getParent()));
+            task.setDockerRegistryEndpoints(context.resolveEndpoints(
+                    jobContext.getRun().getParent(), jobContext.getTaskListener().getLogger()));
             task.setDeleteResource(context.isDeleteResource());
+            task.setResumed(context.isResumed());
+            task.setVerbose(context.isVerbose());
+            task.setRawApply(context.isRawApply());
+            task.setPartialFailurePolicy(context.getPartialFailurePolicyEnum());
+            task.setMaxRequestsPerSecond(context.getMaxRequestsPerSecond());
+            task.setContexts(context.getContexts());
+            task.setDiscoverySnapshots(DiscoveryStore.get().loadAll());
+            task.setUpdaterFactories(ResourceUpdaterRegistry.getExtensions());
+            List<DeploymentEventListener> eventListeners = DeploymentEventListener.all();
+            task.setRecordEvents(!eventListeners.isEmpty());
 
             taskResult = workspace.act(task);
+            DiscoveryStore.get().saveAll(taskResult.discoverySnapshots);
+            if (taskResult.metrics != null) {
+                KubernetesMetricsAction.record(taskResult.metrics);
+            }
+            DeploymentEventListener.fire(eventListeners, jobContext.getRun(), taskResult.events);
+
+            for (String label : taskResult.unauthorizedClients) {
+                clientFactories.get(label).invalidate();
+            }
 
             for (Map.Entry<String, String> entry : taskResult.extraEnvVars.entrySet()) {
                 EnvironmentInjector.inject(jobContext.getRun(), envVars, entry.getKey(), entry.getValue());
             }
 
+            if (taskResult.unstable) {
+                jobContext.getRun().setResult(Result.UNSTABLE);
+            }
             context.setCommandState(taskResult.commandState);
             if (taskResult.commandState.isError()) {
                 KubernetesCDPlugin.sendEvent(Constants.AI_KUBERNETES, "DeployFailed",
-                        Constants.AI_K8S_MASTER, AppInsightsUtils.hash(taskResult.masterHost));
+                        Constants.AI_K8S_MASTER, taskResult.masterHost);
             } else {
                 KubernetesCDPlugin.sendEvent(Constants.AI_KUBERNETES, "Deployed",
-                        Constants.AI_K8S_MASTER, AppInsightsUtils.hash(taskResult.masterHost));
+                        Constants.AI_K8S_MASTER, taskResult.masterHost);
             }
         } catch (Exception e) {
             if (e instanceof InterruptedException) {
@@ -85,7 +152,38 @@ public class DeploymentCommand implements ICommand<DeploymentCommand.IDeployment
             }
             context.logError(e);
             KubernetesCDPlugin.sendEvent(Constants.AI_KUBERNETES, "DeployFailed",
-                    Constants.AI_K8S_MASTER, AppInsightsUtils.hash(taskResult == null ? null : taskResult.masterHost));
+                    Constants.AI_K8S_MASTER, taskResult == null ? null : taskResult.masterHost);
+        } finally {
+            if (journalFile != null) {
+                archiveJournal(jobContext, journalFile);
+            }
+        }
+    }
+
+    /**
+     * Archive the journal of the operations with the build, and delete it from the workspace.
+     */
+    private static void archiveJournal(JobContext jobContext, FilePath journalFile) {
+        TaskListener listener = jobContext.getTaskListener();
+        try {
+            if (journalFile.exists() && journalFile.length() > 0) {
+                String artifact = JOURNAL_ARTIFACT_DIR + journalFile.getName();
+                jobContext.getRun().pickArtifactManager().archive(jobContext.getWorkspace(),
+                        jobContext.getLauncher(), BuildListenerAdapter.wrap(listener),
+                        Collections.singletonMap(artifact, journalFile.getName()));
+                listener.getLogger().println(Messages.DeploymentCommand_journalArchived(artifact));
+            }
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            listener.getLogger().println(Messages.DeploymentCommand_journalFailed(e));
+        } finally {
+            try {
+                journalFile.delete();
+            } catch (IOException | InterruptedException e) {
+                LOGGER.log(Level.FINE, "Failed to delete the deployment journal " + journalFile, e);
+            }
         }
     }
 
@@ -103,23 +201,58 @@ public class DeploymentCommand implements ICommand<DeploymentCommand.IDeployment
         return "Unknown";
     }
 
+    /**
+     * Split the comma separated secret namespaces.
+     *
+     * @param namespaces the comma separated namespaces
+     * @return the distinct namespaces in the given order
+     */
+    @VisibleForTesting
+    static List<String> splitNamespaces(String namespaces) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String namespace : StringUtils.split(StringUtils.defaultString(namespaces), ',')) {
+            if (StringUtils.isNotBlank(namespace)) {
+                result.add(namespace.trim());
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
     static class DeploymentTask extends MasterToSlaveCallable<TaskResult, ProxyException> {
         private FilePath workspace;
+        private FilePath journalFile;
+        private transient DeploymentJournal journal;
+        private transient DeploymentEventBus eventBus;
         private TaskListener taskListener;
-        private ClientWrapperFactory clientFactory;
+        private Map<String, ClientWrapperFactory> clientFactories;
+        private List<String> contexts = Collections.emptyList();
+        private final Map<String, String> clientLabels = new HashMap<>();
         private EnvVars envVars;
 
         private String configPaths;
         private String secretNamespace;
+        private DockerSecretType secretType = DockerSecretType.DEFAULT;
         private String secretNameCfg;
-        private String defaultSecretNameSeed;
+        private String jobFullName;
+        private int buildNumber;
+        private int pruneSecretsOlderThan;
         private boolean enableSubstitution;
         private boolean deleteResource;
+        private boolean resumed;
+        private boolean verbose;
+        private boolean rawApply;
+        private PartialFailurePolicy partialFailurePolicy = PartialFailurePolicy.DEFAULT;
+        private int maxRequestsPerSecond;
 
         private List<ResolvedDockerRegistryEndpoint> dockerRegistryEndpoints;
+        private List<DiscoverySnapshot> discoverySnapshots = Collections.emptyList();
+        private List<ResourceUpdaterFactory<?, ?>> updaterFactories = Collections.emptyList();
+        private boolean recordEvents;
 
         @Override
         public TaskResult call() throws ProxyException {
+            // the extension kinds are only known while this deployment runs, and are released even if it fails
+            ResourceUpdaterRegistry.register(updaterFactories);
             try {
                 return doCall();
             } catch (Exception ex) {
@@ -130,19 +263,58 @@ public class DeploymentCommand implements ICommand<DeploymentCommand.IDeployment
                 // We catch the exception and wrap the stack trace in a ProxyException which can
                 // be serialized properly.
                 throw new ProxyException(ex);
+            } finally {
+                ResourceUpdaterRegistry.unregister(updaterFactories);
+                if (eventBus != null) {
+                    eventBus.close();
+                }
+                if (journal != null) {
+                    try {
+                        journal.close();
+                    } catch (IOException e) {
+                        taskListener.getLogger().println(Messages.DeploymentCommand_journalFailed(e));
+                    }
+                }
             }
         }
 
         private TaskResult doCall() throws Exception {
             TaskResult result = new TaskResult();
 
-            checkState(StringUtils.isNotBlank(secretNamespace), Messages.DeploymentCommand_blankNamespace());
+            final List<String> secretNamespaces = splitNamespaces(secretNamespace);
+            checkState(!secretNamespaces.isEmpty(), Messages.DeploymentCommand_blankNamespace());
             checkState(StringUtils.isNotBlank(configPaths), Messages.DeploymentCommand_blankConfigFiles());
 
-            KubernetesClientWrapper wrapper =
-                    clientFactory.buildClient(workspace).withLogger(taskListener.getLogger()).
-                            withDeleteResource(deleteResource);
-            result.masterHost = getMasterHost(wrapper);
+            Map<String, KubernetesClientWrapper> wrappers = buildClients();
+            KubernetesClientWrapper.seedDiscovery(discoverySnapshots);
+            final boolean multiCluster = wrappers.size() > 1;
+            if (journalFile != null) {
+                journal = new DeploymentJournal(journalFile.write());
+            }
+            EventSummary eventSummary = new EventSummary();
+            DeploymentMetrics metrics = new DeploymentMetrics();
+            eventBus = new DeploymentEventBus().subscribe(eventSummary).subscribe(metrics);
+            EventRecorder eventRecorder = null;
+            if (recordEvents) {
+                eventRecorder = new EventRecorder();
+                eventBus.subscribe(eventRecorder);
+            }
+            for (Map.Entry<String, KubernetesClientWrapper> entry : wrappers.entrySet()) {
+                PrintStream logger = taskListener.getLogger();
+                if (multiCluster) {
+                    logger = new PrintStream(new LinePrefixOutputStream(logger, "[" + entry.getKey() + "] "),
+                            true, Constants.DEFAULT_CHARSET);
+                }
+                entry.getValue()
+                        .withLogger(logger)
+                        .withDeleteResource(deleteResource)
+                        .withVerbose(verbose)
+                        .withJournal(journal, entry.getKey())
+                        .withEventBus(eventBus, entry.getKey())
+                        .withRateLimit(maxRequestsPerSecond)
+                        .withMetrics(metrics, entry.getKey());
+            }
+            result.masterHost = getMasterHost(wrappers.values().iterator().next());
 
             FilePath[] configFiles = workspace.list(configPaths);
             if (configFiles.length == 0) {
@@ -152,11 +324,10 @@ public class DeploymentCommand implements ICommand<DeploymentCommand.IDeployment
                 throw new IllegalStateException(message);
             }
 
+            String secretName = null;
             if (!dockerRegistryEndpoints.isEmpty()) {
-                String secretName =
-                        KubernetesClientWrapper.prepareSecretName(secretNameCfg, defaultSecretNameSeed, envVars);
-
-                wrapper.createOrReplaceSecrets(secretNamespace, secretName, dockerRegistryEndpoints);
+                secretName = KubernetesClientWrapper.prepareSecretName(
+                        secretNameCfg, jobFullName, dockerRegistryEndpoints, envVars);
 
                 taskListener.getLogger().println(Messages.DeploymentCommand_injectSecretName(
                         Constants.KUBERNETES_SECRET_NAME_PROP, secretName));
@@ -164,19 +335,174 @@ public class DeploymentCommand implements ICommand<DeploymentCommand.IDeployment
                 result.extraEnvVars.put(Constants.KUBERNETES_SECRET_NAME_PROP, secretName);
             }
 
+            // The configurations are read, substituted and parsed only once, no matter how many clusters they are
+            // deployed to.
+            VariableResolver<String> resolver = enableSubstitution ? new VariableResolver.ByMap<>(envVars) : null;
+            final List<Object> resources =
+                    KubernetesClientWrapper.loadResources(configFiles, resolver, taskListener.getLogger(), rawApply);
+
+            // The resource managers may update the models, so each cluster except the first one gets its own copy.
+            // The copies are all made before any cluster starts applying.
+            final List<List<Object>> clusterResources = new ArrayList<>(wrappers.size());
+            clusterResources.add(resources);
+            for (int i = 1; i < wrappers.size(); ++i) {
+                clusterResources.add(copyResources(resources));
+            }
+
+            // After a restart, only the idempotent passes are run again: the secrets written by the interrupted
+            // deployment may be pruned already, and the resources may be deleted already.
+            final boolean prune = pruneSecretsOlderThan > 0 && !resumed;
+            final boolean applyResources = !(deleteResource && resumed);
+            if (resumed) {
+                taskListener.getLogger().println(Messages.DeploymentCommand_resumed());
+                if (!applyResources) {
+                    taskListener.error(Messages.DeploymentCommand_resumedDelete());
+                    result.unstable = true;
+                }
+            }
+
+            final String finalSecretName = secretName;
+            final Map<String, String> secretLabels = KubernetesClientWrapper.secretLabels(jobFullName);
+            result.clusterResults.putAll(ClusterFanOut.deploy(wrappers, new ClusterFanOut.ClusterTask() {
+                @Override
+                public void deploy(int index, KubernetesClientWrapper wrapper) throws Exception {
+                    wrapper.refreshDiscovery();
+                    if (finalSecretName != null) {
+                        wrapper.createOrReplaceSecrets(secretNamespaces, finalSecretName, dockerRegistryEndpoints,
+                                secretLabels, secretType);
+                        if (prune) {
+                            for (String namespace : secretNamespaces) {
+                                wrapper.pruneSecrets(namespace, finalSecretName, jobFullName, buildNumber,
+                                        pruneSecretsOlderThan);
+                            }
+                        }
+                    }
+                    if (applyResources) {
+                        wrapper.applyResources(clusterResources.get(index));
+                    }
+                }
+            }));
 
-            if (enableSubstitution) {
-                wrapper.withVariableResolver(new VariableResolver.ByMap<>(envVars));
+            eventBus.close();
+            eventSummary.log(taskListener.getLogger(), eventBus.getDropped());
+            if (eventRecorder != null) {
+                eventRecorder.copyTo(result.events, taskListener.getLogger());
+            }
+            result.metrics = metrics;
+            for (KubernetesClientWrapper wrapper : wrappers.values()) {
+                wrapper.getApiCallStats().writeSummary(wrapper.getLogger());
             }
 
-            wrapper.apply(configFiles);
+            for (KubernetesClientWrapper wrapper : wrappers.values()) {
+                DiscoverySnapshot snapshot = wrapper.getDiscoverySnapshot();
+                if (snapshot != null) {
+                    result.discoverySnapshots.add(snapshot);
+                }
+            }
 
+            int failed = 0;
+            for (Map.Entry<String, ClusterResult> entry : result.clusterResults.entrySet()) {
+                ClusterResult clusterResult = entry.getValue();
+                if (clusterResult.getCommandState().isError()) {
+                    failed++;
+                }
+                if (clusterResult.isUnauthorized()) {
+                    // the cached kubeconfig may be stale, drop it here and on the master
+                    String label = clientLabels.get(entry.getKey());
+                    taskListener.getLogger().println(Messages.DeploymentCommand_invalidateCredentials(label));
+                    clientFactories.get(label).invalidate();
+                    result.unauthorizedClients.add(label);
+                }
+            }
+            if (multiCluster) {
+                logResultMatrix(result.clusterResults);
+            }
 
-            result.commandState = CommandState.Success;
+            if (failed == 0) {
+                result.commandState = CommandState.Success;
+            } else if (failed < result.clusterResults.size()
+                    && partialFailurePolicy == PartialFailurePolicy.UNSTABLE) {
+                taskListener.getLogger().println(
+                        Messages.DeploymentCommand_partialFailure(failed, result.clusterResults.size()));
+                result.commandState = CommandState.Success;
+                result.unstable = true;
+            } else {
+                result.commandState = CommandState.HasError;
+            }
 
             return result;
         }
 
+        /**
+         * Build the clients of all the clusters. If contexts are selected, one client is built for each of the
+         * contexts in each of the kubeconfigs, labelled with the context name, prefixed with the kubeconfig label
+         * if there are more than one kubeconfigs.
+         */
+        private Map<String, KubernetesClientWrapper> buildClients() throws Exception {
+            Map<String, KubernetesClientWrapper> wrappers = new LinkedHashMap<>();
+            for (Map.Entry<String, ClientWrapperFactory> entry : clientFactories.entrySet()) {
+                if (contexts.isEmpty()) {
+                    wrappers.put(entry.getKey(), entry.getValue().buildClient(workspace));
+                    clientLabels.put(entry.getKey(), entry.getKey());
+                    continue;
+                }
+                checkState(entry.getValue() instanceof KubeconfigClientWrapperFactory,
+                        Messages.KubernetesDeployContext_contextsNotSupported(entry.getKey()));
+                Map<String, KubernetesClientWrapper> contextWrappers =
+                        ((KubeconfigClientWrapperFactory) entry.getValue()).buildClients(workspace, contexts);
+                for (Map.Entry<String, KubernetesClientWrapper> contextEntry : contextWrappers.entrySet()) {
+                    String label = clientFactories.size() > 1
+                            ? entry.getKey() + "/" + contextEntry.getKey()
+                            : contextEntry.getKey();
+                    wrappers.put(label, contextEntry.getValue());
+                    clientLabels.put(label, entry.getKey());
+                }
+            }
+            return wrappers;
+        }
+
+        private static List<Object> copyResources(List<Object> resources) {
+            List<Object> copies = new ArrayList<>(resources.size());
+            for (Object resource : resources) {
+                // the raw resources are immutable
+                copies.add(resource instanceof RawResource ? resource : KubernetesJsonUtils.deepCopy(resource));
+            }
+            return copies;
+        }
+
+        private void logResultMatrix(Map<String, ClusterResult> clusterResults) {
+            PrintStream logger = taskListener.getLogger();
+            logger.println(Messages.DeploymentCommand_clusterResults());
+            for (Map.Entry<String, ClusterResult> entry : clusterResults.entrySet()) {
+                ClusterResult clusterResult = entry.getValue();
+                logger.println(Messages.DeploymentCommand_clusterResult(
+                        entry.getKey(),
+                        clusterResult.getCommandState(),
+                        clusterResult.getDurationMillis(),
+                        StringUtils.defaultString(clusterResult.getError())));
+            }
+        }
+
+        public void setClientFactories(Map<String, ClientWrapperFactory> clientFactories) {
+            this.clientFactories = clientFactories;
+        }
+
+        public void setPartialFailurePolicy(PartialFailurePolicy partialFailurePolicy) {
+            this.partialFailurePolicy = partialFailurePolicy;
+        }
+
+        public void setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+            this.maxRequestsPerSecond = maxRequestsPerSecond;
+        }
+
+        public void setContexts(List<String> contexts) {
+            this.contexts = contexts;
+        }
+
+        public void setJournalFile(FilePath journalFile) {
+            this.journalFile = journalFile;
+        }
+
         public void setWorkspace(FilePath workspace) {
             this.workspace = workspace;
         }
@@ -185,10 +511,6 @@ public class DeploymentCommand implements ICommand<DeploymentCommand.IDeployment
             this.taskListener = taskListener;
         }
 
-        public void setClientFactory(ClientWrapperFactory clientFactory) {
-            this.clientFactory = clientFactory;
-        }
-
         public void setEnvVars(EnvVars envVars) {
             this.envVars = envVars;
         }
@@ -201,12 +523,24 @@ public class DeploymentCommand implements ICommand<DeploymentCommand.IDeployment
             this.secretNamespace = secretNamespace;
         }
 
+        public void setSecretType(DockerSecretType secretType) {
+            this.secretType = secretType;
+        }
+
         public void setSecretNameCfg(String secretNameCfg) {
             this.secretNameCfg = secretNameCfg;
         }
 
-        public void setDefaultSecretNameSeed(String defaultSecretNameSeed) {
-            this.defaultSecretNameSeed = defaultSecretNameSeed;
+        public void setJobFullName(String jobFullName) {
+            this.jobFullName = jobFullName;
+        }
+
+        public void setBuildNumber(int buildNumber) {
+            this.buildNumber = buildNumber;
+        }
+
+        public void setPruneSecretsOlderThan(int pruneSecretsOlderThan) {
+            this.pruneSecretsOlderThan = pruneSecretsOlderThan;
         }
 
         public void setEnableSubstitution(boolean enableSubstitution) {
@@ -219,6 +553,81 @@ public class DeploymentCommand implements ICommand<DeploymentCommand.IDeployment
         public void setDeleteResource(boolean isDeleteResource) {
             this.deleteResource = isDeleteResource;
         }
+
+        public void setResumed(boolean resumed) {
+            this.resumed = resumed;
+        }
+
+        public void setVerbose(boolean verbose) {
+            this.verbose = verbose;
+        }
+
+        public void setRawApply(boolean rawApply) {
+            this.rawApply = rawApply;
+        }
+
+        public void setDiscoverySnapshots(List<DiscoverySnapshot> discoverySnapshots) {
+            this.discoverySnapshots = new ArrayList<>(discoverySnapshots);
+        }
+
+        public void setUpdaterFactories(List<ResourceUpdaterFactory<?, ?>> updaterFactories) {
+            this.updaterFactories = new ArrayList<>(updaterFactories);
+        }
+
+        public void setRecordEvents(boolean recordEvents) {
+            this.recordEvents = recordEvents;
+        }
+    }
+
+    /**
+     * Counts the deployment events of each type, to summarize the operations at the end of the deployment.
+     */
+    private static final class EventSummary implements DeploymentEventBus.Subscriber {
+        private final AtomicLongArray counts = new AtomicLongArray(DeploymentEvent.Type.values().length);
+
+        @Override
+        public void onEvent(DeploymentEvent event) {
+            counts.incrementAndGet(event.getType().ordinal());
+        }
+
+        void log(PrintStream logger, long dropped) {
+            logger.println(Messages.DeploymentCommand_eventSummary(
+                    counts.get(DeploymentEvent.Type.CREATED.ordinal()),
+                    counts.get(DeploymentEvent.Type.UPDATED.ordinal()),
+                    counts.get(DeploymentEvent.Type.DELETED.ordinal()),
+                    counts.get(DeploymentEvent.Type.NOT_FOUND.ordinal()),
+                    counts.get(DeploymentEvent.Type.FAILED.ordinal())));
+            if (dropped > 0) {
+                logger.println(Messages.DeploymentCommand_eventsDropped(dropped));
+            }
+        }
+    }
+
+    /**
+     * Records the events to be sent back to the {@link DeploymentEventListener}s on the controller, up to a limit so
+     * that a large deployment does not exhaust the memory.
+     */
+    private static final class EventRecorder implements DeploymentEventBus.Subscriber {
+        private static final int MAX_EVENTS = 10000;
+
+        private final List<DeploymentEvent> events = new ArrayList<>();
+        private long skipped;
+
+        @Override
+        public synchronized void onEvent(DeploymentEvent event) {
+            if (events.size() < MAX_EVENTS) {
+                events.add(event);
+            } else {
+                skipped++;
+            }
+        }
+
+        synchronized void copyTo(List<DeploymentEvent> result, PrintStream logger) {
+            result.addAll(events);
+            if (skipped > 0) {
+                logger.println(Messages.DeploymentCommand_eventsNotRecorded(skipped, MAX_EVENTS));
+            }
+        }
     }
 
     public static class TaskResult implements Serializable {
@@ -227,21 +636,93 @@ public class DeploymentCommand implements ICommand<DeploymentCommand.IDeployment
         private CommandState commandState = CommandState.Unknown;
         private String masterHost;
         private final Map<String, String> extraEnvVars = new HashMap<>();
+        private final Map<String, ClusterResult> clusterResults = new LinkedHashMap<>();
+        private final Set<String> unauthorizedClients = new HashSet<>();
+        private final List<DiscoverySnapshot> discoverySnapshots = new ArrayList<>();
+        private DeploymentMetrics metrics;
+        private final List<DeploymentEvent> events = new ArrayList<>();
+        private boolean unstable;
+
+        public Map<String, ClusterResult> getClusterResults() {
+            return clusterResults;
+        }
+    }
+
+    /**
+     * Result of the deployment to one of the clusters.
+     */
+    public static class ClusterResult implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final CommandState commandState;
+        private final long durationMillis;
+        private final String error;
+        private final boolean unauthorized;
+
+        public ClusterResult(CommandState commandState, long durationMillis, String error, boolean unauthorized) {
+            this.commandState = commandState;
+            this.durationMillis = durationMillis;
+            this.error = error;
+            this.unauthorized = unauthorized;
+        }
+
+        public CommandState getCommandState() {
+            return commandState;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isUnauthorized() {
+            return unauthorized;
+        }
     }
 
     public interface IDeploymentCommand extends IBaseCommandData {
         ClientWrapperFactory clientFactory(Item owner);
 
+        /**
+         * Get the client factories of all the clusters to be deployed to.
+         *
+         * @param owner the item which owns the credentials
+         * @return the client factories keyed by the cluster label, in the deployment order
+         */
+        Map<String, ClientWrapperFactory> clientFactories(Item owner);
+
+        PartialFailurePolicy getPartialFailurePolicyEnum();
+
+        int getMaxRequestsPerSecond();
+
+        List<String> getContexts();
+
         String getSecretNamespace();
 
+        DockerSecretType getSecretTypeEnum();
+
         String getSecretName();
 
-        List<ResolvedDockerRegistryEndpoint> resolveEndpoints(Item context) throws IOException;
+        int getPruneSecretsOlderThan();
+
+        List<ResolvedDockerRegistryEndpoint> resolveEndpoints(Item context, PrintStream logger) throws IOException;
 
         String getConfigs();
 
         boolean isEnableConfigSubstitution();
 
         boolean isDeleteResource();
+
+        boolean isVerbose();
+
+        boolean isRawApply();
+
+        /**
+         * @return whether the deployment is run again after the controller restarted while it was in progress
+         */
+        boolean isResumed();
     }
 }
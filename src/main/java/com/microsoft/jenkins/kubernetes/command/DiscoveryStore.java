@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.command;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.microsoft.jenkins.kubernetes.wrapper.DiscoverySnapshot;
+import hudson.util.AtomicFileWriter;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persists the API discovery snapshots of the clusters on the controller, one JSON file for each API server under
+ * {@code $JENKINS_HOME/kubernetes-cd/discovery}.
+ * <p>
+ * The snapshots are sent to the agent with each deployment, and the refreshed ones are stored back from the result.
+ * Only the server version and the served group versions are stored: the resources reported by an agent are not
+ * shared with the other jobs. The expired snapshots are dropped.
+ */
+final class DiscoveryStore {
+    private static final Logger LOGGER = Logger.getLogger(DiscoveryStore.class.getName());
+    private static final Gson GSON = new Gson();
+    private static final DiscoveryStore INSTANCE = new DiscoveryStore();
+
+    private final Map<String, DiscoverySnapshot> snapshots = new ConcurrentHashMap<>();
+    private boolean loaded;
+
+    static DiscoveryStore get() {
+        return INSTANCE;
+    }
+
+    private DiscoveryStore() {
+    }
+
+    /**
+     * @return the snapshots which have not expired
+     */
+    List<DiscoverySnapshot> loadAll() {
+        ensureLoaded();
+        List<DiscoverySnapshot> result = new ArrayList<>();
+        Iterator<DiscoverySnapshot> iterator = snapshots.values().iterator();
+        while (iterator.hasNext()) {
+            DiscoverySnapshot snapshot = iterator.next();
+            if (snapshot.isExpired()) {
+                iterator.remove();
+                deleteFile(snapshot.getServer());
+            } else {
+                result.add(snapshot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Store the snapshots returned by a deployment, without the resources of the group versions.
+     */
+    void saveAll(Collection<DiscoverySnapshot> updated) {
+        ensureLoaded();
+        for (DiscoverySnapshot returned : updated) {
+            if (returned == null || returned.getServer() == null) {
+                continue;
+            }
+            DiscoverySnapshot snapshot = returned.withoutResources();
+            snapshots.put(snapshot.getServer(), snapshot);
+            File file = getFile(snapshot.getServer());
+            try {
+                if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+                    throw new IOException("Failed to create directory " + file.getParentFile());
+                }
+                AtomicFileWriter writer = new AtomicFileWriter(file);
+                try {
+                    GSON.toJson(snapshot, writer);
+                    writer.commit();
+                } finally {
+                    writer.abort();
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to save the API discovery of " + snapshot.getServer(), e);
+            }
+        }
+    }
+
+    private synchronized void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        File[] files = getDirectory().listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                DiscoverySnapshot snapshot = GSON.fromJson(reader, DiscoverySnapshot.class);
+                if (snapshot != null && snapshot.getServer() != null) {
+                    // the files written by the earlier versions have the resources
+                    snapshots.put(snapshot.getServer(), snapshot.withoutResources());
+                }
+            } catch (IOException | JsonParseException e) {
+                LOGGER.log(Level.FINE, "Ignoring the invalid API discovery file " + file, e);
+            }
+        }
+    }
+
+    private void deleteFile(String server) {
+        File file = getFile(server);
+        if (file.exists() && !file.delete()) {
+            LOGGER.log(Level.FINE, "Failed to delete the API discovery file {0}", file);
+        }
+    }
+
+    private static File getDirectory() {
+        return new File(Jenkins.getInstance().getRootDir(), "kubernetes-cd/discovery");
+    }
+
+    private static File getFile(String server) {
+        return new File(getDirectory(), Hashing.sha256().hashString(server, StandardCharsets.UTF_8) + ".json");
+    }
+}
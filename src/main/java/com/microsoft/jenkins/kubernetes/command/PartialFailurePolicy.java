@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.command;
+
+/**
+ * Decides the outcome of a deployment to multiple clusters when it fails on some of the clusters only.
+ */
+public enum PartialFailurePolicy {
+    /**
+     * Fail the build if the deployment fails on any of the clusters.
+     */
+    FAIL,
+
+    /**
+     * Mark the build as unstable if the deployment succeeds on at least one of the clusters.
+     */
+    UNSTABLE;
+
+    public static final PartialFailurePolicy DEFAULT = FAIL;
+
+    public static PartialFailurePolicy fromString(String value) {
+        if ("unstable".equalsIgnoreCase(value)) {
+            return UNSTABLE;
+        }
+        return FAIL;
+    }
+}
@@ -21,6 +21,14 @@ import java.io.Serializable;
 public interface ClientWrapperFactory extends Serializable {
     KubernetesClientWrapper buildClient(FilePath workspace) throws Exception;
 
+    /**
+     * Invalidate the cached cluster credentials, if any, after they failed to authenticate against the cluster.
+     * <p>
+     * This is called on both the master and the node which runs the deployment.
+     */
+    default void invalidate() {
+    }
+
     /**
      * The builder that builds {@link ClientWrapperFactory}.
      */
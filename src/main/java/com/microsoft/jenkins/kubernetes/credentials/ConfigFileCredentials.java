@@ -19,6 +19,10 @@ import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @deprecated Use {@link KubeconfigCredentials}.
  */
@@ -57,7 +61,7 @@ public class ConfigFileCredentials
         }
     }
 
-    private static class ClientWrapperFactoryImpl implements ClientWrapperFactory {
+    private static class ClientWrapperFactoryImpl implements KubeconfigClientWrapperFactory {
         private static final long serialVersionUID = 1L;
 
         private final String configFilePath;
@@ -75,5 +79,16 @@ public class ConfigFileCredentials
             }
             return new KubernetesClientWrapper(configFile.getRemote());
         }
+
+        @Override
+        public Map<String, KubernetesClientWrapper> buildClients(FilePath workspace, List<String> contexts)
+                throws Exception {
+            FilePath configFile = workspace.child(configFilePath);
+            if (!configFile.exists()) {
+                throw new IllegalArgumentException(
+                        Messages.ConfigFileCredentials_configFileNotFound(configFilePath, workspace));
+            }
+            return KubernetesClientWrapper.forContexts(new StringReader(configFile.readToString()), contexts);
+        }
     }
 }
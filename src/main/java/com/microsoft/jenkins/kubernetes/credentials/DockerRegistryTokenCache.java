@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.credentials;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.microsoft.jenkins.kubernetes.Messages;
+import hudson.model.Item;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jenkins.model.Jenkins;
+import jenkins.util.NamingThreadFactory;
+import org.acegisecurity.Authentication;
+import org.jenkinsci.plugins.docker.commons.credentials.DockerRegistryEndpoint;
+import org.jenkinsci.plugins.docker.commons.credentials.DockerRegistryToken;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the tokens of the Docker registry endpoints concurrently, and caches them in memory for a short TTL.
+ * <p>
+ * The tokens are keyed by the item, the authentication of the caller, the registry URL and the credentials ID. The TTL
+ * can be configured with the system property
+ * {@code com.microsoft.jenkins.kubernetes.credentials.DockerRegistryTokenCache.ttlSeconds}, and a non-positive TTL
+ * disables the cache.
+ */
+public final class DockerRegistryTokenCache {
+    private static final long DEFAULT_TTL_SECONDS = 60L;
+    private static final long MAX_ENTRIES = 200L;
+    private static final int MAX_PARALLEL_RESOLUTIONS = 8;
+
+    static final long TTL_SECONDS =
+            Long.getLong(DockerRegistryTokenCache.class.getName() + ".ttlSeconds", DEFAULT_TTL_SECONDS);
+
+    private static final Cache<List<Object>, DockerRegistryToken> CACHE = CacheBuilder.newBuilder()
+            .expireAfterWrite(Math.max(TTL_SECONDS, 0L), TimeUnit.SECONDS)
+            .maximumSize(MAX_ENTRIES)
+            .build();
+
+    private DockerRegistryTokenCache() {
+        // hide constructor
+    }
+
+    /**
+     * Resolve the tokens of the given endpoints in the context of the item. The time spent on each of the endpoints is
+     * printed to the logger.
+     *
+     * @param context   the item to look up the credentials for
+     * @param endpoints the configured endpoints
+     * @param logger    the build logger, may be {@code null}
+     * @return the resolved endpoints, in the same order as the configured ones
+     * @throws IOException if the token of an endpoint cannot be resolved
+     */
+    public static List<ResolvedDockerRegistryEndpoint> resolve(final Item context,
+                                                               List<DockerRegistryEndpoint> endpoints,
+                                                               final PrintStream logger) throws IOException {
+        List<ResolvedDockerRegistryEndpoint> resolved = new ArrayList<>();
+        if (endpoints.isEmpty()) {
+            return resolved;
+        }
+        final Authentication authentication = Jenkins.getAuthentication();
+        if (endpoints.size() == 1) {
+            resolved.add(resolve(context, authentication, endpoints.get(0), logger));
+            return resolved;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(endpoints.size(), MAX_PARALLEL_RESOLUTIONS),
+                new NamingThreadFactory(Executors.defaultThreadFactory(), "DockerRegistryTokenCache"));
+        try {
+            List<Future<ResolvedDockerRegistryEndpoint>> futures = new ArrayList<>();
+            for (final DockerRegistryEndpoint endpoint : endpoints) {
+                futures.add(executor.submit(new Callable<ResolvedDockerRegistryEndpoint>() {
+                    @Override
+                    public ResolvedDockerRegistryEndpoint call() throws Exception {
+                        return resolve(context, authentication, endpoint, logger);
+                    }
+                }));
+            }
+            for (Future<ResolvedDockerRegistryEndpoint> future : futures) {
+                resolved.add(future.get());
+            }
+            return resolved;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static void invalidateAll() {
+        CACHE.invalidateAll();
+    }
+
+    private static ResolvedDockerRegistryEndpoint resolve(final Item context,
+                                                          Authentication authentication,
+                                                          final DockerRegistryEndpoint endpoint,
+                                                          PrintStream logger) throws IOException {
+        long start = System.nanoTime();
+        final URL url = endpoint.getEffectiveUrl();
+        final boolean[] cached = {true};
+        DockerRegistryToken token;
+        try (ACLContext ignored = ACL.as(authentication)) {
+            Callable<DockerRegistryToken> loader = new Callable<DockerRegistryToken>() {
+                @Override
+                public DockerRegistryToken call() {
+                    cached[0] = false;
+                    DockerRegistryToken value = endpoint.getToken(context);
+                    if (value == null) {
+                        throw new IllegalArgumentException("No credentials found for " + endpoint);
+                    }
+                    return value;
+                }
+            };
+            if (TTL_SECONDS <= 0) {
+                token = loader.call();
+            } else {
+                List<Object> key = Arrays.<Object>asList(
+                        context == null ? null : context.getFullName(),
+                        authentication == null ? null : authentication.getName(),
+                        url.toString(),
+                        endpoint.getCredentialsId());
+                token = CACHE.get(key, loader);
+            }
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+
+        ResolvedDockerRegistryEndpoint resolved = new ResolvedDockerRegistryEndpoint(url, token);
+        if (logger != null) {
+            logger.println(Messages.DockerRegistryTokenCache_resolved(resolved.getUrl(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    cached[0] ? Messages.DockerRegistryTokenCache_cached() : ""));
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.credentials;
+
+import com.microsoft.jenkins.kubernetes.wrapper.KubernetesClientWrapper;
+import hudson.FilePath;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link ClientWrapperFactory} backed by a kubeconfig, which can also build the clients of selected contexts of
+ * the kubeconfig.
+ */
+public interface KubeconfigClientWrapperFactory extends ClientWrapperFactory {
+    /**
+     * Build the client wrappers for the given contexts of the kubeconfig.
+     * <p>
+     * The implementations should fetch and parse the kubeconfig only once for all the contexts.
+     *
+     * @param workspace the workspace of the build
+     * @param contexts  the names of the contexts in the kubeconfig
+     * @return the client wrappers keyed by the context name, in the given order
+     * @throws Exception if the client wrappers cannot be built
+     */
+    Map<String, KubernetesClientWrapper> buildClients(FilePath workspace, List<String> contexts) throws Exception;
+}
@@ -14,7 +14,8 @@ import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
 import com.cloudbees.plugins.credentials.domains.DomainRequirement;
 import com.cloudbees.plugins.credentials.impl.BaseStandardCredentials;
-import com.microsoft.jenkins.azurecommons.remote.SSHClient;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.microsoft.jenkins.kubernetes.util.Constants;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.DescriptorExtensionList;
@@ -34,7 +35,6 @@ import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
 import javax.annotation.Nonnull;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
@@ -71,6 +71,15 @@ public class KubeconfigCredentials extends BaseStandardCredentials implements An
         return "";
     }
 
+    /**
+     * Drop the cached kubeconfig content, after it failed to authenticate against the cluster.
+     */
+    public void invalidateContent() {
+        if (kubeconfigSource != null) {
+            kubeconfigSource.invalidateContent();
+        }
+    }
+
     @Override
     public void bindToAncestor(Item o) {
         this.owner = o;
@@ -121,6 +130,12 @@ public class KubeconfigCredentials extends BaseStandardCredentials implements An
         public boolean isSnapshotSource() {
             return false;
         }
+
+        /**
+         * Drop the cached content, if any, so that it is fetched again on the next {@link #getContent()}.
+         */
+        public void invalidateContent() {
+        }
     }
 
     public abstract static class KubeconfigSourceDescriptor extends Descriptor<KubeconfigSource> {
@@ -159,6 +174,15 @@ public class KubeconfigCredentials extends BaseStandardCredentials implements An
 
     public static class FileOnMasterKubeconfigSource extends KubeconfigSource {
         private static final Logger LOGGER = Logger.getLogger(FileOnMasterKubeconfigSource.class.getName());
+        private static final long MAX_CACHED_FILES = 100L;
+
+        /**
+         * Contents of the kubeconfig files, shared by all the credentials, the bindings and the snapshots. An entry
+         * is used only if the file still has the same modification time and size.
+         */
+        private static final Cache<String, FileContent> CONTENT_CACHE = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_FILES)
+                .build();
 
         private final String kubeconfigFile;
 
@@ -174,7 +198,7 @@ public class KubeconfigCredentials extends BaseStandardCredentials implements An
                 File file = new File(kubeconfigFile);
                 if (file.isFile()) {
                     try {
-                        return FileUtils.readFileToString(file);
+                        return readCached(file);
                     } catch (IOException e) {
                         throw new RuntimeException(e);
                     }
@@ -183,6 +207,39 @@ public class KubeconfigCredentials extends BaseStandardCredentials implements An
             throw new IllegalArgumentException("The kubeconfig file path is not configured");
         }
 
+        @Override
+        public void invalidateContent() {
+            if (kubeconfigFile != null) {
+                CONTENT_CACHE.invalidate(new File(kubeconfigFile).getAbsolutePath());
+            }
+        }
+
+        private static String readCached(File file) throws IOException {
+            String path = file.getAbsolutePath();
+            // take the stats before reading, so that a change during the read is picked up by the next call
+            long lastModified = file.lastModified();
+            long length = file.length();
+            FileContent cached = CONTENT_CACHE.getIfPresent(path);
+            if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+                return cached.content;
+            }
+            String content = FileUtils.readFileToString(file);
+            CONTENT_CACHE.put(path, new FileContent(lastModified, length, content));
+            return content;
+        }
+
+        private static final class FileContent {
+            private final long lastModified;
+            private final long length;
+            private final String content;
+
+            FileContent(long lastModified, long length, String content) {
+                this.lastModified = lastModified;
+                this.length = length;
+                this.content = content;
+            }
+        }
+
         public String getKubeconfigFile() {
             return kubeconfigFile;
         }
@@ -268,34 +325,39 @@ public class KubeconfigCredentials extends BaseStandardCredentials implements An
             this.owner = o;
         }
 
-        @Nonnull
-        @Override
-        public String getContent() {
-            StandardUsernameCredentials creds = CredentialsMatchers.firstOrNull(
+        private StandardUsernameCredentials lookupSshCredentials() {
+            return CredentialsMatchers.firstOrNull(
                     CredentialsProvider.lookupCredentials(
                             StandardUsernameCredentials.class,
                             owner,
                             ACL.SYSTEM,
                             Collections.<DomainRequirement>emptyList()),
                     CredentialsMatchers.withId(getSshCredentialId()));
+        }
 
+        @Nonnull
+        @Override
+        public String getContent() {
+            StandardUsernameCredentials creds = lookupSshCredentials();
             if (creds == null) {
                 throw new IllegalArgumentException("Cannot find SSH credentials with ID " + getSshCredentialId());
             }
 
             try {
-                SSHClient sshClient = new SSHClient(getHost(), getPort(), creds);
-                try (SSHClient connected = sshClient.connect()) {
-                    try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-                        connected.copyFrom(Constants.KUBECONFIG_FILE, out);
-                        return out.toString(Constants.DEFAULT_CHARSET);
-                    }
-                }
+                return SSHKubeconfigCache.get(getHost(), getPort(), creds, getFile());
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
             }
         }
 
+        @Override
+        public void invalidateContent() {
+            StandardUsernameCredentials creds = lookupSshCredentials();
+            if (creds != null) {
+                SSHKubeconfigCache.invalidate(getHost(), getPort(), creds, getFile());
+            }
+        }
+
         @Extension
         public static class DescriptorImpl extends KubeconfigSourceDescriptor {
             @Nonnull
@@ -32,8 +32,10 @@ import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
 import javax.annotation.Nonnull;
-import java.io.OutputStream;
+import java.io.StringReader;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @deprecated Use {@link KubeconfigCredentials}.
@@ -129,7 +131,7 @@ public class SSHCredentials
         }
     }
 
-    private static class ClientWrapperFactoryImpl implements ClientWrapperFactory {
+    private static class ClientWrapperFactoryImpl implements KubeconfigClientWrapperFactory {
         private static final long serialVersionUID = 1L;
 
         private final String host;
@@ -144,23 +146,22 @@ public class SSHCredentials
 
         @Override
         public KubernetesClientWrapper buildClient(FilePath workspace) throws Exception {
-            FilePath kubeconfig = fetchConfig(workspace);
-            try {
-                return new KubernetesClientWrapper(kubeconfig.getRemote());
-            } finally {
-                kubeconfig.delete();
-            }
+            return new KubernetesClientWrapper(new StringReader(fetchConfig()));
         }
 
-        private FilePath fetchConfig(FilePath workspace) throws Exception {
-            SSHClient sshClient = new SSHClient(host, port, credentials);
-            try (SSHClient ignore = sshClient.connect()) {
-                FilePath configFile = workspace.createTempFile(Constants.KUBECONFIG_PREFIX, "");
-                try (OutputStream out = configFile.write()) {
-                    sshClient.copyFrom(Constants.KUBECONFIG_FILE, out);
-                }
-                return configFile;
-            }
+        @Override
+        public Map<String, KubernetesClientWrapper> buildClients(FilePath workspace, List<String> contexts)
+                throws Exception {
+            return KubernetesClientWrapper.forContexts(new StringReader(fetchConfig()), contexts);
+        }
+
+        @Override
+        public void invalidate() {
+            SSHKubeconfigCache.invalidate(host, port, credentials, Constants.KUBECONFIG_FILE);
+        }
+
+        private String fetchConfig() throws Exception {
+            return SSHKubeconfigCache.get(host, port, credentials, Constants.KUBECONFIG_FILE);
         }
     }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.credentials;
+
+import com.cloudbees.jenkins.plugins.sshcredentials.SSHUserPrivateKey;
+import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
+import com.cloudbees.plugins.credentials.common.UsernamePasswordCredentials;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.microsoft.jenkins.azurecommons.remote.SSHClient;
+import com.microsoft.jenkins.kubernetes.util.Constants;
+import hudson.util.Secret;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cache of the kubeconfig contents fetched from the Kubernetes master through SSH.
+ * <p>
+ * The contents are keyed by the SSH host, port, the remote file path and a fingerprint of the credentials: the
+ * username and a hash of the private keys or the password. The credentials IDs are only unique in their store, so
+ * they would let the credentials of another folder with the same ID read the cached kubeconfig without ever
+ * authenticating. The credentials of other types are never cached. The contents expire after a TTL
+ * which can be configured with the system property
+ * {@code com.microsoft.jenkins.kubernetes.credentials.SSHKubeconfigCache.ttlSeconds}. A non-positive TTL disables
+ * the cache. The entry should be invalidated if the fetched kubeconfig fails to authenticate against the cluster.
+ */
+final class SSHKubeconfigCache {
+    private static final long DEFAULT_TTL_SECONDS = 300L;
+    private static final long MAX_ENTRIES = 100L;
+
+    static final long TTL_SECONDS =
+            Long.getLong(SSHKubeconfigCache.class.getName() + ".ttlSeconds", DEFAULT_TTL_SECONDS);
+
+    private static final Cache<List<Object>, String> CACHE = CacheBuilder.newBuilder()
+            .expireAfterWrite(Math.max(TTL_SECONDS, 0L), TimeUnit.SECONDS)
+            .maximumSize(MAX_ENTRIES)
+            .build();
+
+    private SSHKubeconfigCache() {
+        // hide constructor
+    }
+
+    /**
+     * Get the content of the kubeconfig on the SSH server, from the cache if present.
+     *
+     * @param host        the SSH host
+     * @param port        the SSH port
+     * @param credentials the SSH credentials
+     * @param file        the kubeconfig path on the SSH server
+     * @return the kubeconfig content
+     * @throws Exception if the kubeconfig cannot be fetched
+     */
+    static String get(final String host,
+                      final int port,
+                      final StandardUsernameCredentials credentials,
+                      final String file) throws Exception {
+        List<Object> key = key(host, port, credentials, file);
+        if (TTL_SECONDS <= 0 || key == null) {
+            return fetch(host, port, credentials, file);
+        }
+        try {
+            return CACHE.get(key, new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return fetch(host, port, credentials, file);
+                }
+            });
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    static void invalidate(String host, int port, StandardUsernameCredentials credentials, String file) {
+        List<Object> key = key(host, port, credentials, file);
+        if (key != null) {
+            CACHE.invalidate(key);
+        }
+    }
+
+    /**
+     * @return the cache key, or {@code null} if the credentials cannot be fingerprinted and must not be cached
+     */
+    static List<Object> key(String host, int port, StandardUsernameCredentials credentials, String file) {
+        String fingerprint = fingerprint(credentials);
+        if (fingerprint == null) {
+            return null;
+        }
+        return Arrays.<Object>asList(host, port, fingerprint, file);
+    }
+
+    private static String fingerprint(StandardUsernameCredentials credentials) {
+        StringBuilder material = new StringBuilder(credentials.getClass().getName())
+                .append('\0').append(credentials.getUsername());
+        if (credentials instanceof SSHUserPrivateKey) {
+            SSHUserPrivateKey privateKey = (SSHUserPrivateKey) credentials;
+            for (String key : privateKey.getPrivateKeys()) {
+                material.append('\0').append(key);
+            }
+            material.append('\0').append(Secret.toString(privateKey.getPassphrase()));
+        } else if (credentials instanceof UsernamePasswordCredentials) {
+            material.append('\0').append(Secret.toString(((UsernamePasswordCredentials) credentials).getPassword()));
+        } else {
+            return null;
+        }
+        return DigestUtils.sha256Hex(material.toString());
+    }
+
+    private static String fetch(String host,
+                                int port,
+                                StandardUsernameCredentials credentials,
+                                String file) throws Exception {
+        SSHClient sshClient = new SSHClient(host, port, credentials);
+        try (SSHClient connected = sshClient.connect()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            connected.copyFrom(file, out);
+            return out.toString(Constants.DEFAULT_CHARSET);
+        }
+    }
+}
@@ -15,7 +15,9 @@ import org.apache.commons.io.IOUtils;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.Random;
 
@@ -31,6 +33,13 @@ public final class CommonUtils {
         }
     };
 
+    private static final ClassValue<Accessors> ACCESSORS = new ClassValue<Accessors>() {
+        @Override
+        protected Accessors computeValue(Class<?> type) {
+            return new Accessors(type);
+        }
+    };
+
     static {
         String digits = "0123456789";
         String asciiLowercase = "abcdefghijklmnopqrstuvwxyz";
@@ -110,16 +119,70 @@ public final class CommonUtils {
      * @return
      */
     public static String getResourceName(Object object) {
-        String name = null;
+        V1ObjectMeta metadata = getMetadata(object);
+        return metadata == null ? null : metadata.getName();
+    }
+
+    /**
+     * Get the metadata of a Kubernetes model object.
+     *
+     * @param object the Kubernetes model object
+     * @return the metadata, or {@code null} if the object has no metadata
+     */
+    public static V1ObjectMeta getMetadata(Object object) {
+        Object metadata = invoke(ACCESSORS.get(object.getClass()).metadata, object);
+        return metadata instanceof V1ObjectMeta ? (V1ObjectMeta) metadata : null;
+    }
+
+    /**
+     * Get the apiVersion of a Kubernetes model object.
+     *
+     * @param object the Kubernetes model object
+     * @return the apiVersion, or {@code null} if the object has none
+     */
+    public static String getApiVersion(Object object) {
+        Object apiVersion = invoke(ACCESSORS.get(object.getClass()).apiVersion, object);
+        return apiVersion instanceof String ? (String) apiVersion : null;
+    }
+
+    private static Object invoke(MethodHandle getter, Object object) {
+        if (getter == null) {
+            return null;
+        }
         try {
-            Method method = object.getClass().getMethod("getMetadata");
-            V1ObjectMeta metadata = (V1ObjectMeta) method.invoke(object);
-            name = metadata.getName();
-        } catch (IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
-            e.printStackTrace();
+            return (Object) getter.invokeExact(object);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
         }
-        return name;
     }
+
+    /**
+     * The getters of one model class, looked up once and adapted to {@code (Object) -> Object} so they're invoked
+     * without reflection. A getter is {@code null} if the class doesn't have it.
+     */
+    private static final class Accessors {
+        private final MethodHandle metadata;
+        private final MethodHandle apiVersion;
+
+        private Accessors(Class<?> type) {
+            metadata = findGetter(type, "getMetadata");
+            apiVersion = findGetter(type, "getApiVersion");
+        }
+
+        private static MethodHandle findGetter(Class<?> type, String name) {
+            try {
+                Method method = type.getMethod(name);
+                method.setAccessible(true);
+                return MethodHandles.lookup().unreflect(method)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+                return null;
+            }
+        }
+    }
+
     private CommonUtils() {
         // hide constructor
     }
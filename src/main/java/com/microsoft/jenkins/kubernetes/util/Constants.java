@@ -15,6 +15,11 @@ public final class Constants {
 
     public static final String DEFAULT_KUBERNETES_NAMESPACE = "default";
 
+    /**
+     * Label of the cluster in the deployment logs when it is not identified by a kubeconfig credentials ID.
+     */
+    public static final String DEFAULT_CLUSTER_LABEL = "default";
+
     public static final String KUBECONFIG_FILE = ".kube/config";
 
     public static final String KUBECONFIG_PREFIX = "kubeconfig-";
@@ -49,6 +54,13 @@ public final class Constants {
     public static final String KUBERNETES_SECRET_NAME_PREFIX = "acs-plugin-";
     public static final String KUBERNETES_SECRET_NAME_PROP = "KUBERNETES_SECRET_NAME";
 
+    // labels of the Docker registry secrets created by the plugin
+    public static final String KUBERNETES_MANAGED_BY_LABEL = "app.kubernetes.io/managed-by";
+    public static final String KUBERNETES_MANAGED_BY_VALUE = "kubernetes-cd-plugin";
+    public static final String KUBERNETES_JOB_LABEL = "kubernetes-cd.jenkins.io/job";
+    public static final String KUBERNETES_SUPERSEDED_LABEL = "kubernetes-cd.jenkins.io/superseded-by-build";
+    public static final String KUBERNETES_SECRET_HASH_ANNOTATION = "kubernetes-cd.jenkins.io/dockercfg-sha256";
+
     public static final String DRY_RUN_ALL = "All";
 
     public static final int DEFAULT_SSH_PORT = 22;
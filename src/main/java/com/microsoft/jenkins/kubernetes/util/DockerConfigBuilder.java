@@ -62,6 +62,10 @@ public class DockerConfigBuilder {
         return auths.toString();
     }
 
+    public String buildDockerConfigJsonString() throws IOException {
+        return MAPPER.createObjectNode().set("auths", buildAuthsObject()).toString();
+    }
+
     public ObjectNode buildAuthsObject() throws IOException {
         ObjectNode auths = MAPPER.createObjectNode();
         for (ResolvedDockerRegistryEndpoint endpoint : this.endpoints) {
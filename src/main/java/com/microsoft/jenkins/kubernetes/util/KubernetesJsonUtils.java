@@ -12,4 +12,16 @@ public final class KubernetesJsonUtils {
     public static JSON getKubernetesJson() {
         return KUBERNETES_JSON;
     }
+
+    /**
+     * Create a deep copy of the Kubernetes model object.
+     *
+     * @param resource the Kubernetes model object
+     * @param <T>      the model type
+     * @return a copy which shares no state with the given object
+     * @see ModelCopier
+     */
+    public static <T> T deepCopy(T resource) {
+        return ModelCopier.copy(resource);
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output stream that prefixes every line written to the underlying stream.
+ * <p>
+ * The lines are buffered and written as a whole while holding the lock of the underlying stream, so the lines written
+ * concurrently through several prefixed streams sharing the same underlying stream are not mixed up.
+ */
+public class LinePrefixOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final byte[] prefix;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    public LinePrefixOutputStream(OutputStream out, String prefix) {
+        this.out = out;
+        this.prefix = prefix.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        line.write(b);
+        if (b == '\n') {
+            writeLine();
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        synchronized (out) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (line.size() > 0) {
+            writeLine();
+        }
+        flush();
+    }
+
+    private void writeLine() throws IOException {
+        synchronized (out) {
+            out.write(prefix);
+            line.writeTo(out);
+            out.flush();
+        }
+        line.reset();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.util;
+
+import io.kubernetes.client.custom.IntOrString;
+import io.kubernetes.client.custom.Quantity;
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Structural deep copier for the Kubernetes model objects.
+ * <p>
+ * The fields and the no-arg constructor of each model class are looked up reflectively only once and cached, and the
+ * objects are copied field by field without going through JSON. Strings, boxed primitives, enums, dates,
+ * {@link Quantity} and {@link IntOrString} are immutable and shared with the copy. Lists and maps are copied to
+ * {@link ArrayList} and {@link LinkedHashMap}. Any other class falls back to a JSON round trip.
+ */
+public final class ModelCopier {
+    private static final String MODEL_PACKAGE_PREFIX = "io.kubernetes.client.";
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<Class<?>>(Arrays.asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigDecimal.class, BigInteger.class,
+            DateTime.class, LocalDate.class, Quantity.class, IntOrString.class));
+
+    private static final ClassValue<ClassCopier> COPIERS = new ClassValue<ClassCopier>() {
+        @Override
+        protected ClassCopier computeValue(Class<?> type) {
+            return ClassCopier.of(type);
+        }
+    };
+
+    private ModelCopier() {
+        // hide constructor
+    }
+
+    /**
+     * Create a deep copy of the Kubernetes model object.
+     *
+     * @param object the object to copy
+     * @param <T>    the model type
+     * @return a copy which shares no mutable state with the given object
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(T object) {
+        return (T) copyValue(object);
+    }
+
+    private static Object copyValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Class<?> type = value.getClass();
+        if (IMMUTABLE_TYPES.contains(type) || type.isEnum()) {
+            return value;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+        if (value instanceof List) {
+            Collection<?> list = (Collection<?>) value;
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<Object, Object> copy = new LinkedHashMap<>(Math.max(map.size() * 2, 2));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(entry.getKey(), copyValue(entry.getValue()));
+            }
+            return copy;
+        }
+        return COPIERS.get(type).copy(value);
+    }
+
+    /**
+     * Copies the objects of one class, with the reflective lookups done once.
+     */
+    private static final class ClassCopier {
+        private final Constructor<?> constructor;
+        private final Field[] fields;
+
+        private ClassCopier(Constructor<?> constructor, Field[] fields) {
+            this.constructor = constructor;
+            this.fields = fields;
+        }
+
+        static ClassCopier of(Class<?> type) {
+            if (type.getName().startsWith(MODEL_PACKAGE_PREFIX)) {
+                try {
+                    Constructor<?> constructor = type.getDeclaredConstructor();
+                    constructor.setAccessible(true);
+                    List<Field> fields = new ArrayList<>();
+                    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                        for (Field field : c.getDeclaredFields()) {
+                            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                                field.setAccessible(true);
+                                fields.add(field);
+                            }
+                        }
+                    }
+                    return new ClassCopier(constructor, fields.toArray(new Field[0]));
+                } catch (NoSuchMethodException | SecurityException e) {
+                    // fall back to JSON
+                }
+            }
+            return new ClassCopier(null, null);
+        }
+
+        Object copy(Object value) {
+            if (constructor == null) {
+                return KubernetesJsonUtils.getKubernetesJson().deserialize(
+                        KubernetesJsonUtils.getKubernetesJson().serialize(value), value.getClass());
+            }
+            try {
+                Object copy = constructor.newInstance();
+                for (Field field : fields) {
+                    field.set(copy, copyValue(field.get(value)));
+                }
+                return copy;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to copy " + value.getClass().getName(), e);
+            }
+        }
+    }
+}
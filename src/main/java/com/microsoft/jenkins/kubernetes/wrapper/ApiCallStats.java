@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of every Kubernetes API call sent through a client: the method, the path template, the HTTP status, the
+ * bytes sent and received, the time to the first byte of the response and the total latency until the response body
+ * is consumed.
+ * <p>
+ * The calls are measured by the {@link #interceptor()} at the network level, so each retry and redirect is a call of
+ * its own, and the client side rate limit waits are not included. Each thread aggregates its calls in its own counters
+ * without any locking, and the counters of all the threads are only added up by {@link #writeSummary(PrintStream)},
+ * which must be called once the calls are finished.
+ * <p>
+ * It's the only instrumentation of the client: the other measurements, such as the {@link DeploymentJournal} and the
+ * {@link DeploymentMetrics}, are fed with the same calls through their {@link Listener}.
+ */
+public final class ApiCallStats {
+    /**
+     * The number of calls listed in the summary as the slowest ones.
+     */
+    public static final int TOP_CALLS = 10;
+
+    /**
+     * The status of the calls that failed without a response.
+     */
+    public static final int NO_RESPONSE = -1;
+
+    private static final String NAMESPACES = "namespaces";
+    private static final int CORE_PREFIX_LENGTH = 2;
+    private static final int GROUP_PREFIX_LENGTH = 3;
+    private static final int HTTP_ERROR = 400;
+
+    private static final Comparator<Call> BY_LATENCY = new Comparator<Call>() {
+        @Override
+        public int compare(Call left, Call right) {
+            return Long.compare(left.latencyNanos, right.latencyNanos);
+        }
+    };
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Recorder> recorders = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Recorder> recorder = new ThreadLocal<Recorder>() {
+        @Override
+        protected Recorder initialValue() {
+            Recorder created = new Recorder();
+            recorders.add(created);
+            return created;
+        }
+    };
+
+    /**
+     * The last call measured by the current thread. The attempts of a call run one after the other on the same thread,
+     * so an attempt of the same call is a retry or a follow-up.
+     */
+    private final ThreadLocal<okhttp3.Call> lastCall = new ThreadLocal<>();
+
+    /**
+     * Receive each API call measured, once its response body is read or closed by the thread which made the call.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return the network interceptor which measures the API calls
+     */
+    public Interceptor interceptor() {
+        return new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                final Request request = chain.request();
+                final boolean retry = chain.call() == lastCall.get();
+                lastCall.set(chain.call());
+                final long requestBytes = request.body() == null ? 0 : Math.max(0, request.body().contentLength());
+                final long startNanos = System.nanoTime();
+                final Response response;
+                try {
+                    response = chain.proceed(request);
+                } catch (IOException | RuntimeException e) {
+                    long elapsed = System.nanoTime() - startNanos;
+                    record(new Call(request, retry, NO_RESPONSE, requestBytes, 0, elapsed, elapsed));
+                    throw e;
+                }
+                final long ttfbNanos = System.nanoTime() - startNanos;
+                return CountingSource.count(response, new CountingSource.Callback() {
+                    @Override
+                    public void onFinished(long bytes) {
+                        record(new Call(request, retry, response.code(), requestBytes, bytes, ttfbNanos,
+                                System.nanoTime() - startNanos));
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * @return the number of calls measured
+     */
+    public long getCallCount() {
+        long count = 0;
+        for (Recorder threadRecorder : recorders) {
+            count += threadRecorder.calls;
+        }
+        return count;
+    }
+
+    /**
+     * @return the {@link #TOP_CALLS} slowest calls, the slowest first
+     */
+    public List<Call> getSlowestCalls() {
+        PriorityQueue<Call> slowest = new PriorityQueue<>(TOP_CALLS, BY_LATENCY);
+        for (Recorder threadRecorder : recorders) {
+            for (Call call : threadRecorder.slowest) {
+                keepSlowest(slowest, call);
+            }
+        }
+        List<Call> calls = new ArrayList<>(slowest);
+        Collections.sort(calls, Collections.reverseOrder(BY_LATENCY));
+        return calls;
+    }
+
+    /**
+     * @return the number of calls, the bytes sent and the bytes received, by the resource in the path of the calls
+     */
+    public Map<String, long[]> getResourceTotals() {
+        Map<String, long[]> totals = new TreeMap<>();
+        for (Recorder threadRecorder : recorders) {
+            for (Map.Entry<String, long[]> entry : threadRecorder.resources.entrySet()) {
+                long[] total = totals.get(entry.getKey());
+                if (total == null) {
+                    total = new long[Recorder.RESOURCE_COUNTERS];
+                    totals.put(entry.getKey(), total);
+                }
+                for (int i = 0; i < total.length; ++i) {
+                    total[i] += entry.getValue()[i];
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Print the summary table of the calls: the totals, the slowest calls and the bytes by resource.
+     */
+    public void writeSummary(PrintStream logger) {
+        Map<String, long[]> resources = getResourceTotals();
+        long calls = 0;
+        long sent = 0;
+        long received = 0;
+        for (long[] total : resources.values()) {
+            calls += total[0];
+            sent += total[1];
+            received += total[2];
+        }
+        if (calls == 0) {
+            return;
+        }
+        long errors = 0;
+        for (Recorder threadRecorder : recorders) {
+            errors += threadRecorder.errors;
+        }
+        logger.println(Messages.ApiCallStats_summary(calls, sent, received, errors));
+
+        logger.println(Messages.ApiCallStats_slowest());
+        logger.println(String.format(Locale.ROOT, "  %10s %10s %6s %-6s %s",
+                "TOTAL(ms)", "TTFB(ms)", "STATUS", "METHOD", "PATH"));
+        for (Call call : getSlowestCalls()) {
+            logger.println(String.format(Locale.ROOT, "  %10d %10d %6s %-6s %s",
+                    TimeUnit.NANOSECONDS.toMillis(call.latencyNanos),
+                    TimeUnit.NANOSECONDS.toMillis(call.ttfbNanos),
+                    call.status == NO_RESPONSE ? "-" : String.valueOf(call.status),
+                    call.method,
+                    call.pathTemplate));
+        }
+
+        int width = "RESOURCE".length();
+        for (String resource : resources.keySet()) {
+            width = Math.max(width, resource.length());
+        }
+        String row = "  %-" + width + "s %8s %12s %12s";
+        logger.println(Messages.ApiCallStats_byResource());
+        logger.println(String.format(Locale.ROOT, row, "RESOURCE", "CALLS", "SENT", "RECEIVED"));
+        for (Map.Entry<String, long[]> entry : resources.entrySet()) {
+            long[] total = entry.getValue();
+            logger.println(String.format(Locale.ROOT, row, entry.getKey(), total[0], total[1], total[2]));
+        }
+    }
+
+    private void record(Call call) {
+        recorder.get().add(call);
+        for (Listener listener : listeners) {
+            listener.onCall(call);
+        }
+    }
+
+    private static void keepSlowest(PriorityQueue<Call> slowest, Call call) {
+        if (slowest.size() < TOP_CALLS) {
+            slowest.add(call);
+        } else if (BY_LATENCY.compare(call, slowest.peek()) > 0) {
+            slowest.poll();
+            slowest.add(call);
+        }
+    }
+
+    /**
+     * Replace the names in the path of an API call with placeholders, for example
+     * {@code /api/v1/namespaces/{namespace}/pods/{name}/status}, so the calls on different objects of the same kind
+     * are grouped together. The paths which are not resource paths are returned as they are.
+     */
+    static String pathTemplate(List<String> segments) {
+        int resource = resourceIndex(segments);
+        StringBuilder template = new StringBuilder();
+        for (int i = 0; i < segments.size(); ++i) {
+            template.append('/');
+            if (resource > 0 && i == resource - 1 && NAMESPACES.equals(segments.get(i - 1))) {
+                template.append("{namespace}");
+            } else if (resource > 0 && i == resource + 1) {
+                template.append("{name}");
+            } else {
+                template.append(segments.get(i));
+            }
+        }
+        return template.length() == 0 ? "/" : template.toString();
+    }
+
+    /**
+     * @return the resource in the path of an API call, such as {@code deployments}, or the path itself if it's not a
+     * resource path
+     */
+    static String resource(List<String> segments) {
+        int resource = resourceIndex(segments);
+        return resource < 0 ? pathTemplate(segments) : segments.get(resource);
+    }
+
+    /**
+     * @return the position of the resource in the path segments, after the group, the version and the namespace, or
+     * {@code -1} for the discovery and the other non-resource paths
+     */
+    private static int resourceIndex(List<String> segments) {
+        int index;
+        if (segments.size() > CORE_PREFIX_LENGTH && "api".equals(segments.get(0))) {
+            index = CORE_PREFIX_LENGTH;
+        } else if (segments.size() > GROUP_PREFIX_LENGTH && "apis".equals(segments.get(0))) {
+            index = GROUP_PREFIX_LENGTH;
+        } else {
+            return -1;
+        }
+        if (segments.size() > index + 2 && NAMESPACES.equals(segments.get(index))) {
+            index += 2;
+        }
+        return index;
+    }
+
+    private static List<String> pathSegments(Request request) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : request.url().pathSegments()) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * One API call.
+     */
+    public static final class Call {
+        private final String method;
+        private final String pathTemplate;
+        private final String resource;
+        private final boolean retry;
+        private final int status;
+        private final long requestBytes;
+        private final long responseBytes;
+        private final long ttfbNanos;
+        private final long latencyNanos;
+
+        Call(Request request, boolean retry, int status, long requestBytes, long responseBytes, long ttfbNanos,
+             long latencyNanos) {
+            List<String> segments = pathSegments(request);
+            this.method = request.method();
+            this.pathTemplate = pathTemplate(segments);
+            this.resource = resource(segments);
+            this.retry = retry;
+            this.status = status;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+            this.ttfbNanos = ttfbNanos;
+            this.latencyNanos = latencyNanos;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPathTemplate() {
+            return pathTemplate;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        /**
+         * @return whether it's a retry or a follow-up of the previous attempt of the same call by the HTTP client
+         */
+        public boolean isRetry() {
+            return retry;
+        }
+
+        /**
+         * @return the HTTP status, or {@link #NO_RESPONSE} if the call failed without a response
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        public long getRequestBytes() {
+            return requestBytes;
+        }
+
+        public long getResponseBytes() {
+            return responseBytes;
+        }
+
+        public long getTtfbNanos() {
+            return ttfbNanos;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + pathTemplate + " " + status;
+        }
+    }
+
+    /**
+     * Receives the API calls measured.
+     */
+    public interface Listener {
+        void onCall(Call call);
+    }
+
+    /**
+     * The counters of one thread, only ever updated by that thread.
+     */
+    private static final class Recorder {
+        static final int RESOURCE_COUNTERS = 3;
+
+        private final Map<String, long[]> resources = new HashMap<>();
+        private final PriorityQueue<Call> slowest = new PriorityQueue<>(TOP_CALLS, BY_LATENCY);
+        private long calls;
+        private long errors;
+
+        void add(Call call) {
+            calls++;
+            if (call.status == NO_RESPONSE || call.status >= HTTP_ERROR) {
+                errors++;
+            }
+            long[] total = resources.get(call.resource);
+            if (total == null) {
+                total = new long[RESOURCE_COUNTERS];
+                resources.put(call.resource, total);
+            }
+            total[0]++;
+            total[1] += call.requestBytes;
+            total[2] += call.responseBytes;
+            keepSlowest(slowest, call);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.models.V1APIGroup;
+import io.kubernetes.client.openapi.models.V1APIGroupList;
+import io.kubernetes.client.openapi.models.V1APIResource;
+import io.kubernetes.client.openapi.models.V1APIResourceList;
+import io.kubernetes.client.openapi.models.V1APIVersions;
+import io.kubernetes.client.openapi.models.V1GroupVersionForDiscovery;
+import io.kubernetes.client.openapi.models.VersionInfo;
+import org.apache.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Cached API discovery of the clusters, backed by a {@link DiscoverySnapshot} for each API server.
+ * <p>
+ * The snapshot is checked against the server version once per deployment with {@link #refresh()}, and rebuilt if the
+ * server was upgraded or the snapshot is older than {@link DiscoverySnapshot#TTL_MILLIS}. The resources of a group
+ * version are looked up on demand. A kind which is not found triggers one refresh of the served groups and its group
+ * version, as it may have been added by a CustomResourceDefinition since.
+ */
+final class ApiDiscovery {
+    /**
+     * The snapshots, keyed by the base path of the API server.
+     */
+    private static final ConcurrentMap<String, DiscoverySnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+
+    private final ApiClient client;
+
+    ApiDiscovery(ApiClient client) {
+        this.client = checkNotNull(client);
+    }
+
+    /**
+     * Use the snapshots persisted on the controller, unless the snapshot of the same server is already known.
+     */
+    static void seed(Collection<DiscoverySnapshot> snapshots) {
+        for (DiscoverySnapshot snapshot : snapshots) {
+            if (!snapshot.isExpired()) {
+                SNAPSHOTS.putIfAbsent(snapshot.getServer(), snapshot);
+            }
+        }
+    }
+
+    /**
+     * Check the snapshot of the server against its version, and rebuild it if it's missing, outdated or expired.
+     *
+     * @return the up to date snapshot
+     * @throws ApiException if the discovery failed
+     */
+    DiscoverySnapshot refresh() throws ApiException {
+        VersionInfo version = RawResourceManager.call(client, null, "/version", "GET", null, null,
+                VersionInfo.class);
+        DiscoverySnapshot snapshot = SNAPSHOTS.get(client.getBasePath());
+        if (snapshot == null || snapshot.isExpired()
+                || !version.getGitVersion().equals(snapshot.getServerVersion())) {
+            snapshot = new DiscoverySnapshot(client.getBasePath(), version.getGitVersion(),
+                    parseVersion(version.getMajor()), parseVersion(version.getMinor()), fetchGroupVersions());
+            SNAPSHOTS.put(client.getBasePath(), snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the snapshot of the server, which is built if missing
+     * @throws ApiException if the discovery failed
+     */
+    DiscoverySnapshot getSnapshot() throws ApiException {
+        DiscoverySnapshot snapshot = SNAPSHOTS.get(client.getBasePath());
+        return snapshot == null ? refresh() : snapshot;
+    }
+
+    /**
+     * Check whether the group version is served. The served groups are fetched again once before the group version
+     * is reported missing, as the snapshot may be older than the group version.
+     *
+     * @param apiVersion the group version, e.g., {@code v1} or {@code apps/v1}
+     * @return whether the group version is served by the cluster
+     * @throws ApiException if the discovery failed
+     */
+    boolean isServed(String apiVersion) throws ApiException {
+        DiscoverySnapshot snapshot = getSnapshot();
+        if (snapshot.isServed(apiVersion)) {
+            return true;
+        }
+        snapshot.setGroupVersions(fetchGroupVersions());
+        return snapshot.isServed(apiVersion);
+    }
+
+    private static int parseVersion(String version) {
+        // the minor version of some distributions has a suffix, e.g., 18+
+        String digits = version == null ? "" : version.replaceAll("[^0-9]", "");
+        return digits.isEmpty() ? 0 : Integer.parseInt(digits);
+    }
+
+    private Map<String, List<String>> fetchGroupVersions() throws ApiException {
+        Map<String, List<String>> result = new HashMap<>();
+        V1APIVersions core = RawResourceManager.call(client, null, "/api", "GET", null, null, V1APIVersions.class);
+        result.put("", new ArrayList<>(core.getVersions()));
+        V1APIGroupList groups = RawResourceManager.call(client, null, "/apis", "GET", null, null,
+                V1APIGroupList.class);
+        for (V1APIGroup group : groups.getGroups()) {
+            List<String> versions = new ArrayList<>();
+            if (group.getPreferredVersion() != null) {
+                versions.add(group.getPreferredVersion().getVersion());
+            }
+            for (V1GroupVersionForDiscovery version : group.getVersions()) {
+                if (!versions.contains(version.getVersion())) {
+                    versions.add(version.getVersion());
+                }
+            }
+            result.put(group.getName(), versions);
+        }
+        return result;
+    }
+
+    /**
+     * Find the API resource serving the kind.
+     *
+     * @param apiVersion the group version, e.g., {@code v1} or {@code apps/v1}
+     * @param kind       the kind
+     * @return the API resource, or {@code null} if the kind is not served by the cluster
+     * @throws ApiException if the discovery failed
+     */
+    DiscoverySnapshot.ApiResource findApiResource(String apiVersion, String kind) throws ApiException {
+        DiscoverySnapshot snapshot = getSnapshot();
+        List<DiscoverySnapshot.ApiResource> resources = snapshot.getResources(apiVersion);
+        DiscoverySnapshot.ApiResource result = resources == null ? null : findApiResource(resources, kind);
+        if (result == null) {
+            if (resources != null || !snapshot.isServed(apiVersion)) {
+                snapshot.setGroupVersions(fetchGroupVersions());
+                if (!snapshot.isServed(apiVersion)) {
+                    return null;
+                }
+            }
+            resources = fetchResources(apiVersion);
+            if (resources == null) {
+                return null;
+            }
+            snapshot.putResources(apiVersion, resources);
+            result = findApiResource(resources, kind);
+        }
+        return result;
+    }
+
+    private List<DiscoverySnapshot.ApiResource> fetchResources(String apiVersion) throws ApiException {
+        V1APIResourceList list;
+        try {
+            list = RawResourceManager.call(client, null, groupVersionPath(apiVersion), "GET", null, null,
+                    V1APIResourceList.class);
+        } catch (ApiException e) {
+            if (e.getCode() == HttpStatus.SC_NOT_FOUND) {
+                // the group version is not served
+                return null;
+            }
+            throw e;
+        }
+        List<DiscoverySnapshot.ApiResource> result = new ArrayList<>();
+        if (list.getResources() != null) {
+            for (V1APIResource resource : list.getResources()) {
+                result.add(new DiscoverySnapshot.ApiResource(resource.getName(), resource.getKind(),
+                        Boolean.TRUE.equals(resource.getNamespaced()), resource.getVerbs()));
+            }
+        }
+        return result;
+    }
+
+    private static DiscoverySnapshot.ApiResource findApiResource(List<DiscoverySnapshot.ApiResource> resources,
+                                                                 String kind) {
+        for (DiscoverySnapshot.ApiResource resource : resources) {
+            // skip the sub-resources, e.g., deployments/scale
+            if (kind.equals(resource.getKind()) && !resource.getName().contains("/")) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drop the cached resources of the group version, e.g., after a CustomResourceDefinition is established.
+     */
+    void invalidate(String apiVersion) {
+        DiscoverySnapshot snapshot = SNAPSHOTS.get(client.getBasePath());
+        if (snapshot != null) {
+            snapshot.removeResources(apiVersion);
+        }
+    }
+
+    static void invalidateAll() {
+        SNAPSHOTS.clear();
+    }
+
+    static String groupVersionPath(String apiVersion) {
+        return apiVersion.contains("/") ? "/apis/" + apiVersion : "/api/" + apiVersion;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.util.credentials.ClientCertificateAuthentication;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of the TLS settings built from the PEM encoded client certificate, client key and certificate authority.
+ * <p>
+ * Decoding the key and building the key and trust stores is done once per credentials, identified by the SHA-256
+ * fingerprint of the PEM data. As the same {@link SSLContext} is reused, the TLS sessions it caches can be resumed
+ * by the later deployments to the same server, saving the full handshake.
+ */
+final class ClientCertificateTlsCache {
+    private static final long MAX_ENTRIES = 50L;
+    private static final long EXPIRE_AFTER_ACCESS_MINUTES = 60L;
+
+    private static final Cache<String, Tls> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    private ClientCertificateTlsCache() {
+        // hide constructor
+    }
+
+    /**
+     * The TLS settings to be applied to the OkHttp client.
+     */
+    static final class Tls {
+        private final String fingerprint;
+        private final SSLSocketFactory socketFactory;
+        private final X509TrustManager trustManager;
+
+        Tls(String fingerprint, SSLSocketFactory socketFactory, X509TrustManager trustManager) {
+            this.fingerprint = fingerprint;
+            this.socketFactory = socketFactory;
+            this.trustManager = trustManager;
+        }
+
+        String getFingerprint() {
+            return fingerprint;
+        }
+
+        SSLSocketFactory getSocketFactory() {
+            return socketFactory;
+        }
+
+        X509TrustManager getTrustManager() {
+            return trustManager;
+        }
+    }
+
+    static Tls get(final String certificateAuthorityData,
+                   final String clientCertificateData,
+                   final String clientKeyData) {
+        final String fingerprint = fingerprint(certificateAuthorityData, clientCertificateData, clientKeyData);
+        try {
+            return CACHE.get(fingerprint, new Callable<Tls>() {
+                @Override
+                public Tls call() throws Exception {
+                    return build(fingerprint, certificateAuthorityData, clientCertificateData, clientKeyData);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalArgumentException(e.getCause());
+        }
+    }
+
+    /**
+     * Find the fingerprint of the credentials the given socket factory was built from.
+     *
+     * @param socketFactory the socket factory of the OkHttp client
+     * @return the fingerprint, or {@code null} if the socket factory was not built by this cache, or has expired
+     */
+    static String fingerprintOf(SSLSocketFactory socketFactory) {
+        for (Tls tls : CACHE.asMap().values()) {
+            if (tls.getSocketFactory() == socketFactory) {
+                return tls.getFingerprint();
+            }
+        }
+        return null;
+    }
+
+    private static String fingerprint(String... values) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (String value : values) {
+            // length prefixed, so that the boundaries between the values are part of the fingerprint
+            hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    private static Tls build(String fingerprint,
+                             String certificateAuthorityData,
+                             String clientCertificateData,
+                             String clientKeyData) throws GeneralSecurityException, IOException {
+        // let the Kubernetes client decode the client certificate and key, as it does without the cache
+        ApiClient client = new ApiClient();
+        new ClientCertificateAuthentication(
+                clientCertificateData.getBytes(StandardCharsets.UTF_8),
+                clientKeyData.getBytes(StandardCharsets.UTF_8)).provide(client);
+        KeyManager[] keyManagers = client.getKeyManagers();
+
+        CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+        KeyStore caKeyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        caKeyStore.load(null, null);
+        int index = 0;
+        for (Certificate certificate : certificateFactory.generateCertificates(
+                new ByteArrayInputStream(certificateAuthorityData.getBytes(StandardCharsets.UTF_8)))) {
+            caKeyStore.setCertificateEntry("ca" + index++, certificate);
+        }
+        TrustManagerFactory trustManagerFactory =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(caKeyStore);
+        TrustManager[] trustManagers = trustManagerFactory.getTrustManagers();
+
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagers, trustManagers, new SecureRandom());
+        return new Tls(fingerprint, sslContext.getSocketFactory(), (X509TrustManager) trustManagers[0]);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+
+/**
+ * Source of a response body which counts the bytes actually read, and reports them once the body is exhausted or
+ * closed.
+ * <p>
+ * The {@code Content-Length} is not known for the chunked bodies, so the bytes are counted as they're read instead.
+ */
+final class CountingSource extends ForwardingSource {
+    /**
+     * Receives the number of bytes of the body, once.
+     */
+    interface Callback {
+        void onFinished(long bytes);
+    }
+
+    private final Callback callback;
+    private long bytes;
+    private boolean finished;
+
+    private CountingSource(ResponseBody body, Callback callback) {
+        super(body.source());
+        this.callback = callback;
+    }
+
+    /**
+     * Count the bytes of the response body as they're read.
+     *
+     * @param response the response
+     * @param callback receives the number of bytes, right away if the response has no body
+     * @return the response whose body is counted
+     */
+    static Response count(Response response, Callback callback) {
+        ResponseBody body = response.body();
+        if (body == null) {
+            callback.onFinished(0);
+            return response;
+        }
+        CountingSource source = new CountingSource(body, callback);
+        return response.newBuilder()
+                .body(ResponseBody.create(body.contentType(), body.contentLength(), Okio.buffer(source)))
+                .build();
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) throws IOException {
+        long read = super.read(sink, byteCount);
+        if (read == -1) {
+            finish();
+        } else {
+            bytes += read;
+        }
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        super.close();
+    }
+
+    private void finish() {
+        if (!finished) {
+            finished = true;
+            callback.onFinished(bytes);
+        }
+    }
+}
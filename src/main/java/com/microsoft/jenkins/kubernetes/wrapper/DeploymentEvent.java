@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of the operation on one resource, published to the {@link DeploymentEventBus}, and delivered to the
+ * {@link DeploymentEventListener}s on the controller.
+ * <p>
+ * The objects are the ones used on the apply thread, and must not be modified by the subscribers. They are not
+ * serialized, so the events sent back from an agent have no objects.
+ */
+public final class DeploymentEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The type of the operation.
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        NOT_FOUND,
+        FAILED
+    }
+
+    private final Type type;
+    private final String cluster;
+    private final String kind;
+    private final String namespace;
+    private final String name;
+    private final String resourceVersion;
+    private final transient Object original;
+    private final transient Object current;
+    private final long durationNanos;
+    private final long timestamp;
+
+    DeploymentEvent(Type type, String cluster, String kind, String namespace, String name, String resourceVersion,
+                    Object original, Object current, long durationNanos) {
+        this.type = type;
+        this.cluster = cluster;
+        this.kind = kind;
+        this.namespace = namespace;
+        this.name = name;
+        this.resourceVersion = resourceVersion;
+        this.original = original;
+        this.current = current;
+        this.durationNanos = durationNanos;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the name of the cluster, or {@code null} if the deployment has only one cluster without a name
+     */
+    public String getCluster() {
+        return cluster;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getResourceVersion() {
+        return resourceVersion;
+    }
+
+    /**
+     * @return the object in the cluster before the update, or {@code null} if it was created or not found, or the
+     * event was sent back from an agent
+     */
+    public Object getOriginal() {
+        return original;
+    }
+
+    /**
+     * @return the object returned by the API call, or the desired object if the operation was a deletion or failed,
+     * or {@code null} if the event was sent back from an agent
+     */
+    public Object getCurrent() {
+        return current;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + kind + " " + (namespace == null ? name : namespace + "/" + name);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Delivers the {@link DeploymentEvent}s to the subscribers asynchronously, so they add no latency to the apply
+ * threads.
+ * <p>
+ * The events are buffered in a bounded ring buffer, and delivered in order to all the subscribers by a single
+ * dispatcher thread, which is started with the first subscriber. Publishing never blocks: an event is dropped and
+ * counted if the buffer is full, and nothing is buffered while there are no subscribers. {@link #close()} delivers the
+ * remaining events before it returns.
+ */
+public final class DeploymentEventBus implements Closeable {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeploymentEventBus.class);
+    private static final long POLL_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private final BlockingQueue<DeploymentEvent> buffer;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private Thread dispatcher;
+    private volatile boolean closed;
+
+    /**
+     * Receives the events on the dispatcher thread.
+     */
+    public interface Subscriber {
+        void onEvent(DeploymentEvent event);
+    }
+
+    public DeploymentEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DeploymentEventBus(int capacity) {
+        checkArgument(capacity > 0);
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public synchronized DeploymentEventBus subscribe(Subscriber subscriber) {
+        checkNotNull(subscriber);
+        subscribers.add(subscriber);
+        if (dispatcher == null && !closed) {
+            dispatcher = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    dispatch();
+                }
+            }, "kubernetes-cd-events");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+        return this;
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * @return whether there's any subscriber, so the events should be built and published
+     */
+    public boolean hasSubscribers() {
+        return !closed && !subscribers.isEmpty();
+    }
+
+    /**
+     * Publish the event without blocking.
+     *
+     * @return {@code false} if the event was dropped
+     */
+    public boolean publish(DeploymentEvent event) {
+        if (!hasSubscribers()) {
+            return false;
+        }
+        if (buffer.offer(event)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return the number of events dropped as the buffer was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                DeploymentEvent event = buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                for (Subscriber subscriber : subscribers) {
+                    try {
+                        subscriber.onEvent(event);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Deployment event subscriber " + subscriber + " failed on " + event, e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stop accepting events, and wait for the buffered ones to be delivered.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = dispatcher;
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            thread.interrupt();
+        }
+    }
+}
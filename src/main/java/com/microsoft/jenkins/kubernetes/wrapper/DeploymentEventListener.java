@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Receives the {@link DeploymentEvent}s of the deployments on the controller.
+ * <p>
+ * Other plugins can subscribe by annotating a subclass with {@link hudson.Extension}. The {@link DeploymentEventBus}
+ * runs on the agent with the deployment, so the events are only recorded there if there's any listener, and are
+ * delivered in order when the deployment returns to the controller. The events sent back from an agent carry no
+ * objects.
+ */
+public abstract class DeploymentEventListener implements ExtensionPoint {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeploymentEventListener.class);
+
+    /**
+     * Receive one event of the deployment.
+     *
+     * @param run   the build running the deployment
+     * @param event the event
+     */
+    public abstract void onEvent(Run<?, ?> run, DeploymentEvent event);
+
+    /**
+     * @return the registered listeners, or an empty list if not running on the controller
+     */
+    public static List<DeploymentEventListener> all() {
+        if (Jenkins.getInstanceOrNull() == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(ExtensionList.lookup(DeploymentEventListener.class));
+    }
+
+    /**
+     * Deliver the events to the listeners. A failing listener does not stop the delivery.
+     *
+     * @param listeners the listeners from {@link #all()}
+     * @param run       the build running the deployment
+     * @param events    the events in the order they were published
+     */
+    public static void fire(List<DeploymentEventListener> listeners, Run<?, ?> run, List<DeploymentEvent> events) {
+        for (DeploymentEvent event : events) {
+            for (DeploymentEventListener listener : listeners) {
+                try {
+                    listener.onEvent(run, event);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Deployment event listener " + listener + " failed on " + event, e);
+                }
+            }
+        }
+    }
+}
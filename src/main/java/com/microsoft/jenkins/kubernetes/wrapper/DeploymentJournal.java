@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Journal of the operations performed on the Kubernetes resources, written as gzip compressed JSON lines.
+ * <p>
+ * Each line describes one resource: the cluster, the kind, namespace and name, the action, the HTTP status of the
+ * last API call, the bytes sent and received, the latency, the number of retried API calls and the resulting resource
+ * version. The HTTP statistics of the API calls measured by the {@link ApiCallStats} of the clients are collected
+ * by the {@link #listener()}, for the operation started on the same thread with {@link #begin()}.
+ */
+public final class DeploymentJournal implements Closeable {
+    public static final String ACTION_CREATED = "created";
+    public static final String ACTION_APPLIED = "applied";
+    public static final String ACTION_DELETED = "deleted";
+    public static final String ACTION_NOT_FOUND = "notFound";
+    public static final String ACTION_UNCHANGED = "unchanged";
+    public static final String ACTION_FAILED = "failed";
+
+    private static final Gson GSON = new GsonBuilder().serializeNulls().create();
+
+    private final Writer writer;
+    private final ThreadLocal<Operation> current = new ThreadLocal<>();
+
+    public DeploymentJournal(OutputStream out) throws IOException {
+        this.writer = new OutputStreamWriter(new GZIPOutputStream(out), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Start recording the API calls made by the current thread for an operation.
+     */
+    public void begin() {
+        current.set(new Operation());
+    }
+
+    /**
+     * @return whether an operation is started on the current thread and not yet recorded
+     */
+    public boolean isRecording() {
+        return current.get() != null;
+    }
+
+    /**
+     * Drop the operation started on the current thread without recording it.
+     */
+    public void discard() {
+        current.remove();
+    }
+
+    /**
+     * Write the operation started by the current thread to the journal. It does nothing if there's no operation
+     * started, or it has already been recorded.
+     */
+    public void record(String cluster, String kind, String namespace, String name, String action,
+                       String resourceVersion) {
+        Operation operation = current.get();
+        if (operation == null) {
+            return;
+        }
+        current.remove();
+
+        Entry entry = new Entry();
+        entry.cluster = cluster;
+        entry.kind = kind;
+        entry.namespace = namespace;
+        entry.name = name;
+        entry.action = action;
+        entry.httpStatus = operation.lastStatus;
+        entry.requestBytes = operation.requestBytes;
+        entry.responseBytes = operation.responseBytes;
+        entry.latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - operation.startNanos);
+        entry.retries = operation.retries;
+        entry.resourceVersion = resourceVersion;
+        entry.timestamp = System.currentTimeMillis();
+        String line = GSON.toJson(entry);
+        synchronized (writer) {
+            try {
+                writer.write(line);
+                writer.write('\n');
+            } catch (IOException e) {
+                // the journal is best effort and never fails the deployment
+            }
+        }
+    }
+
+    /**
+     * @return the listener which collects the HTTP statistics of the current operation, for each attempt of the API
+     * calls measured by the {@link ApiCallStats} of the clients, including the retries and the redirects
+     */
+    public ApiCallStats.Listener listener() {
+        return new ApiCallStats.Listener() {
+            @Override
+            public void onCall(ApiCallStats.Call call) {
+                Operation operation = current.get();
+                if (operation != null) {
+                    operation.onCall(call);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+
+    private static final class Operation {
+        private final long startNanos = System.nanoTime();
+        private Integer lastStatus;
+        private long requestBytes;
+        private long responseBytes;
+        private int retries;
+
+        void onCall(ApiCallStats.Call call) {
+            if (call.isRetry()) {
+                retries++;
+            }
+            if (call.getStatus() != ApiCallStats.NO_RESPONSE) {
+                lastStatus = call.getStatus();
+            }
+            requestBytes += call.getRequestBytes();
+            responseBytes += call.getResponseBytes();
+        }
+    }
+
+    /**
+     * One line of the journal.
+     */
+    private static final class Entry {
+        private long timestamp;
+        private String cluster;
+        private String kind;
+        private String namespace;
+        private String name;
+        private String action;
+        private Integer httpStatus;
+        private long requestBytes;
+        private long responseBytes;
+        private long latencyMillis;
+        private int retries;
+        private String resourceVersion;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Performance measurements of the deployments, in the Prometheus data model.
+ * <p>
+ * It's filled on the agent during a deployment: the latency of each resource comes from the
+ * {@link DeploymentEvent}s, and the API calls come from the {@link #listener(String)} of each cluster, for each
+ * network attempt including the retries and the redirects. The measurements are returned to the controller with the
+ * result of the deployment, where they're {@link #merge(DeploymentMetrics) merged} into the totals of the Jenkins
+ * instance.
+ */
+public final class DeploymentMetrics implements DeploymentEventBus.Subscriber, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The upper bounds of the latency histogram buckets, in seconds.
+     */
+    static final double[] LATENCY_BUCKETS = {0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private static final String PREFIX = "kubernetes_cd_";
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Comparator<List<String>> LABELS_ORDER = new Comparator<List<String>>() {
+        @Override
+        public int compare(List<String> left, List<String> right) {
+            for (int i = 0; i < Math.min(left.size(), right.size()); ++i) {
+                int result = String.valueOf(left.get(i)).compareTo(String.valueOf(right.get(i)));
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return left.size() - right.size();
+        }
+    };
+
+    private final ConcurrentMap<List<String>, Histogram> resourceLatency = new ConcurrentHashMap<>();
+    private final ConcurrentMap<List<String>, Histogram> requestLatency = new ConcurrentHashMap<>();
+    private final ConcurrentMap<List<String>, AtomicLong> requestBytes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<List<String>, AtomicLong> responses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<List<String>, AtomicLong> retries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<List<String>, AtomicLong> throttleNanos = new ConcurrentHashMap<>();
+
+    /**
+     * Record the latency of the resource.
+     */
+    @Override
+    public void onEvent(DeploymentEvent event) {
+        String verb = event.getType().name().toLowerCase(Locale.ROOT);
+        histogram(resourceLatency, event.getCluster(), event.getKind(), verb).observe(event.getDurationNanos());
+    }
+
+    /**
+     * Record the time spent waiting for the client side rate limit.
+     */
+    public void recordThrottle(String cluster, long nanos) {
+        counter(throttleNanos, cluster).addAndGet(nanos);
+    }
+
+    /**
+     * @return the listener which measures the API calls to the cluster, for each attempt of the calls measured by the
+     * {@link ApiCallStats} of the client
+     */
+    public ApiCallStats.Listener listener(final String cluster) {
+        return new ApiCallStats.Listener() {
+            @Override
+            public void onCall(ApiCallStats.Call call) {
+                histogram(requestLatency, cluster, call.getMethod()).observe(call.getLatencyNanos());
+                String code = call.getStatus() == ApiCallStats.NO_RESPONSE ? "error" : String.valueOf(call.getStatus());
+                counter(responses, cluster, code).incrementAndGet();
+                if (call.getRequestBytes() > 0) {
+                    counter(requestBytes, cluster, "sent").addAndGet(call.getRequestBytes());
+                }
+                // the bytes actually received, before they're decompressed
+                counter(requestBytes, cluster, "received").addAndGet(call.getResponseBytes());
+                if (call.isRetry()) {
+                    counter(retries, cluster).incrementAndGet();
+                }
+            }
+        };
+    }
+
+    /**
+     * Add the measurements of another deployment.
+     */
+    public void merge(DeploymentMetrics other) {
+        mergeHistograms(resourceLatency, other.resourceLatency);
+        mergeHistograms(requestLatency, other.requestLatency);
+        mergeCounters(requestBytes, other.requestBytes);
+        mergeCounters(responses, other.responses);
+        mergeCounters(retries, other.retries);
+        mergeCounters(throttleNanos, other.throttleNanos);
+    }
+
+    /**
+     * Write the metrics in the Prometheus text exposition format.
+     */
+    public void writePrometheus(Writer writer) throws IOException {
+        writeHistograms(writer, "resource_duration_seconds", "Time spent on the operation on one resource.",
+                resourceLatency, "cluster", "kind", "verb");
+        writeHistograms(writer, "api_request_duration_seconds",
+                "Latency of the Kubernetes API calls, for each attempt.", requestLatency, "cluster", "method");
+        writeCounters(writer, "api_bytes_total", "Bytes sent to and received from the Kubernetes API.",
+                requestBytes, 1, "cluster", "direction");
+        writeCounters(writer, "api_responses_total", "Kubernetes API calls by HTTP status code.",
+                responses, 1, "cluster", "code");
+        writeCounters(writer, "api_retries_total", "Kubernetes API calls repeated by the HTTP client.",
+                retries, 1, "cluster");
+        writeCounters(writer, "throttle_wait_seconds_total", "Time spent waiting for the client side rate limit.",
+                throttleNanos, NANOS_PER_SECOND, "cluster");
+    }
+
+    private static Histogram histogram(ConcurrentMap<List<String>, Histogram> histograms, String... labels) {
+        List<String> key = Arrays.asList(labels);
+        Histogram histogram = histograms.get(key);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = histograms.putIfAbsent(key, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    private static AtomicLong counter(ConcurrentMap<List<String>, AtomicLong> counters, String... labels) {
+        List<String> key = Arrays.asList(labels);
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(key, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    private static void mergeHistograms(ConcurrentMap<List<String>, Histogram> target,
+                                        Map<List<String>, Histogram> source) {
+        for (Map.Entry<List<String>, Histogram> entry : source.entrySet()) {
+            List<String> labels = entry.getKey();
+            histogram(target, labels.toArray(new String[0])).merge(entry.getValue());
+        }
+    }
+
+    private static void mergeCounters(ConcurrentMap<List<String>, AtomicLong> target,
+                                      Map<List<String>, AtomicLong> source) {
+        for (Map.Entry<List<String>, AtomicLong> entry : source.entrySet()) {
+            List<String> labels = entry.getKey();
+            counter(target, labels.toArray(new String[0])).addAndGet(entry.getValue().get());
+        }
+    }
+
+    private static void writeHistograms(Writer writer, String name, String help,
+                                        Map<List<String>, Histogram> histograms, String... labelNames)
+            throws IOException {
+        writeHeader(writer, name, help, "histogram");
+        Map<List<String>, Histogram> sorted = new TreeMap<>(LABELS_ORDER);
+        sorted.putAll(histograms);
+        for (Map.Entry<List<String>, Histogram> entry : sorted.entrySet()) {
+            String labels = labels(labelNames, entry.getKey());
+            Histogram histogram = entry.getValue();
+            long cumulative = 0;
+            for (int i = 0; i < LATENCY_BUCKETS.length; ++i) {
+                cumulative += histogram.counts.get(i);
+                writeSample(writer, name + "_bucket", labels + ",le=\"" + LATENCY_BUCKETS[i] + "\"",
+                        String.valueOf(cumulative));
+            }
+            cumulative += histogram.counts.get(LATENCY_BUCKETS.length);
+            writeSample(writer, name + "_bucket", labels + ",le=\"+Inf\"", String.valueOf(cumulative));
+            writeSample(writer, name + "_sum", labels, String.valueOf(histogram.sumNanos.get() / NANOS_PER_SECOND));
+            writeSample(writer, name + "_count", labels, String.valueOf(cumulative));
+        }
+    }
+
+    private static void writeCounters(Writer writer, String name, String help, Map<List<String>, AtomicLong> counters,
+                                      double divisor, String... labelNames) throws IOException {
+        writeHeader(writer, name, help, "counter");
+        Map<List<String>, AtomicLong> sorted = new TreeMap<>(LABELS_ORDER);
+        sorted.putAll(counters);
+        for (Map.Entry<List<String>, AtomicLong> entry : sorted.entrySet()) {
+            long value = entry.getValue().get();
+            writeSample(writer, name, labels(labelNames, entry.getKey()),
+                    divisor == 1 ? String.valueOf(value) : String.valueOf(value / divisor));
+        }
+    }
+
+    private static void writeHeader(Writer writer, String name, String help, String type) throws IOException {
+        writer.write("# HELP " + PREFIX + name + " " + help + "\n");
+        writer.write("# TYPE " + PREFIX + name + " " + type + "\n");
+    }
+
+    private static void writeSample(Writer writer, String name, String labels, String value) throws IOException {
+        writer.write(PREFIX + name + "{" + labels + "} " + value + "\n");
+    }
+
+    private static String labels(String[] names, List<String> values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < names.length; ++i) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            String value = values.get(i) == null ? "" : values.get(i);
+            builder.append(names[i]).append("=\"")
+                    .append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Latency histogram with the {@link #LATENCY_BUCKETS}, plus one bucket for the larger values.
+     */
+    static final class Histogram implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicLongArray counts = new AtomicLongArray(LATENCY_BUCKETS.length + 1);
+        private final AtomicLong sumNanos = new AtomicLong();
+
+        void observe(long nanos) {
+            double seconds = nanos / NANOS_PER_SECOND;
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS.length && seconds > LATENCY_BUCKETS[bucket]) {
+                bucket++;
+            }
+            counts.incrementAndGet(bucket);
+            sumNanos.addAndGet(nanos);
+        }
+
+        void merge(Histogram other) {
+            for (int i = 0; i < counts.length(); ++i) {
+                counts.addAndGet(i, other.counts.get(i));
+            }
+            sumNanos.addAndGet(other.sumNanos.get());
+        }
+
+        long getCount() {
+            long count = 0;
+            for (int i = 0; i < counts.length(); ++i) {
+                count += counts.get(i);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The API discovery of one cluster: the server version, the served group versions, and the resources of the group
+ * versions looked up so far.
+ * <p>
+ * The snapshots are persisted on the controller and sent to the agents, so the discovery is done once per server
+ * version rather than once per build. It's valid as long as the server version doesn't change, up to a TTL. Only the
+ * served group versions are persisted, see {@link #withoutResources()}.
+ */
+public final class DiscoverySnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * How long a snapshot is used while the server version doesn't change.
+     */
+    public static final long TTL_MILLIS = TimeUnit.HOURS.toMillis(
+            Long.getLong(DiscoverySnapshot.class.getName() + ".ttlHours", 24L));
+
+    /**
+     * The first minor version of Kubernetes 1.x with the metadata-only reads, i.e., {@code PartialObjectMetadata}.
+     */
+    private static final int METADATA_ONLY_READ_MINOR = 15;
+    /**
+     * The first minor version of Kubernetes 1.x with a stable enough server-side apply.
+     */
+    private static final int SERVER_SIDE_APPLY_MINOR = 18;
+
+    private final String server;
+    private final String serverVersion;
+    private final int major;
+    private final int minor;
+    private final long createdMillis;
+    /**
+     * The served versions of each group, with the preferred version first. The core group is the empty string.
+     */
+    private volatile Map<String, List<String>> groupVersions;
+    /**
+     * The resources of the group versions, keyed by the group version.
+     */
+    private final ConcurrentHashMap<String, List<ApiResource>> resources = new ConcurrentHashMap<>();
+
+    DiscoverySnapshot(String server, String serverVersion, int major, int minor,
+                      Map<String, List<String>> groupVersions) {
+        this(server, serverVersion, major, minor, groupVersions, System.currentTimeMillis());
+    }
+
+    private DiscoverySnapshot(String server, String serverVersion, int major, int minor,
+                              Map<String, List<String>> groupVersions, long createdMillis) {
+        this.server = server;
+        this.serverVersion = serverVersion;
+        this.major = major;
+        this.minor = minor;
+        this.groupVersions = groupVersions;
+        this.createdMillis = createdMillis;
+    }
+
+    /**
+     * Copy the server version and the served group versions, without the resources of the group versions.
+     * <p>
+     * The resource names are used to build the request paths, so the controller doesn't keep the ones reported by
+     * an agent, which could then be used by the deployments of the other jobs. Each deployment looks them up again.
+     *
+     * @return the copy to be persisted on the controller
+     */
+    public DiscoverySnapshot withoutResources() {
+        Map<String, List<String>> versions = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : groupVersions.entrySet()) {
+            versions.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        // a snapshot from the future would never expire
+        return new DiscoverySnapshot(server, serverVersion, major, minor, versions,
+                Math.min(createdMillis, System.currentTimeMillis()));
+    }
+
+    /**
+     * @return the base path of the cluster API server
+     */
+    public String getServer() {
+        return server;
+    }
+
+    /**
+     * @return the git version of the API server, e.g., {@code v1.18.3}
+     */
+    public String getServerVersion() {
+        return serverVersion;
+    }
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() - createdMillis > TTL_MILLIS;
+    }
+
+    void setGroupVersions(Map<String, List<String>> groupVersions) {
+        this.groupVersions = groupVersions;
+    }
+
+    /**
+     * @param apiVersion the group version, e.g., {@code v1} or {@code apps/v1}
+     * @return whether the group version is served by the cluster
+     */
+    public boolean isServed(String apiVersion) {
+        return getServedVersions(group(apiVersion)).contains(version(apiVersion));
+    }
+
+    /**
+     * @param group the group, or the empty string for the core group
+     * @return the versions of the group served by the cluster, with the preferred version first
+     */
+    public List<String> getServedVersions(String group) {
+        List<String> versions = groupVersions.get(group);
+        return versions == null ? Collections.<String>emptyList() : versions;
+    }
+
+    List<ApiResource> getResources(String apiVersion) {
+        return resources.get(apiVersion);
+    }
+
+    void putResources(String apiVersion, List<ApiResource> apiResources) {
+        resources.put(apiVersion, apiResources);
+    }
+
+    void removeResources(String apiVersion) {
+        resources.remove(apiVersion);
+    }
+
+    /**
+     * @return whether the API server supports the {@code PartialObjectMetadata} reads
+     */
+    public boolean supportsMetadataOnlyRead() {
+        return atLeast(METADATA_ONLY_READ_MINOR);
+    }
+
+    /**
+     * @return whether the API server supports the server-side apply
+     */
+    public boolean supportsServerSideApply() {
+        return atLeast(SERVER_SIDE_APPLY_MINOR);
+    }
+
+    private boolean atLeast(int minorVersion) {
+        return major > 1 || major == 1 && minor >= minorVersion;
+    }
+
+    static String group(String apiVersion) {
+        int slash = apiVersion.indexOf('/');
+        return slash < 0 ? "" : apiVersion.substring(0, slash);
+    }
+
+    static String version(String apiVersion) {
+        int slash = apiVersion.indexOf('/');
+        return slash < 0 ? apiVersion : apiVersion.substring(slash + 1);
+    }
+
+    /**
+     * One resource served in a group version.
+     */
+    public static final class ApiResource implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final String kind;
+        private final boolean namespaced;
+        private final List<String> verbs;
+
+        ApiResource(String name, String kind, boolean namespaced, List<String> verbs) {
+            this.name = name;
+            this.kind = kind;
+            this.namespaced = namespaced;
+            this.verbs = verbs == null ? new ArrayList<String>() : new ArrayList<>(verbs);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public boolean isNamespaced() {
+            return namespaced;
+        }
+
+        public boolean supports(String verb) {
+            return verbs.contains(verb);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import com.microsoft.jenkins.kubernetes.util.DockerConfigBuilder;
+
+import java.io.IOException;
+
+/**
+ * Type of the Docker registry secret created for the configured registry credentials.
+ */
+public enum DockerSecretType {
+    /**
+     * The legacy {@code ~/.dockercfg} format.
+     */
+    DOCKERCFG("kubernetes.io/dockercfg", ".dockercfg") {
+        @Override
+        String buildData(DockerConfigBuilder builder) throws IOException {
+            return builder.buildDockercfgString();
+        }
+    },
+
+    /**
+     * The {@code ~/.docker/config.json} format.
+     */
+    DOCKERCONFIGJSON("kubernetes.io/dockerconfigjson", ".dockerconfigjson") {
+        @Override
+        String buildData(DockerConfigBuilder builder) throws IOException {
+            return builder.buildDockerConfigJsonString();
+        }
+    };
+
+    public static final DockerSecretType DEFAULT = DOCKERCFG;
+
+    private final String type;
+    private final String dataKey;
+
+    DockerSecretType(String type, String dataKey) {
+        this.type = type;
+        this.dataKey = dataKey;
+    }
+
+    /**
+     * @return the type of the Kubernetes secret
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return the key of the Docker configuration in the secret data
+     */
+    public String getDataKey() {
+        return dataKey;
+    }
+
+    abstract String buildData(DockerConfigBuilder builder) throws IOException;
+
+    public static DockerSecretType fromString(String value) {
+        for (DockerSecretType secretType : values()) {
+            if (secretType.name().equalsIgnoreCase(value) || secretType.type.equals(value)) {
+                return secretType;
+            }
+        }
+        return DEFAULT;
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Process wide cache of the bearer tokens issued by the
+ * <a href="https://kubernetes.io/docs/reference/access-authn-authz/authentication/#client-go-credential-plugins">
+ * exec credential plugins</a> configured in the kubeconfig users.
+ * <p>
+ * The plugin command is executed only when there is no cached token, or the cached token is about to expire
+ * according to its {@code expirationTimestamp}. A token without expiration is used until the API server rejects it.
+ * The refresh is done by a single caller at a time: while a still valid token is being refreshed ahead of its expiry,
+ * the other callers keep using it, and when there is no valid token, they wait for the refresh in progress.
+ */
+public final class ExecCredentialTokenCache {
+    private static final Logger LOGGER = Logger.getLogger(ExecCredentialTokenCache.class.getName());
+
+    private static final long REFRESH_AHEAD_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final long EXEC_TIMEOUT_SECONDS = 60L;
+
+    private static final ConcurrentMap<ExecConfig, Entry> TOKENS = new ConcurrentHashMap<>();
+
+    private ExecCredentialTokenCache() {
+        // hide constructor
+    }
+
+    /**
+     * Get the token issued by the exec credential plugin, from the cache if it is still fresh.
+     *
+     * @param config the exec configuration of the kubeconfig user
+     * @return the bearer token
+     * @throws IOException if the plugin command failed
+     */
+    public static String getToken(ExecConfig config) throws IOException {
+        Entry entry = TOKENS.get(config);
+        if (entry == null) {
+            Entry created = new Entry(config);
+            entry = TOKENS.putIfAbsent(config, created);
+            if (entry == null) {
+                entry = created;
+            }
+        }
+        return entry.get();
+    }
+
+    /**
+     * Drop the cached token, after it is rejected by the API server.
+     *
+     * @param config the exec configuration of the kubeconfig user
+     * @param token  the rejected token; a newer token is kept
+     */
+    public static void invalidate(ExecConfig config, String token) {
+        Entry entry = TOKENS.get(config);
+        if (entry != null) {
+            entry.invalidate(token);
+        }
+    }
+
+    /**
+     * Build an OkHttp interceptor which authenticates the requests with the token issued by the exec credential
+     * plugin. The request is retried once with a new token if the API server rejects the cached one.
+     *
+     * @param config the exec configuration of the kubeconfig user
+     * @return the interceptor
+     */
+    public static Interceptor interceptor(ExecConfig config) {
+        return new TokenInterceptor(config);
+    }
+
+    /**
+     * The interceptor built by {@link #interceptor(ExecConfig)}. The exec configuration it authenticates with is part
+     * of the credentials identity of the client.
+     */
+    static final class TokenInterceptor implements Interceptor {
+        private final ExecConfig config;
+
+        TokenInterceptor(ExecConfig config) {
+            this.config = config;
+        }
+
+        ExecConfig getConfig() {
+            return config;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            String token = getToken(config);
+            Response response = chain.proceed(withToken(chain.request(), token));
+            if (response.code() != HttpStatus.SC_UNAUTHORIZED) {
+                return response;
+            }
+            invalidate(config, token);
+            response.close();
+            return chain.proceed(withToken(chain.request(), getToken(config)));
+        }
+    }
+
+    private static Request withToken(Request request, String token) {
+        return request.newBuilder().header("Authorization", "Bearer " + token).build();
+    }
+
+    /**
+     * The {@code exec} section of a kubeconfig user.
+     */
+    public static final class ExecConfig {
+        private final String apiVersion;
+        private final String command;
+        private final List<String> args;
+        private final Map<String, String> env;
+
+        public ExecConfig(String apiVersion, String command, List<String> args, Map<String, String> env) {
+            this.apiVersion = apiVersion;
+            this.command = command;
+            this.args = Collections.unmodifiableList(new ArrayList<>(args));
+            this.env = Collections.unmodifiableMap(new LinkedHashMap<>(env));
+        }
+
+        /**
+         * Parse the {@code exec} section of a kubeconfig user.
+         *
+         * @param exec the {@code exec} section loaded from the kubeconfig YAML
+         * @return the exec configuration
+         */
+        @SuppressWarnings("unchecked")
+        static ExecConfig fromMap(Map<String, Object> exec) {
+            String command = (String) exec.get("command");
+            if (command == null) {
+                throw new IllegalArgumentException(Messages.ExecCredentialTokenCache_noCommand());
+            }
+            List<String> args = new ArrayList<>();
+            if (exec.get("args") instanceof List) {
+                for (Object arg : (List<Object>) exec.get("args")) {
+                    args.add(String.valueOf(arg));
+                }
+            }
+            Map<String, String> env = new LinkedHashMap<>();
+            if (exec.get("env") instanceof List) {
+                for (Object item : (List<Object>) exec.get("env")) {
+                    Map<String, Object> variable = (Map<String, Object>) item;
+                    env.put(String.valueOf(variable.get("name")), String.valueOf(variable.get("value")));
+                }
+            }
+            return new ExecConfig((String) exec.get("apiVersion"), command, args, env);
+        }
+
+        /**
+         * @return the SHA-256 fingerprint of the configuration, which identifies the user without exposing the
+         * arguments and environment of the plugin command
+         */
+        String fingerprint() {
+            Hasher hasher = Hashing.sha256().newHasher();
+            putString(hasher, apiVersion == null ? "" : apiVersion);
+            putString(hasher, command);
+            for (String arg : args) {
+                putString(hasher, arg);
+            }
+            for (Map.Entry<String, String> variable : env.entrySet()) {
+                putString(hasher, variable.getKey());
+                putString(hasher, variable.getValue());
+            }
+            return hasher.hash().toString();
+        }
+
+        private static void putString(Hasher hasher, String value) {
+            // length prefixed, so that the boundaries between the values are part of the fingerprint
+            hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ExecConfig that = (ExecConfig) o;
+            return command.equals(that.command)
+                    && args.equals(that.args)
+                    && env.equals(that.env)
+                    && (apiVersion == null ? that.apiVersion == null : apiVersion.equals(that.apiVersion));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = command.hashCode();
+            result = 31 * result + args.hashCode();
+            result = 31 * result + env.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return command;
+        }
+    }
+
+    static final class Token {
+        private final String value;
+        /**
+         * Expiration time in epoch milliseconds, or {@code null} if the token does not expire.
+         */
+        private final Long expiration;
+
+        Token(String value, Long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+
+        boolean isValid(long now) {
+            return expiration == null || now < expiration;
+        }
+
+        boolean isFresh(long now) {
+            return expiration == null || now < expiration - REFRESH_AHEAD_MILLIS;
+        }
+    }
+
+    private static final class Entry {
+        private final ExecConfig config;
+        private final ReentrantLock refreshLock = new ReentrantLock();
+        private volatile Token token;
+
+        Entry(ExecConfig config) {
+            this.config = config;
+        }
+
+        String get() throws IOException {
+            Token current = token;
+            long now = System.currentTimeMillis();
+            if (current != null && current.isFresh(now)) {
+                return current.value;
+            }
+            if (current != null && current.isValid(now)) {
+                // refresh ahead of the expiry, only if no other caller is refreshing already
+                if (refreshLock.tryLock()) {
+                    try {
+                        return refresh().value;
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Failed to refresh the token of " + config, e);
+                    } finally {
+                        refreshLock.unlock();
+                    }
+                }
+                return current.value;
+            }
+
+            refreshLock.lock();
+            try {
+                current = token;
+                if (current != null && current.isValid(System.currentTimeMillis())) {
+                    // refreshed by another caller while we were waiting
+                    return current.value;
+                }
+                return refresh().value;
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+
+        void invalidate(String rejected) {
+            refreshLock.lock();
+            try {
+                Token current = token;
+                if (current != null && current.value.equals(rejected)) {
+                    token = null;
+                }
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+
+        private Token refresh() throws IOException {
+            Token refreshed = execute(config);
+            token = refreshed;
+            return refreshed;
+        }
+    }
+
+    private static Token execute(ExecConfig config) throws IOException {
+        return execute(config, TimeUnit.SECONDS.toMillis(EXEC_TIMEOUT_SECONDS));
+    }
+
+    /**
+     * Run the plugin command, and parse the token from the {@code ExecCredential} it writes to the standard output.
+     * <p>
+     * The output is read by a separate thread, so that a plugin which hangs without closing its output is killed
+     * once the timeout elapses, instead of blocking the callers waiting for the refresh lock.
+     */
+    static Token execute(ExecConfig config, long timeoutMillis) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(config.command);
+        command.addAll(config.args);
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.environment().putAll(config.env);
+        builder.environment().put("KUBERNETES_EXEC_INFO", execInfo(config));
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+        Process process = builder.start();
+        final InputStream in = process.getInputStream();
+        FutureTask<String> stdout = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                return IOUtils.toString(in, StandardCharsets.UTF_8);
+            }
+        });
+        Thread reader = new Thread(stdout, "ExecCredentialTokenCache output of " + config);
+        reader.setDaemon(true);
+        reader.start();
+
+        String output;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            if (!process.waitFor(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException();
+            }
+            // the output may still be held open by a child of the plugin
+            output = stdout.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IOException(Messages.ExecCredentialTokenCache_timeout(config,
+                    TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)), e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            process.destroyForcibly();
+            IOUtils.closeQuietly(in);
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException(Messages.ExecCredentialTokenCache_failed(config, process.exitValue()));
+        }
+
+        JsonObject status;
+        try {
+            status = new JsonParser().parse(output).getAsJsonObject().getAsJsonObject("status");
+        } catch (RuntimeException e) {
+            throw new IOException(Messages.ExecCredentialTokenCache_invalidOutput(config, e.getMessage()), e);
+        }
+        JsonElement tokenValue = status == null ? null : status.get("token");
+        if (tokenValue == null || tokenValue.isJsonNull()) {
+            throw new IOException(Messages.ExecCredentialTokenCache_noToken(config));
+        }
+        Long expiration = null;
+        JsonElement expirationTimestamp = status.get("expirationTimestamp");
+        if (expirationTimestamp != null && !expirationTimestamp.isJsonNull()) {
+            expiration = OffsetDateTime.parse(expirationTimestamp.getAsString()).toInstant().toEpochMilli();
+        }
+        return new Token(tokenValue.getAsString(), expiration);
+    }
+
+    private static String execInfo(ExecConfig config) {
+        JsonObject spec = new JsonObject();
+        spec.addProperty("interactive", false);
+        JsonObject info = new JsonObject();
+        info.addProperty("apiVersion", config.apiVersion);
+        info.addProperty("kind", "ExecCredential");
+        info.add("spec", spec);
+        return info.toString();
+    }
+}
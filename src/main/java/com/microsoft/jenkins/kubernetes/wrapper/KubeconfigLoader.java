@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.util.Config;
+import io.kubernetes.client.util.KubeConfig;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses a kubeconfig once and builds the API clients for its contexts.
+ * <p>
+ * The {@code exec} credential plugins of the users are handled by the plugin rather than the Kubernetes client, so
+ * that the issued tokens are cached by {@link ExecCredentialTokenCache} across the clients and the builds.
+ */
+final class KubeconfigLoader {
+    private final String currentContext;
+    private final ArrayList<Object> contexts;
+    private final ArrayList<Object> clusters;
+    private final ArrayList<Object> users;
+    private final Object preferences;
+
+    /**
+     * Exec configurations keyed by user name.
+     */
+    private final Map<String, ExecCredentialTokenCache.ExecConfig> execConfigs = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    KubeconfigLoader(Reader reader) {
+        Map<String, Object> config = new Yaml(new SafeConstructor()).load(reader);
+        if (config == null) {
+            config = new HashMap<>();
+        }
+        currentContext = (String) config.get("current-context");
+        contexts = (ArrayList<Object>) config.get("contexts");
+        clusters = (ArrayList<Object>) config.get("clusters");
+        preferences = config.get("preferences");
+
+        ArrayList<Object> configUsers = (ArrayList<Object>) config.get("users");
+        if (configUsers == null) {
+            users = null;
+        } else {
+            users = new ArrayList<>();
+            for (Object item : configUsers) {
+                users.add(stripExec((Map<String, Object>) item));
+            }
+        }
+    }
+
+    /**
+     * Build the API client for the given context.
+     *
+     * @param context the context name, or {@code null} for the current context of the kubeconfig
+     * @return the API client
+     * @throws IOException              if the client cannot be built
+     * @throws IllegalArgumentException if the context is not found in the kubeconfig
+     */
+    ApiClient buildClient(String context) throws IOException {
+        KubeConfig kubeConfig = new KubeConfig(contexts, clusters, users);
+        kubeConfig.setPreferences(preferences);
+        String selected = context == null ? currentContext : context;
+        if (!kubeConfig.setContext(selected) && context != null) {
+            throw new IllegalArgumentException(Messages.KubernetesClientWrapper_contextNotFound(context));
+        }
+        ApiClient client = Config.fromConfig(kubeConfig);
+
+        ExecCredentialTokenCache.ExecConfig execConfig = execConfigs.get(userOf(selected));
+        if (execConfig != null) {
+            client.setHttpClient(client.getHttpClient().newBuilder()
+                    .addInterceptor(ExecCredentialTokenCache.interceptor(execConfig))
+                    .build());
+        }
+        return client;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stripExec(Map<String, Object> namedUser) {
+        Object user = namedUser.get("user");
+        if (!(user instanceof Map) || !((Map<String, Object>) user).containsKey("exec")) {
+            return namedUser;
+        }
+        Map<String, Object> userConfig = new LinkedHashMap<>((Map<String, Object>) user);
+        Map<String, Object> exec = (Map<String, Object>) userConfig.remove("exec");
+        execConfigs.put((String) namedUser.get("name"), ExecCredentialTokenCache.ExecConfig.fromMap(exec));
+
+        Map<String, Object> stripped = new LinkedHashMap<>(namedUser);
+        stripped.put("user", userConfig);
+        return stripped;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String userOf(String context) {
+        if (context == null || contexts == null) {
+            return null;
+        }
+        for (Object item : contexts) {
+            Map<String, Object> namedContext = (Map<String, Object>) item;
+            if (context.equals(namedContext.get("name")) && namedContext.get("context") instanceof Map) {
+                return (String) ((Map<String, Object>) namedContext.get("context")).get("user");
+            }
+        }
+        return null;
+    }
+}
@@ -6,29 +6,43 @@
 
 package com.microsoft.jenkins.kubernetes.wrapper;
 
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
 import com.microsoft.jenkins.kubernetes.credentials.ResolvedDockerRegistryEndpoint;
 import com.microsoft.jenkins.kubernetes.util.CommonUtils;
 import com.microsoft.jenkins.kubernetes.util.Constants;
 import com.microsoft.jenkins.kubernetes.util.DockerConfigBuilder;
+import com.microsoft.jenkins.kubernetes.util.KubernetesJsonUtils;
 import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.util.VariableResolver;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.models.V1Namespace;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
 import io.kubernetes.client.openapi.models.V1Secret;
 import io.kubernetes.client.openapi.models.V1SecretBuilder;
+import io.kubernetes.client.openapi.models.V1SecretList;
 import io.kubernetes.client.util.ClientBuilder;
-import io.kubernetes.client.util.Config;
-import io.kubernetes.client.util.KubeConfig;
 import io.kubernetes.client.util.Yaml;
-import io.kubernetes.client.util.credentials.ClientCertificateAuthentication;
 import io.kubesphere.jenkins.kubernetes.generated.KubernetesModelClasses;
+import jenkins.util.NamingThreadFactory;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.http.HttpStatus;
+import org.jenkinsci.plugins.docker.commons.credentials.DockerRegistryToken;
 import org.slf4j.Logger;
+import org.yaml.snakeyaml.error.YAMLException;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
@@ -39,26 +53,64 @@ import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.io.Reader;
 import java.io.StringReader;
-import java.lang.reflect.Constructor;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class KubernetesClientWrapper {
     private static final Logger LOGGER = LoggerFactory.getLogger(KubernetesClientWrapper.class);
+    private static final int SECRET_NAME_HASH_LENGTH = 32;
+    private static final int LABEL_HASH_LENGTH = 40;
+    private static final int PRUNE_BATCH_SIZE = 100;
+    private static final int MAX_PARALLEL_SECRET_WRITES = 8;
+    private static final long CRD_ESTABLISHED_TIMEOUT_SECONDS = 60L;
+
     private final ApiClient client;
+    private final ApiCallStats apiCallStats = new ApiCallStats();
     private PrintStream logger = System.out;
     private VariableResolver<String> variableResolver;
 
+    private volatile boolean cancelled;
+    private volatile List<Object> currentResources;
+    private volatile Object inProgressResource;
+    private final List<Object> appliedResources = new CopyOnWriteArrayList<>();
+    /**
+     * The CustomResourceDefinitions applied in this deployment, keyed by the group and kind they define.
+     */
+    private final Map<String, RawResource> pendingDefinitions = new HashMap<>();
+
     private boolean deleteResource;
+    private boolean verbose;
+    private DeploymentJournal journal;
+    private DiscoverySnapshot discoverySnapshot;
+    private String journalCluster;
+    private DeploymentEventBus eventBus;
+    private String eventCluster;
+    private DeploymentMetrics metrics;
+    private String metricsCluster;
 
 
     private static Map<String, String> apiGroups = new HashMap<>();
     private static List<String> apiVersions = new ArrayList<>();
+    private static Map<String, Class<?>> modelClasses = new HashMap<>();
 
 
     private static void initApiGroupMap() {
@@ -144,9 +196,32 @@ public class KubernetesClientWrapper {
             apiGroupVersion += nameParts.getLeft() == null ? "" : nameParts.getLeft();
             kind += nameParts.getRight();
             Yaml.addModelMap(apiGroupVersion, kind, clazz);
+            modelClasses.put(apiGroupVersion + "/" + kind, clazz);
         }
     }
 
+    /**
+     * Look up the model class of the kind, the same way as {@link Yaml#loadAll(Reader)}.
+     */
+    private static Class<?> getModelClass(Object apiVersion, Object kind) {
+        if (!(apiVersion instanceof String) || !(kind instanceof String)) {
+            return null;
+        }
+        Class<?> clazz = modelClasses.get(apiVersion + "/" + kind);
+        if (clazz == null && ((String) apiVersion).contains("/")) {
+            clazz = modelClasses.get(((String) apiVersion).split("/")[1] + "/" + kind);
+        }
+        if (clazz == null) {
+            clazz = ResourceUpdaterRegistry.getExtensionClass((String) apiVersion, (String) kind);
+        }
+        return clazz;
+    }
+
+
+    public KubernetesClientWrapper(ApiClient client) {
+        this.client = client;
+        instrument();
+    }
 
     public KubernetesClientWrapper(String kubeConfig) {
         File file = new File(kubeConfig);
@@ -157,41 +232,78 @@ public class KubernetesClientWrapper {
                 throw new RuntimeException(e);
             }
         }
-        KubeConfig config = KubeConfig.loadKubeConfig(new StringReader(kubeConfig));
         try {
-            client = Config.fromConfig(config);
+            client = new KubeconfigLoader(new StringReader(kubeConfig)).buildClient(null);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        instrument();
     }
 
     public KubernetesClientWrapper(Reader kubeConfigReader) {
-        KubeConfig config = KubeConfig.loadKubeConfig(kubeConfigReader);
         try {
-            client = Config.fromConfig(config);
+            client = new KubeconfigLoader(kubeConfigReader).buildClient(null);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        instrument();
     }
 
 
+    /**
+     * Build the client wrappers for the given contexts from a single parse of the kubeconfig.
+     *
+     * @param kubeConfigReader the kubeconfig reader
+     * @param contexts         the names of the contexts in the kubeconfig
+     * @return the client wrappers keyed by the context name, in the given order
+     * @throws IOException              if the client for a context cannot be built
+     * @throws IllegalArgumentException if a context is not found in the kubeconfig
+     */
+    public static Map<String, KubernetesClientWrapper> forContexts(Reader kubeConfigReader, List<String> contexts)
+            throws IOException {
+        KubeconfigLoader loader = new KubeconfigLoader(kubeConfigReader);
+        Map<String, KubernetesClientWrapper> wrappers = new LinkedHashMap<>();
+        for (String context : contexts) {
+            wrappers.put(context, new KubernetesClientWrapper(loader.buildClient(context)));
+        }
+        return wrappers;
+    }
+
     public KubernetesClientWrapper(String server,
                                    String certificateAuthorityData,
                                    String clientCertificateData,
                                    String clientKeyData) {
-        ClientCertificateAuthentication authentication = new ClientCertificateAuthentication(
-                clientCertificateData.getBytes(StandardCharsets.UTF_8), clientKeyData.getBytes(StandardCharsets.UTF_8));
+        ClientCertificateTlsCache.Tls tls =
+                ClientCertificateTlsCache.get(certificateAuthorityData, clientCertificateData, clientKeyData);
         client = new ClientBuilder()
                 .setBasePath(server)
-                .setAuthentication(authentication)
-                .setCertificateAuthority(certificateAuthorityData.getBytes(StandardCharsets.UTF_8))
                 .build();
+        client.setHttpClient(client.getHttpClient().newBuilder()
+                .sslSocketFactory(tls.getSocketFactory(), tls.getTrustManager())
+                .build());
+        instrument();
+    }
+
+    /**
+     * Measure every API call sent through this client, once for the {@link ApiCallStats}, the journal and the metrics.
+     */
+    private void instrument() {
+        client.setHttpClient(client.getHttpClient().newBuilder()
+                .addNetworkInterceptor(apiCallStats.interceptor())
+                .build());
     }
 
     public ApiClient getClient() {
         return client;
     }
 
+    /**
+     * @return the statistics of the API calls sent through this client
+     */
+    public ApiCallStats getApiCallStats() {
+        return apiCallStats;
+    }
+
 
     public PrintStream getLogger() {
         return logger;
@@ -206,11 +318,98 @@ public class KubernetesClientWrapper {
         return this;
     }
 
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * Print the objects returned by the Kubernetes API to the logger, in addition to the one line summary of each
+     * resource.
+     *
+     * @param isVerbose whether to print the returned objects
+     * @return this wrapper
+     */
+    public KubernetesClientWrapper withVerbose(boolean isVerbose) {
+        this.verbose = isVerbose;
+        return this;
+    }
+
+    /**
+     * Record the operations performed through this client in the journal.
+     *
+     * @param deploymentJournal the journal, shared by the clients of all the clusters
+     * @param cluster           the label of the cluster of this client in the journal
+     * @return this wrapper
+     */
+    public KubernetesClientWrapper withJournal(DeploymentJournal deploymentJournal, String cluster) {
+        this.journal = deploymentJournal;
+        this.journalCluster = cluster;
+        if (deploymentJournal != null) {
+            apiCallStats.addListener(deploymentJournal.listener());
+        }
+        return this;
+    }
+
+    /**
+     * Publish the outcome of each resource to the event bus.
+     *
+     * @param bus     the event bus, or {@code null} to publish nothing
+     * @param cluster the name of the cluster in the events
+     * @return this wrapper
+     */
+    public KubernetesClientWrapper withEventBus(DeploymentEventBus bus, String cluster) {
+        this.eventBus = bus;
+        this.eventCluster = cluster;
+        return this;
+    }
+
+    /**
+     * Measure the API calls and the rate limit waits of this client.
+     *
+     * @param deploymentMetrics the measurements, shared by the clients of all the clusters
+     * @param cluster           the label of the cluster of this client in the measurements
+     * @return this wrapper
+     */
+    public KubernetesClientWrapper withMetrics(DeploymentMetrics deploymentMetrics, String cluster) {
+        this.metrics = deploymentMetrics;
+        this.metricsCluster = cluster;
+        if (deploymentMetrics != null) {
+            apiCallStats.addListener(deploymentMetrics.listener(cluster));
+        }
+        return this;
+    }
+
     public KubernetesClientWrapper withLogger(PrintStream log) {
         this.logger = log;
         return this;
     }
 
+    /**
+     * Limit the rate of the API calls sent through this client.
+     *
+     * @param requestsPerSecond the maximum number of requests per second, or a non-positive value for no limit
+     * @return this wrapper
+     */
+    public KubernetesClientWrapper withRateLimit(double requestsPerSecond) {
+        if (requestsPerSecond > 0) {
+            final RateLimiter rateLimiter = RateLimiter.create(requestsPerSecond);
+            client.setHttpClient(client.getHttpClient().newBuilder()
+                    .addInterceptor(new Interceptor() {
+                        @Override
+                        public Response intercept(Chain chain) throws IOException {
+                            double waitedSeconds = rateLimiter.acquire();
+                            if (metrics != null && waitedSeconds > 0) {
+                                metrics.recordThrottle(metricsCluster,
+                                        (long) (waitedSeconds * TimeUnit.SECONDS.toNanos(1)));
+                            }
+                            return chain.proceed(chain.request());
+                        }
+                    })
+                    .build());
+        }
+        return this;
+    }
+
     public VariableResolver<String> getVariableResolver() {
         return variableResolver;
     }
@@ -221,24 +420,98 @@ public class KubernetesClientWrapper {
     }
 
     /**
-     * Apply Kubernetes configurations through the given Kubernetes client.
+     * Apply Kubernetes configurations through the given Kubernetes client, on the current thread.
+     * <p>
+     * It's aborted like the deployments of the step: {@link #cancel()}, called by the thread which waits for the
+     * deployment when it's interrupted, cancels the API calls in progress, and no further resources are applied. The
+     * interruption of the current thread is checked before each of the resources. Once aborted, the resources that
+     * were and were not applied are reported to the console.
      *
      * @param configFiles The configuration files to be deployed
      * @throws IOException          exception on IO
-     * @throws InterruptedException interruption happened during blocking IO operations
+     * @throws InterruptedException if the thread is interrupted or the wrapper is cancelled
      */
     public void apply(FilePath[] configFiles) throws IOException, InterruptedException, ApiException {
+        List<Object> resources = loadResources(configFiles);
+        try {
+            applyResources(resources);
+        } catch (InterruptedException e) {
+            logAbortReport();
+            throw e;
+        }
+    }
+
+    /**
+     * Load the Kubernetes resources from the given configuration files, with the variables substituted if a
+     * variable resolver is configured.
+     * <p>
+     * The Namespaces in each of the files are placed ahead of the other resources in the same file, as they may be a
+     * dependency of the other resources.
+     *
+     * @param configFiles The configuration files to be loaded
+     * @return the resources in the order they should be applied
+     * @throws IOException          exception on IO
+     * @throws InterruptedException interruption happened during blocking IO operations
+     */
+    public List<Object> loadResources(FilePath[] configFiles) throws IOException, InterruptedException {
+        return loadResources(configFiles, variableResolver, logger);
+    }
+
+    /**
+     * Load the Kubernetes resources from the given configuration files, without a client wrapper. This allows the
+     * configurations to be loaded once and applied to several clusters.
+     *
+     * @param configFiles      The configuration files to be loaded
+     * @param variableResolver The resolver for the variable substitution, or {@code null} if disabled
+     * @param logger           The console logger
+     * @return the resources in the order they should be applied
+     * @throws IOException          exception on IO
+     * @throws InterruptedException interruption happened during blocking IO operations
+     * @see #loadResources(FilePath[])
+     */
+    public static List<Object> loadResources(FilePath[] configFiles,
+                                             VariableResolver<String> variableResolver,
+                                             PrintStream logger) throws IOException, InterruptedException {
+        return loadResources(configFiles, variableResolver, logger, false);
+    }
+
+    /**
+     * Load the Kubernetes resources from the given configuration files, without a client wrapper.
+     * <p>
+     * In the raw mode, the YAML documents are transcoded to JSON with a streaming parser and loaded as
+     * {@link RawResource}s, without building the typed models. Otherwise, the documents are loaded into the typed
+     * models if there's an updater for the kind in {@link ResourceUpdaterRegistry}, and as {@link RawResource}s if
+     * not, so the custom resources and the other kinds without built-in support are applied through the API discovery.
+     *
+     * @param configFiles      The configuration files to be loaded
+     * @param variableResolver The resolver for the variable substitution, or {@code null} if disabled
+     * @param logger           The console logger
+     * @param raw              Whether to load the resources as {@link RawResource}s
+     * @return the resources in the order they should be applied
+     * @throws IOException          exception on IO
+     * @throws InterruptedException interruption happened during blocking IO operations
+     */
+    public static List<Object> loadResources(FilePath[] configFiles,
+                                             VariableResolver<String> variableResolver,
+                                             PrintStream logger,
+                                             boolean raw) throws IOException, InterruptedException {
+        List<Object> result = new ArrayList<>();
         for (FilePath path : configFiles) {
-            log(Messages.KubernetesClientWrapper_loadingConfiguration(path));
+            logger.println(Messages.KubernetesClientWrapper_loadingConfiguration(path));
             List<Object> resources;
             try {
                 InputStream inputStream = CommonUtils.replaceMacro(path.read(), variableResolver);
-                resources = Yaml.loadAll(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+                Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+                if (raw) {
+                    resources = new ArrayList<Object>(new RawResourceLoader().loadAll(reader));
+                } else {
+                    resources = loadTypedOrRaw(reader);
+                }
             } catch (IOException e) {
                 throw new IOException(Messages.KubernetesClientWrapper_invalidYaml(path.getName(), e));
             }
             if (resources.isEmpty()) {
-                log(Messages.KubernetesClientWrapper_noResourceLoadedFrom(path));
+                logger.println(Messages.KubernetesClientWrapper_noResourceLoadedFrom(path));
                 continue;
             }
 
@@ -246,56 +519,302 @@ public class KubernetesClientWrapper {
             Iterator<Object> iterator = resources.iterator();
             while (iterator.hasNext()) {
                 Object resource = iterator.next();
-                if (resource instanceof V1Namespace) {
-                    handleResource(resource);
+                if (isNamespace(resource)) {
+                    result.add(resource);
                     iterator.remove();
                 }
             }
+            result.addAll(resources);
+        }
+        return result;
+    }
 
-            for (Object resource : resources) {
-                handleResource(resource);
+    private static List<Object> loadTypedOrRaw(Reader reader) throws IOException {
+        org.yaml.snakeyaml.Yaml snakeYaml = Yaml.getSnakeYaml();
+        List<Object> result = new ArrayList<>();
+        try {
+            for (Object document : snakeYaml.loadAll(reader)) {
+                if (!(document instanceof Map)) {
+                    continue;
+                }
+                Map<?, ?> data = (Map<?, ?>) document;
+                Class<?> clazz = getModelClass(data.get("apiVersion"), data.get("kind"));
+                // convert the loaded document, rather than dumping it to YAML and parsing it again
+                JsonObject json = RawResourceLoader.toJsonTree(data).getAsJsonObject();
+                if (clazz != null && ResourceUpdaterRegistry.isSupported(clazz)) {
+                    result.add(KubernetesJsonUtils.getKubernetesJson().getGson().fromJson(json, clazz));
+                } else {
+                    result.add(RawResourceLoader.fromJsonTree(json));
+                }
             }
+        } catch (YAMLException | JsonParseException e) {
+            throw new IOException(e.getMessage(), e);
         }
+        return result;
     }
 
     /**
-     * Get related updater in{@link ResourceUpdaterMap} by resource's class type and handle the resource by updater.
+     * Apply the loaded resources on the current thread.
+     * <p>
+     * The interruption state of the thread, as well as {@link #cancel()}, is checked before each of the resources.
+     * The custom resources defined by a CustomResourceDefinition applied earlier are applied after the definition is
+     * established.
      *
-     * @param resource k8s resource
+     * @param resources The resources to be applied
+     * @throws InterruptedException if the thread is interrupted or the wrapper is cancelled
      */
-    private void handleResource(Object resource) {
-        Pair<Class<? extends ResourceManager>,
-                Class<? extends ResourceManager.ResourceUpdater>> updaterPair =
-                ResourceUpdaterMap.getUnmodifiableInstance().get(resource.getClass());
-        ResourceManager.ResourceUpdater updater = null;
-        if (updaterPair != null) {
+    public void applyResources(List<Object> resources) throws InterruptedException {
+        currentResources = resources;
+        for (Object resource : resources) {
+            if (Thread.interrupted() || cancelled) {
+                throw new InterruptedException();
+            }
+            inProgressResource = resource;
+            if (resource instanceof RawResource && !deleteResource) {
+                awaitDefinition((RawResource) resource);
+            }
             try {
-                Constructor constructor = updaterPair.
-                        getRight().getDeclaredConstructor(
-                        updaterPair.getLeft(), resource.getClass());
-                Constructor resourceManagerConstructor = updaterPair.getLeft()
-                        .getConstructor(ApiClient.class);
-                ResourceManager resourceManager = (ResourceManager) resourceManagerConstructor.
-                        newInstance(getClient());
-                resourceManager.setConsoleLogger(getLogger());
-                updater = (ResourceManager.ResourceUpdater) constructor
-                        .newInstance(resourceManager, resource);
-
-            } catch (Exception e) {
-                log(Messages.KubernetesClientWrapper_illegalUpdater(resource, e));
+                handleResource(resource);
+            } catch (RuntimeException e) {
+                if (!cancelled) {
+                    throw e;
+                }
+            }
+            if (cancelled) {
+                // the API calls in progress were cancelled, so the resource is not known to be applied
+                throw new InterruptedException();
+            }
+            if (resource instanceof RawResource && !deleteResource) {
+                String definedGroupKind = RawResourceManager.definedGroupKind((RawResource) resource);
+                if (definedGroupKind != null) {
+                    pendingDefinitions.put(definedGroupKind, (RawResource) resource);
+                }
+            }
+            inProgressResource = null;
+            appliedResources.add(resource);
+        }
+    }
+
+    /**
+     * Wait for the CustomResourceDefinition of the custom resource, if it's applied in this deployment and not yet
+     * known to be established.
+     */
+    private void awaitDefinition(RawResource resource) throws InterruptedException {
+        RawResource definition = pendingDefinitions.remove(RawResourceManager.groupKind(resource));
+        if (definition == null) {
+            return;
+        }
+        String name = definition.getMetadata().getName();
+        log(Messages.KubernetesClientWrapper_waitingForDefinition(name));
+        RawResourceManager manager = new RawResourceManager(client);
+        try {
+            if (!manager.waitForEstablished(definition, TimeUnit.SECONDS.toMillis(CRD_ESTABLISHED_TIMEOUT_SECONDS))) {
+                log(Messages.KubernetesClientWrapper_definitionNotEstablished(name, CRD_ESTABLISHED_TIMEOUT_SECONDS));
             }
+        } catch (ApiException e) {
+            log(Messages.KubernetesClientWrapper_apiException(e.getCode(), e.getResponseBody()));
+        }
+        // the new kind is now served
+        manager.getDiscovery().invalidate(resource.getApiVersion());
+    }
+
+    /**
+     * Cancel the deployment. The API calls in progress are cancelled, and no further resources will be applied.
+     */
+    public void cancel() {
+        cancelled = true;
+        client.getHttpClient().dispatcher().cancelAll();
+    }
 
-            if (updater != null && !deleteResource) {
-                updater.createOrApply();
-            } else if (updater != null && deleteResource) {
-                updater.delete();
-            } else {
-                log(Messages.KubernetesClientWrapper_illegalUpdater(resource, null));
+    /**
+     * Print the resources that were and were not applied by {@link #applyResources(List)} to the console, after the
+     * deployment is aborted.
+     */
+    public void logAbortReport() {
+        List<Object> resources = currentResources;
+        if (resources == null) {
+            return;
+        }
+        Set<Object> applied = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        applied.addAll(appliedResources);
+        Object inProgress = inProgressResource;
+
+        List<String> appliedNames = new ArrayList<>();
+        List<String> notAppliedNames = new ArrayList<>();
+        for (Object resource : resources) {
+            if (applied.contains(resource)) {
+                appliedNames.add(describe(resource));
+            } else if (resource != inProgress) {
+                notAppliedNames.add(describe(resource));
             }
+        }
+        log(Messages.KubernetesClientWrapper_aborted());
+        log(Messages.KubernetesClientWrapper_appliedBeforeAbort(appliedNames.size(), appliedNames));
+        if (inProgress != null) {
+            log(Messages.KubernetesClientWrapper_inProgressWhenAborted(describe(inProgress)));
+        }
+        log(Messages.KubernetesClientWrapper_notAppliedAfterAbort(notAppliedNames.size(), notAppliedNames));
+    }
 
+    private static String describe(Object resource) {
+        return getKind(resource) + "/" + CommonUtils.getResourceName(resource);
+    }
 
-        } else {
+    private static String getKind(Object resource) {
+        if (resource instanceof RawResource) {
+            return ((RawResource) resource).getKind();
+        }
+        return resource.getClass().getSimpleName();
+    }
+
+    private static boolean isNamespace(Object resource) {
+        if (resource instanceof RawResource) {
+            RawResource raw = (RawResource) resource;
+            return "v1".equals(raw.getApiVersion()) && "Namespace".equals(raw.getKind());
+        }
+        return resource instanceof V1Namespace;
+    }
+
+    /**
+     * Use the API discovery snapshots persisted on the controller, so the discovery doesn't need to be repeated.
+     *
+     * @param snapshots the snapshots of the clusters
+     */
+    public static void seedDiscovery(Collection<DiscoverySnapshot> snapshots) {
+        ApiDiscovery.seed(snapshots);
+    }
+
+    /**
+     * Check the API discovery of the cluster against the server version, and rebuild it if needed. With the
+     * discovery, the resources in a group version which is not served are rejected without calling the API, and the
+     * server-side apply and the metadata-only reads are used where supported. It's best effort, and a failed discovery
+     * is logged only.
+     *
+     * @return the up to date snapshot, or {@code null} if the discovery failed
+     */
+    public DiscoverySnapshot refreshDiscovery() {
+        try {
+            discoverySnapshot = new ApiDiscovery(client).refresh();
+        } catch (ApiException e) {
+            log(Messages.KubernetesClientWrapper_discoveryFailed(e.getCode(), e.getMessage()));
+            discoverySnapshot = null;
+        }
+        return discoverySnapshot;
+    }
+
+    public DiscoverySnapshot getDiscoverySnapshot() {
+        return discoverySnapshot;
+    }
+
+    /**
+     * Get related updater in {@link ResourceUpdaterRegistry} by resource's class type and handle the resource by
+     * updater.
+     *
+     * @param resource k8s resource
+     */
+    private void handleResource(Object resource) {
+        handleResource(resource, false, null);
+    }
+
+    /**
+     * Handle the resource, optionally with its live object read already by the caller.
+     *
+     * @param resource  k8s resource
+     * @param liveKnown whether the live object was read already
+     * @param live      the live object, or {@code null} if it does not exist
+     */
+    private void handleResource(Object resource, boolean liveKnown, Object live) {
+        if (journal == null) {
+            doHandleResource(resource, liveKnown, live);
+            return;
+        }
+        if (!journal.isRecording()) {
+            journal.begin();
+        }
+        try {
+            doHandleResource(resource, liveKnown, live);
+        } catch (RuntimeException e) {
+            journal.record(journalCluster, getKind(resource), getResourceNamespace(resource),
+                    CommonUtils.getResourceName(resource), DeploymentJournal.ACTION_FAILED, null);
+            throw e;
+        } finally {
+            journal.discard();
+        }
+    }
+
+    private static String getResourceNamespace(Object resource) {
+        V1ObjectMeta metadata = CommonUtils.getMetadata(resource);
+        return metadata == null ? null : metadata.getNamespace();
+    }
+
+    private void doHandleResource(Object resource, boolean liveKnown, Object live) {
+        if (discoverySnapshot != null && !(resource instanceof RawResource)) {
+            String apiVersion = CommonUtils.getApiVersion(resource);
+            if (apiVersion != null && !isServed(apiVersion)) {
+                throw new IllegalStateException(Messages.KubernetesClientWrapper_versionNotServed(getKind(resource),
+                        apiVersion, discoverySnapshot.getServedVersions(DiscoverySnapshot.group(apiVersion))));
+            }
+        }
+        if (!ResourceUpdaterRegistry.isSupported(resource.getClass())) {
             log(Messages.KubernetesClientWrapper_skipped(resource));
+            return;
+        }
+        ResourceManager.ResourceUpdater<?> updater = null;
+        try {
+            updater = ResourceUpdaterRegistry.createUpdater(getClient(), resource,
+                    new ResourceUpdaterRegistry.ManagerSetup() {
+                        @Override
+                        public void setup(ResourceManager resourceManager) {
+                            setupManager(resourceManager);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            log(Messages.KubernetesClientWrapper_illegalUpdater(resource, e));
+            return;
+        }
+        if (updater == null) {
+            log(Messages.KubernetesClientWrapper_illegalUpdater(resource, null));
+            return;
+        }
+
+        if (liveKnown) {
+            updater.setCurrentResource(live);
+        }
+        if (deleteResource) {
+            updater.delete();
+        } else {
+            updater.createOrApply();
+        }
+    }
+
+    /**
+     * Whether the group version is served, according to the discovery refreshed once if needed. A failed refresh
+     * leaves the check to the API server.
+     */
+    private boolean isServed(String apiVersion) {
+        if (discoverySnapshot.isServed(apiVersion)) {
+            return true;
+        }
+        try {
+            return new ApiDiscovery(client).isServed(apiVersion);
+        } catch (ApiException e) {
+            log(Messages.KubernetesClientWrapper_discoveryFailed(e.getCode(), e.getMessage()));
+            return true;
+        }
+    }
+
+    private void setupManager(ResourceManager resourceManager) {
+        resourceManager.setConsoleLogger(getLogger());
+        resourceManager.setVerbose(verbose);
+        resourceManager.setEventBus(eventBus, eventCluster);
+        if (journal != null) {
+            resourceManager.setResultListener(new ResourceManager.ResultListener() {
+                @Override
+                public void onResult(String kind, String namespace, String name, String action,
+                                     String resourceVersion) {
+                    journal.record(journalCluster, kind, namespace, name, action, resourceVersion);
+                }
+            });
         }
     }
 
@@ -318,22 +837,305 @@ public class KubernetesClientWrapper {
             String kubernetesNamespace,
             String secretName,
             List<ResolvedDockerRegistryEndpoint> credentials) throws IOException, ApiException {
+        createOrReplaceSecrets(kubernetesNamespace, secretName, credentials, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * Create or update the Docker registry secret, with the given labels.
+     *
+     * @param kubernetesNamespace the namespace of the secret
+     * @param secretName          the name of the secret
+     * @param credentials         the Docker registry credentials
+     * @param labels              the labels of the secret
+     * @throws IOException  if the Docker configuration cannot be built
+     * @throws ApiException if the Kubernetes API call failed
+     * @see #secretLabels(String)
+     */
+    public void createOrReplaceSecrets(
+            String kubernetesNamespace,
+            String secretName,
+            List<ResolvedDockerRegistryEndpoint> credentials,
+            Map<String, String> labels) throws IOException, ApiException {
         log(Messages.KubernetesClientWrapper_prepareSecretsWithName(secretName));
+        DockerSecret secret = new DockerSecret(secretName, credentials, labels, DockerSecretType.DEFAULT);
+        secret.write(kubernetesNamespace);
+    }
 
-        DockerConfigBuilder dockerConfigBuilder = new DockerConfigBuilder(credentials);
-        String dockercfg = dockerConfigBuilder.buildDockercfgString();
-
-        Map<String, String> data = new HashMap<>();
-        data.put(".dockercfg", dockercfg);
-        V1Secret secret = new V1SecretBuilder()
-                .withNewMetadata()
-                .withName(secretName)
-                .withNamespace(kubernetesNamespace)
-                .endMetadata()
-                .withStringData(data)
-                .withType("kubernetes.io/dockercfg")
-                .build();
-        handleResource(secret);
+    /**
+     * Create or update the Docker registry secret in each of the given namespaces. The secret is built once and
+     * written to the namespaces concurrently.
+     *
+     * @param kubernetesNamespaces the namespaces of the secret
+     * @param secretName           the name of the secret
+     * @param credentials          the Docker registry credentials
+     * @param labels               the labels of the secret
+     * @throws IOException          if the Docker configuration cannot be built
+     * @throws ApiException         if the Kubernetes API call failed
+     * @throws InterruptedException if interrupted while waiting for the writes
+     */
+    public void createOrReplaceSecrets(
+            List<String> kubernetesNamespaces,
+            String secretName,
+            List<ResolvedDockerRegistryEndpoint> credentials,
+            Map<String, String> labels) throws IOException, ApiException, InterruptedException {
+        createOrReplaceSecrets(kubernetesNamespaces, secretName, credentials, labels, DockerSecretType.DEFAULT);
+    }
+
+    /**
+     * Create or update the Docker registry secret of the given type in each of the given namespaces. The secret is
+     * built once and written to the namespaces concurrently.
+     *
+     * @param kubernetesNamespaces the namespaces of the secret
+     * @param secretName           the name of the secret
+     * @param credentials          the Docker registry credentials
+     * @param labels               the labels of the secret
+     * @param secretType           the type of the secret
+     * @throws IOException          if the Docker configuration cannot be built
+     * @throws ApiException         if the Kubernetes API call failed
+     * @throws InterruptedException if interrupted while waiting for the writes
+     */
+    public void createOrReplaceSecrets(
+            List<String> kubernetesNamespaces,
+            String secretName,
+            List<ResolvedDockerRegistryEndpoint> credentials,
+            Map<String, String> labels,
+            DockerSecretType secretType) throws IOException, ApiException, InterruptedException {
+        log(Messages.KubernetesClientWrapper_prepareSecretsWithName(secretName));
+        final DockerSecret secret = new DockerSecret(secretName, credentials, labels, secretType);
+        if (kubernetesNamespaces.size() == 1) {
+            secret.write(kubernetesNamespaces.get(0));
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(kubernetesNamespaces.size(), MAX_PARALLEL_SECRET_WRITES),
+                new NamingThreadFactory(Executors.defaultThreadFactory(), "KubernetesClientWrapper.secrets"));
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (final String namespace : kubernetesNamespaces) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        secret.write(namespace);
+                        return null;
+                    }
+                }));
+            }
+            Throwable failure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            if (failure instanceof ApiException) {
+                throw (ApiException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure != null) {
+                throw new IOException(failure);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Docker registry secret to be written to one or more namespaces.
+     * <p>
+     * The SHA-256 of the secret type and data is stored in an annotation. The write to a namespace is skipped if the
+     * live secret there has the same hash and type, so that an unchanged secret does not get a new resource version
+     * and does not notify the watchers, whichever job or build uses it. The live secret read for the comparison is
+     * reused by the updater.
+     */
+    private final class DockerSecret {
+        private final String name;
+        private final Map<String, String> labels;
+        private final Map<String, String> data = new HashMap<>();
+        private final String type;
+        private final String hash;
+
+        DockerSecret(String name,
+                     List<ResolvedDockerRegistryEndpoint> credentials,
+                     Map<String, String> labels,
+                     DockerSecretType secretType) throws IOException {
+            this.name = name;
+            this.labels = labels;
+            this.type = secretType.getType();
+            data.put(secretType.getDataKey(), secretType.buildData(new DockerConfigBuilder(credentials)));
+            this.hash = Hashing.sha256().newHasher()
+                    .putString(type, StandardCharsets.UTF_8)
+                    .putString(new TreeMap<>(data).toString(), StandardCharsets.UTF_8)
+                    .hash().toString();
+        }
+
+        void write(String namespace) throws ApiException {
+            if (journal == null) {
+                doWrite(namespace);
+                return;
+            }
+            journal.begin();
+            try {
+                doWrite(namespace);
+            } finally {
+                journal.discard();
+            }
+        }
+
+        private void doWrite(String namespace) throws ApiException {
+            V1Secret live = null;
+            try {
+                live = new CoreV1Api(client).readNamespacedSecret(name, namespace, null, null, null);
+            } catch (ApiException e) {
+                if (e.getCode() != HttpStatus.SC_NOT_FOUND) {
+                    throw e;
+                }
+            }
+            if (isUpToDate(live)) {
+                log(Messages.KubernetesClientWrapper_secretUnchanged(namespace, name));
+                if (journal != null) {
+                    journal.record(journalCluster, "V1Secret", namespace, name, DeploymentJournal.ACTION_UNCHANGED,
+                            live.getMetadata().getResourceVersion());
+                }
+                return;
+            }
+            if (live != null && !type.equals(live.getType())) {
+                // the type of a secret is immutable
+                log(Messages.KubernetesClientWrapper_secretTypeChanged(namespace, name, live.getType(), type));
+                try {
+                    new CoreV1Api(client).deleteNamespacedSecret(name, namespace, null, null, null, null, null, null);
+                } catch (JsonSyntaxException e) {
+                    // https://github.com/kubernetes-client/java/issues/86, the secret is deleted
+                    LOGGER.debug("Ignoring the unparsable response of the secret deletion", e);
+                }
+                live = null;
+            }
+
+            V1Secret secret = new V1SecretBuilder()
+                    .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(namespace)
+                    .withLabels(labels.isEmpty() ? null : labels)
+                    .addToAnnotations(Constants.KUBERNETES_SECRET_HASH_ANNOTATION, hash)
+                    .endMetadata()
+                    .withStringData(data)
+                    .withType(type)
+                    .build();
+            handleResource(secret, true, live);
+        }
+
+        /**
+         * Whether the live secret has the same data and type. A secret marked as superseded by the pruning of a job
+         * is written again, which takes it over with the labels of this job and removes the mark.
+         *
+         * @see #pruneSecrets(String, String, String, int, int)
+         */
+        private boolean isUpToDate(V1Secret live) {
+            if (live == null || live.getMetadata() == null || !type.equals(live.getType())) {
+                return false;
+            }
+            Map<String, String> annotations = live.getMetadata().getAnnotations();
+            if (annotations == null || !hash.equals(annotations.get(Constants.KUBERNETES_SECRET_HASH_ANNOTATION))) {
+                return false;
+            }
+            Map<String, String> liveLabels = live.getMetadata().getLabels();
+            return liveLabels == null || !liveLabels.containsKey(Constants.KUBERNETES_SUPERSEDED_LABEL);
+        }
+    }
+
+    /**
+     * Delete the Docker registry secrets the job no longer uses, once the job has not used them for the given number
+     * of builds.
+     * <p>
+     * The secrets are selected by the labels set with {@link #secretLabels(String)}, so only the secrets last
+     * written by this job are considered, and the secret of the current build is never deleted. A secret other than
+     * the current one is first labelled with the build that found it unused, and deleted with a
+     * {@code deletecollection} request once that build is older than the given number of builds. A job which uses
+     * the secret again writes it with its own labels, which removes the mark. The secrets created without the labels
+     * by the earlier plugin versions are not affected.
+     *
+     * @param kubernetesNamespace the namespace of the secrets
+     * @param currentSecretName   the name of the secret of the current build
+     * @param jobFullName         the full name of the job
+     * @param buildNumber         the current build number
+     * @param keepBuilds          the number of the recent builds whose secrets are kept
+     * @throws ApiException if the Kubernetes API call failed
+     */
+    public void pruneSecrets(String kubernetesNamespace,
+                             String currentSecretName,
+                             String jobFullName,
+                             int buildNumber,
+                             int keepBuilds) throws ApiException {
+        Map<String, String> labels = secretLabels(jobFullName);
+        String jobSelector = Constants.KUBERNETES_MANAGED_BY_LABEL + "=" + labels.get(
+                Constants.KUBERNETES_MANAGED_BY_LABEL) + "," + Constants.KUBERNETES_JOB_LABEL + "=" + labels.get(
+                Constants.KUBERNETES_JOB_LABEL);
+
+        CoreV1Api api = new CoreV1Api(client);
+        V1SecretList secrets = api.listNamespacedSecret(kubernetesNamespace, null, null, null, null,
+                jobSelector, null, null, null, null);
+        Set<Integer> staleBuilds = new TreeSet<>();
+        for (V1Secret secret : secrets.getItems()) {
+            if (currentSecretName.equals(secret.getMetadata().getName())
+                    || secret.getMetadata().getLabels() == null) {
+                continue;
+            }
+            String superseded = secret.getMetadata().getLabels().get(Constants.KUBERNETES_SUPERSEDED_LABEL);
+            if (superseded == null || !superseded.matches("\\d+")) {
+                markSuperseded(api, kubernetesNamespace, secret, buildNumber, keepBuilds);
+            } else if (Integer.parseInt(superseded) <= buildNumber - keepBuilds) {
+                staleBuilds.add(Integer.parseInt(superseded));
+            }
+        }
+        if (staleBuilds.isEmpty()) {
+            return;
+        }
+
+        log(Messages.KubernetesClientWrapper_pruneSecrets(staleBuilds.size(), kubernetesNamespace));
+        for (List<Integer> batch : Iterables.partition(staleBuilds, PRUNE_BATCH_SIZE)) {
+            String selector = jobSelector + "," + Constants.KUBERNETES_SUPERSEDED_LABEL
+                    + " in (" + StringUtils.join(batch, ",") + ")";
+            api.deleteCollectionNamespacedSecret(kubernetesNamespace, null, null, null, null,
+                    "metadata.name!=" + currentSecretName, null, selector, null, null, null, null, null, null, null);
+        }
+    }
+
+    /**
+     * Label the secret with the build that found it unused. The replace carries the resource version of the listed
+     * secret, so a concurrent write by a job which uses the secret wins.
+     */
+    private void markSuperseded(CoreV1Api api, String namespace, V1Secret secret, int buildNumber, int keepBuilds)
+            throws ApiException {
+        V1ObjectMeta metadata = secret.getMetadata();
+        log(Messages.KubernetesClientWrapper_secretSuperseded(namespace, metadata.getName(), keepBuilds));
+        metadata.putLabelsItem(Constants.KUBERNETES_SUPERSEDED_LABEL, String.valueOf(buildNumber));
+        try {
+            api.replaceNamespacedSecret(metadata.getName(), namespace, secret, null, null, null);
+        } catch (ApiException e) {
+            if (e.getCode() != HttpStatus.SC_CONFLICT && e.getCode() != HttpStatus.SC_NOT_FOUND) {
+                throw e;
+            }
+            LOGGER.debug("Secret {}/{} changed while being marked as superseded", namespace, metadata.getName(), e);
+        }
+    }
+
+    /**
+     * Build the labels of the Docker registry secret, which identify the job that last wrote it. The labels do not
+     * change from build to build, so that an unchanged secret is not written again.
+     *
+     * @param jobFullName the full name of the job
+     * @return the labels
+     */
+    public static Map<String, String> secretLabels(String jobFullName) {
+        Map<String, String> labels = new LinkedHashMap<>();
+        labels.put(Constants.KUBERNETES_MANAGED_BY_LABEL, Constants.KUBERNETES_MANAGED_BY_VALUE);
+        // label values are limited to 63 characters, while the job names are not
+        labels.put(Constants.KUBERNETES_JOB_LABEL, Hashing.sha256()
+                .hashString(jobFullName, StandardCharsets.UTF_8).toString().substring(0, LABEL_HASH_LENGTH));
+        return labels;
     }
 
     private static void restoreProperty(String name, String value) {
@@ -344,17 +1146,58 @@ public class KubernetesClientWrapper {
         }
     }
 
-    public static String prepareSecretName(String nameCfg, String defaultName, EnvVars envVars) {
+    /**
+     * Prepare the name of the Docker registry secret.
+     * <p>
+     * If the name is not configured, it is derived from the job name, the registry URLs and the user names, so that
+     * the builds of the job with the same registry credentials reuse the same secret, while each job owns its secrets
+     * and may prune them. The passwords are not part of the name.
+     *
+     * @param nameCfg     the configured name, which may contain variables
+     * @param jobFullName the full name of the job
+     * @param endpoints   the Docker registry credentials
+     * @param envVars     the environment variables to expand the configured name
+     * @return the secret name
+     */
+    public static String prepareSecretName(String nameCfg,
+                                           String jobFullName,
+                                           List<ResolvedDockerRegistryEndpoint> endpoints,
+                                           EnvVars envVars) {
+        String name = expandSecretName(nameCfg, envVars);
+        if (!name.isEmpty()) {
+            return name;
+        }
+
+        List<String> registries = new ArrayList<>();
+        for (ResolvedDockerRegistryEndpoint endpoint : endpoints) {
+            registries.add(endpoint.getUrl() + " " + registryUser(endpoint.getToken()));
+        }
+        Collections.sort(registries);
+        return Constants.KUBERNETES_SECRET_NAME_PREFIX + Hashing.sha256()
+                .hashString(jobFullName + "\n" + StringUtils.join(registries, "\n"), StandardCharsets.UTF_8)
+                .toString().substring(0, SECRET_NAME_HASH_LENGTH);
+    }
+
+    private static String registryUser(DockerRegistryToken token) {
+        String auth = new String(Base64.decodeBase64(token.getToken()), StandardCharsets.UTF_8);
+        int colonIndex = auth.indexOf(':');
+        return colonIndex >= 0 ? auth.substring(0, colonIndex) : auth;
+    }
+
+    private static String expandSecretName(String nameCfg, EnvVars envVars) {
         String name = StringUtils.trimToEmpty(envVars.expand(nameCfg));
         if (name.length() > Constants.KUBERNETES_NAME_LENGTH_LIMIT) {
             throw new IllegalArgumentException(Messages.KubernetesClientWrapper_secretNameTooLong(name));
         }
+        if (!name.isEmpty() && !Constants.KUBERNETES_NAME_PATTERN.matcher(name).matches()) {
+            throw new IllegalArgumentException(Messages.KubernetesClientWrapper_illegalSecretName(name));
+        }
+        return name;
+    }
 
+    public static String prepareSecretName(String nameCfg, String defaultName, EnvVars envVars) {
+        String name = expandSecretName(nameCfg, envVars);
         if (!name.isEmpty()) {
-            if (!Constants.KUBERNETES_NAME_PATTERN.matcher(name).matches()) {
-                throw new IllegalArgumentException(Messages.KubernetesClientWrapper_illegalSecretName(name));
-            }
-
             return name;
         }
         // use default name and ensure it conforms the requirements.
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A Kubernetes object kept as its JSON representation, without a typed model.
+ * <p>
+ * Only the fields needed to address the object in the API are extracted: the apiVersion, the kind, and the name,
+ * namespace and resourceVersion in the metadata. The object is immutable, so it can be shared by the clusters of a
+ * multi-cluster deployment.
+ */
+public final class RawResource {
+    private final String apiVersion;
+    private final String kind;
+    private final String name;
+    private final String namespace;
+    private final String resourceVersion;
+    private final byte[] json;
+
+    RawResource(String apiVersion, String kind, String name, String namespace, String resourceVersion, byte[] json) {
+        this.apiVersion = apiVersion;
+        this.kind = kind;
+        this.name = name;
+        this.namespace = namespace;
+        this.resourceVersion = resourceVersion;
+        this.json = json;
+    }
+
+    /**
+     * Extract the addressing fields from the JSON object, without building the object tree.
+     *
+     * @param json the UTF-8 encoded JSON object
+     * @return the raw resource
+     * @throws IOException if the JSON is invalid
+     */
+    static RawResource parse(byte[] json) throws IOException {
+        String apiVersion = null;
+        String kind = null;
+        String name = null;
+        String namespace = null;
+        String resourceVersion = null;
+        try (JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if ("apiVersion".equals(field)) {
+                    apiVersion = nextString(reader);
+                } else if ("kind".equals(field)) {
+                    kind = nextString(reader);
+                } else if ("metadata".equals(field) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String metadataField = reader.nextName();
+                        if ("name".equals(metadataField)) {
+                            name = nextString(reader);
+                        } else if ("namespace".equals(metadataField)) {
+                            namespace = nextString(reader);
+                        } else if ("resourceVersion".equals(metadataField)) {
+                            resourceVersion = nextString(reader);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException e) {
+            throw new IOException(e);
+        }
+        return new RawResource(apiVersion, kind, name, namespace, resourceVersion, json);
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.STRING) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    public String getApiVersion() {
+        return apiVersion;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * @return a new metadata object with the name, namespace and resourceVersion of the object
+     */
+    public V1ObjectMeta getMetadata() {
+        return new V1ObjectMeta().name(name).namespace(namespace).resourceVersion(resourceVersion);
+    }
+
+    byte[] getJson() {
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+}
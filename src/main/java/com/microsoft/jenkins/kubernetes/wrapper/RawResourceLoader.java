@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+import org.apache.commons.codec.binary.Base64;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.DocumentEndEvent;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transcodes the YAML documents to JSON with the streaming parser, one {@link RawResource} for each document.
+ * <p>
+ * The plain scalars are resolved with the YAML 1.1 rules, as the typed loader does, so {@code 0644} is a number and
+ * {@code "0644"} is a string. Aliases are not supported.
+ * <p>
+ * The documents loaded already by SnakeYAML, for example to find their kind, are converted with
+ * {@link #toJsonTree(Object)} instead, which supports the aliases.
+ */
+final class RawResourceLoader {
+    private static final int BINARY = 2;
+    private static final int OCTAL = 8;
+    private static final int DECIMAL = 10;
+    private static final int HEXADECIMAL = 16;
+    private static final Set<String> TRUE_VALUES = new HashSet<>(Arrays.asList("true", "yes", "on"));
+    private static final Gson GSON = new GsonBuilder().serializeNulls().create();
+
+    private final Resolver resolver = new Resolver();
+
+    /**
+     * The mapping or sequence being written, with the metadata fields extracted so far.
+     */
+    private static final class Frame {
+        private final boolean mapping;
+        private boolean expectingKey = true;
+        private String field;
+
+        Frame(boolean mapping) {
+            this.mapping = mapping;
+        }
+    }
+
+    /**
+     * Load all the documents in the YAML stream. The empty documents are skipped.
+     *
+     * @param reader the YAML stream
+     * @return the resources in the order of the documents
+     * @throws IOException if the YAML is invalid, or a document is not an object
+     */
+    List<RawResource> loadAll(Reader reader) throws IOException {
+        List<RawResource> result = new ArrayList<>();
+        try {
+            Iterator<Event> events = new Yaml(new SafeConstructor()).parse(reader).iterator();
+            while (events.hasNext()) {
+                Event event = events.next();
+                if (event instanceof DocumentStartEvent) {
+                    RawResource resource = loadDocument(events);
+                    if (resource != null) {
+                        result.add(resource);
+                    }
+                }
+            }
+        } catch (YAMLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return result;
+    }
+
+    private RawResource loadDocument(Iterator<Event> events) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.setSerializeNulls(true);
+
+        Deque<Frame> stack = new ArrayDeque<>();
+        String apiVersion = null;
+        String kind = null;
+        String name = null;
+        String namespace = null;
+        boolean empty = true;
+        while (events.hasNext()) {
+            Event event = events.next();
+            Frame top = stack.peek();
+            if (event instanceof DocumentEndEvent) {
+                break;
+            } else if (event instanceof AliasEvent) {
+                throw new IOException("YAML aliases are not supported: " + event.getStartMark());
+            } else if (event instanceof MappingStartEvent || event instanceof SequenceStartEvent) {
+                boolean mapping = event instanceof MappingStartEvent;
+                if (top == null && !mapping) {
+                    throw new IOException("The YAML document is not an object: " + event.getStartMark());
+                }
+                if (top != null && top.mapping && top.expectingKey) {
+                    throw new IOException("Only scalar keys are supported: " + event.getStartMark());
+                }
+                if (mapping) {
+                    writer.beginObject();
+                } else {
+                    writer.beginArray();
+                }
+                stack.push(new Frame(mapping));
+                empty = false;
+            } else if (event instanceof MappingEndEvent || event instanceof SequenceEndEvent) {
+                Frame frame = stack.pop();
+                if (frame.mapping) {
+                    writer.endObject();
+                } else {
+                    writer.endArray();
+                }
+                valueWritten(stack.peek());
+            } else if (event instanceof ScalarEvent) {
+                ScalarEvent scalar = (ScalarEvent) event;
+                if (top == null) {
+                    if (isNull(scalar)) {
+                        // empty document
+                        continue;
+                    }
+                    throw new IOException("The YAML document is not an object: " + event.getStartMark());
+                }
+                if (top.mapping && top.expectingKey) {
+                    writer.name(scalar.getValue());
+                    top.field = scalar.getValue();
+                    top.expectingKey = false;
+                    continue;
+                }
+                writeScalar(writer, scalar);
+                if (stack.size() == 1) {
+                    if ("apiVersion".equals(top.field)) {
+                        apiVersion = scalar.getValue();
+                    } else if ("kind".equals(top.field)) {
+                        kind = scalar.getValue();
+                    }
+                } else if (stack.size() == 2 && top.mapping && "metadata".equals(stack.peekLast().field)) {
+                    if ("name".equals(top.field)) {
+                        name = scalar.getValue();
+                    } else if ("namespace".equals(top.field)) {
+                        namespace = scalar.getValue();
+                    }
+                }
+                valueWritten(top);
+            }
+        }
+        if (empty) {
+            return null;
+        }
+        writer.close();
+        if (apiVersion == null || kind == null) {
+            throw new IOException(Messages.RawResourceLoader_noKind(name));
+        }
+        return new RawResource(apiVersion, kind, name, namespace, null, out.toByteArray());
+    }
+
+    /**
+     * Convert a value loaded by SnakeYAML into a JSON tree. The shared values of the YAML anchors are converted at
+     * each of their aliases, the timestamps are written in the ISO-8601 format and the binary values in Base64.
+     *
+     * @param value the loaded value
+     * @return the JSON tree
+     * @throws IOException if the value is recursive
+     */
+    static JsonElement toJsonTree(Object value) throws IOException {
+        return toJsonTree(value, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+    }
+
+    private static JsonElement toJsonTree(Object value, Set<Object> ancestors) throws IOException {
+        if (value == null) {
+            return JsonNull.INSTANCE;
+        } else if (value instanceof Map || value instanceof Collection) {
+            if (!ancestors.add(value)) {
+                throw new IOException("Recursive YAML aliases are not supported");
+            }
+            JsonElement result;
+            if (value instanceof Map) {
+                JsonObject object = new JsonObject();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    object.add(String.valueOf(entry.getKey()), toJsonTree(entry.getValue(), ancestors));
+                }
+                result = object;
+            } else {
+                JsonArray array = new JsonArray();
+                for (Object item : (Collection<?>) value) {
+                    array.add(toJsonTree(item, ancestors));
+                }
+                result = array;
+            }
+            ancestors.remove(value);
+            return result;
+        } else if (value instanceof Boolean) {
+            return new JsonPrimitive((Boolean) value);
+        } else if (value instanceof Number) {
+            return new JsonPrimitive((Number) value);
+        } else if (value instanceof Date) {
+            return new JsonPrimitive(DateTimeFormatter.ISO_INSTANT.format(((Date) value).toInstant()));
+        } else if (value instanceof byte[]) {
+            return new JsonPrimitive(Base64.encodeBase64String((byte[]) value));
+        }
+        return new JsonPrimitive(String.valueOf(value));
+    }
+
+    /**
+     * Build the raw resource from a JSON object converted with {@link #toJsonTree(Object)}.
+     *
+     * @param object the JSON object
+     * @return the raw resource
+     * @throws IOException if the object has no apiVersion or kind
+     */
+    static RawResource fromJsonTree(JsonObject object) throws IOException {
+        String apiVersion = stringField(object, "apiVersion");
+        String kind = stringField(object, "kind");
+        String name = null;
+        String namespace = null;
+        JsonElement metadata = object.get("metadata");
+        if (metadata != null && metadata.isJsonObject()) {
+            name = stringField(metadata.getAsJsonObject(), "name");
+            namespace = stringField(metadata.getAsJsonObject(), "namespace");
+        }
+        if (apiVersion == null || kind == null) {
+            throw new IOException(Messages.RawResourceLoader_noKind(name));
+        }
+        return new RawResource(apiVersion, kind, name, namespace, null,
+                GSON.toJson(object).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String stringField(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+
+    private static void valueWritten(Frame frame) {
+        if (frame != null && frame.mapping) {
+            frame.expectingKey = true;
+        }
+    }
+
+    private boolean isNull(ScalarEvent scalar) {
+        return scalar.getImplicit().canOmitTagInPlainScalar()
+                && resolver.resolve(NodeId.scalar, scalar.getValue(), true).equals(Tag.NULL);
+    }
+
+    private void writeScalar(JsonWriter writer, ScalarEvent scalar) throws IOException {
+        String value = scalar.getValue();
+        if (!scalar.getImplicit().canOmitTagInPlainScalar()) {
+            // quoted or explicitly tagged
+            writer.value(value);
+            return;
+        }
+        Tag tag = resolver.resolve(NodeId.scalar, value, true);
+        if (Tag.NULL.equals(tag)) {
+            writer.nullValue();
+        } else if (Tag.BOOL.equals(tag)) {
+            writer.value(TRUE_VALUES.contains(value.toLowerCase()));
+        } else if (Tag.INT.equals(tag)) {
+            writeNumber(writer, value, parseInteger(value));
+        } else if (Tag.FLOAT.equals(tag)) {
+            writeNumber(writer, value, parseDecimal(value));
+        } else {
+            writer.value(value);
+        }
+    }
+
+    private static void writeNumber(JsonWriter writer, String value, Number number) throws IOException {
+        if (number == null) {
+            // sexagesimal, infinity or NaN, which have no JSON representation
+            writer.value(value);
+        } else {
+            writer.value(number);
+        }
+    }
+
+    private static BigInteger parseInteger(String value) {
+        String digits = value.replace("_", "");
+        boolean negative = false;
+        if (digits.startsWith("-") || digits.startsWith("+")) {
+            negative = digits.charAt(0) == '-';
+            digits = digits.substring(1);
+        }
+        int radix = DECIMAL;
+        if (digits.startsWith("0b")) {
+            radix = BINARY;
+            digits = digits.substring(2);
+        } else if (digits.startsWith("0x")) {
+            radix = HEXADECIMAL;
+            digits = digits.substring(2);
+        } else if (digits.length() > 1 && digits.startsWith("0")) {
+            radix = OCTAL;
+            digits = digits.substring(1);
+        }
+        try {
+            BigInteger number = new BigInteger(digits, radix);
+            return negative ? number.negate() : number;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        try {
+            return new BigDecimal(value.replace("_", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
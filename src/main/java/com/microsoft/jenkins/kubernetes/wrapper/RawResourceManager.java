@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.jenkins.kubernetes.util.Constants;
+import com.microsoft.jenkins.kubernetes.util.KubernetesJsonUtils;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.Pair;
+import io.kubernetes.client.openapi.models.V1Status;
+import okhttp3.Call;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Applies the {@link RawResource}s with plain HTTP calls on the {@link ApiClient}, without the typed models.
+ * <p>
+ * The REST path of a kind is looked up in the cached {@link ApiDiscovery}, so any group, version and kind served by
+ * the cluster can be handled, including the custom resources. Existing objects are updated with a server-side apply
+ * where the cluster supports it, and with a JSON merge patch of the desired object otherwise, so the fields set by the
+ * server, e.g., the cluster IP of a Service, are kept. The existing objects are read as metadata only where supported.
+ */
+public class RawResourceManager extends ResourceManager {
+    private static final String JSON = "application/json";
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+    private static final String APPLY_PATCH = "application/apply-patch+yaml";
+    private static final String METADATA_ONLY = "application/json;as=PartialObjectMetadata;g=meta.k8s.io;v=v1,"
+            + JSON;
+    private static final String FIELD_MANAGER = "kubernetes-cd-plugin";
+    private static final String[] AUTH_NAMES = new String[]{"BearerToken"};
+    private static final String CRD_GROUP = "apiextensions.k8s.io";
+    private static final String CRD_KIND = "CustomResourceDefinition";
+    private static final long ESTABLISHED_POLL_INTERVAL_MILLIS = 1000L;
+
+    private final ApiClient client;
+    private final ApiDiscovery discovery;
+
+    public RawResourceManager(ApiClient client) {
+        this(client, true);
+    }
+
+    public RawResourceManager(ApiClient client, boolean pretty) {
+        super(pretty);
+        checkNotNull(client);
+        this.client = client;
+        this.discovery = new ApiDiscovery(client);
+    }
+
+    ApiDiscovery getDiscovery() {
+        return discovery;
+    }
+
+    /**
+     * The group and kind of the custom resources defined by the CustomResourceDefinition.
+     *
+     * @param resource the resource
+     * @return the {@code group/kind} of the defined resources, or {@code null} if the resource is not a
+     * CustomResourceDefinition
+     */
+    static String definedGroupKind(RawResource resource) {
+        if (!CRD_KIND.equals(resource.getKind()) || !resource.getApiVersion().startsWith(CRD_GROUP + "/")) {
+            return null;
+        }
+        try {
+            JsonObject spec = new JsonParser().parse(resource.toString()).getAsJsonObject().getAsJsonObject("spec");
+            return spec.get("group").getAsString() + "/" + spec.getAsJsonObject("names").get("kind").getAsString();
+        } catch (RuntimeException e) {
+            // incomplete definition, which will be rejected by the server
+            return null;
+        }
+    }
+
+    /**
+     * @return the {@code group/kind} of the resource, with an empty group for the core API
+     */
+    static String groupKind(RawResource resource) {
+        String apiVersion = resource.getApiVersion();
+        int slash = apiVersion.indexOf('/');
+        return (slash < 0 ? "" : apiVersion.substring(0, slash)) + "/" + resource.getKind();
+    }
+
+    /**
+     * Wait until the CustomResourceDefinition reports the Established condition, so its custom resources can be
+     * created.
+     *
+     * @param crd           the applied CustomResourceDefinition
+     * @param timeoutMillis the maximum time to wait
+     * @return whether the definition is established
+     * @throws ApiException         if the definition cannot be read
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean waitForEstablished(RawResource crd, long timeoutMillis) throws ApiException, InterruptedException {
+        String path = ApiDiscovery.groupVersionPath(crd.getApiVersion()) + "/customresourcedefinitions/"
+                + client.escapeString(crd.getMetadata().getName());
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            byte[] response = call(client, null, path, "GET", null, null, byte[].class);
+            if (isEstablished(response)) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(ESTABLISHED_POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    private static boolean isEstablished(byte[] crd) {
+        JsonObject status = new JsonParser().parse(new String(crd, StandardCharsets.UTF_8))
+                .getAsJsonObject().getAsJsonObject("status");
+        if (status == null || !status.has("conditions")) {
+            return false;
+        }
+        for (JsonElement element : status.getAsJsonArray("conditions")) {
+            JsonObject condition = element.getAsJsonObject();
+            if ("Established".equals(condition.get("type").getAsString())
+                    && "True".equals(condition.get("status").getAsString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Pair> queryParams() {
+        List<Pair> queryParams = new ArrayList<>();
+        queryParams.add(new Pair("pretty", getPretty()));
+        return queryParams;
+    }
+
+    static <T> T call(ApiClient client, String pretty, String path, String method, byte[] body, String contentType,
+                      Type returnType) throws ApiException {
+        List<Pair> queryParams = new ArrayList<>();
+        if (pretty != null) {
+            queryParams.add(new Pair("pretty", pretty));
+        }
+        return call(client, path, method, queryParams, JSON, body, contentType, returnType);
+    }
+
+    private static <T> T call(ApiClient client, String path, String method, List<Pair> queryParams, String accept,
+                              byte[] body, String contentType, Type returnType) throws ApiException {
+        Map<String, String> headerParams = new HashMap<>();
+        headerParams.put("Accept", accept);
+        if (contentType != null) {
+            headerParams.put("Content-Type", contentType);
+        }
+        Call call = client.buildCall(path, method, queryParams, new ArrayList<Pair>(), body, headerParams,
+                new HashMap<String, String>(), new HashMap<String, Object>(), AUTH_NAMES, null);
+        return client.<T>execute(call, returnType).getData();
+    }
+
+    class RawResourceUpdater extends ResourceUpdater<RawResource> {
+        private DiscoverySnapshot.ApiResource apiResource;
+
+        RawResourceUpdater(RawResource resource) {
+            super(resource);
+        }
+
+        @Override
+        String getKind() {
+            return get().getKind();
+        }
+
+        @Override
+        boolean isPrintable() {
+            return !"Secret".equals(get().getKind());
+        }
+
+        private String collectionPath() throws ApiException {
+            if (apiResource == null) {
+                apiResource = discovery.findApiResource(get().getApiVersion(), get().getKind());
+                if (apiResource == null) {
+                    throw new IllegalStateException(Messages.RawResourceManager_unknownKind(
+                            get().getKind(), get().getApiVersion()));
+                }
+            }
+            StringBuilder path = new StringBuilder(ApiDiscovery.groupVersionPath(get().getApiVersion()));
+            if (apiResource.isNamespaced()) {
+                path.append("/namespaces/").append(client.escapeString(getNamespace()));
+            }
+            return path.append('/').append(apiResource.getName()).toString();
+        }
+
+        private String objectPath() throws ApiException {
+            return collectionPath() + "/" + client.escapeString(getName());
+        }
+
+        private RawResource call(String path, String method, List<Pair> queryParams, String accept, byte[] body,
+                                 String contentType) throws ApiException {
+            byte[] response = RawResourceManager.call(client, path, method, queryParams, accept, body, contentType,
+                    byte[].class);
+            try {
+                return RawResource.parse(response);
+            } catch (IOException e) {
+                throw new ApiException(e);
+            }
+        }
+
+        @Override
+        protected RawResource getCurrentResource() {
+            RawResource result = null;
+            try {
+                String accept = discovery.getSnapshot().supportsMetadataOnlyRead() ? METADATA_ONLY : JSON;
+                result = call(objectPath(), "GET", queryParams(), accept, null, null);
+            } catch (ApiException e) {
+                handleApiExceptionExceptNotFound(e);
+            }
+            return result;
+        }
+
+        @Override
+        protected RawResource applyResource(RawResource original, RawResource current) {
+            RawResource result = null;
+            try {
+                String path = objectPath();
+                if (discovery.getSnapshot().supportsServerSideApply() && apiResource.supports("patch")) {
+                    List<Pair> queryParams = queryParams();
+                    queryParams.add(new Pair("fieldManager", FIELD_MANAGER));
+                    queryParams.add(new Pair("force", "true"));
+                    result = call(path, "PATCH", queryParams, JSON, current.getJson(), APPLY_PATCH);
+                } else {
+                    result = call(path, "PATCH", queryParams(), JSON, current.getJson(), MERGE_PATCH);
+                }
+            } catch (ApiException e) {
+                handleApiException(e);
+            }
+            return result;
+        }
+
+        @Override
+        protected RawResource createResource(RawResource current) {
+            RawResource result = null;
+            try {
+                result = call(collectionPath(), "POST", queryParams(), JSON, current.getJson(), JSON);
+            } catch (ApiException e) {
+                handleApiException(e);
+            }
+            return result;
+        }
+
+        @Override
+        protected V1Status deleteResource(RawResource current) {
+            V1Status result = null;
+            try {
+                byte[] body = KubernetesJsonUtils.getKubernetesJson().serialize(Constants.BACKGROUND_DELETEION)
+                        .getBytes(StandardCharsets.UTF_8);
+                call(objectPath(), "DELETE", queryParams(), JSON, body, JSON);
+                result = new V1Status().status("Success");
+            } catch (ApiException e) {
+                handleApiExceptionExceptNotFound(e);
+            }
+            return result;
+        }
+
+        @Override
+        protected void notifyUpdate(RawResource original, RawResource current) {
+            // there are no typed monitors for the raw resources
+        }
+    }
+}
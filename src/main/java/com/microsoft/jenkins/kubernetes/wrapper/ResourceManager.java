@@ -7,6 +7,7 @@
 package com.microsoft.jenkins.kubernetes.wrapper;
 
 import com.google.gson.JsonSyntaxException;
+import com.microsoft.jenkins.kubernetes.util.CommonUtils;
 import com.microsoft.jenkins.kubernetes.util.Constants;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.models.V1ObjectMeta;
@@ -18,8 +19,7 @@ import org.slf4j.LoggerFactory;
 
 
 import java.io.PrintStream;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -31,8 +31,22 @@ public abstract class ResourceManager {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(ResourceManager.class);
     private final String pretty;
+    /**
+     * If true, the objects returned by the api calls are also printed to the console log.
+     */
+    private boolean verbose;
+    private ResultListener resultListener;
+    private DeploymentEventBus eventBus;
+    private String cluster;
+
+    /**
+     * Receives the result of each resource handled by the updaters.
+     */
+    interface ResultListener {
+        void onResult(String kind, String namespace, String name, String action, String resourceVersion);
+    }
 
-    ResourceManager(boolean pretty) {
+    protected ResourceManager(boolean pretty) {
         this.pretty = String.valueOf(pretty);
     }
 
@@ -40,26 +54,25 @@ public abstract class ResourceManager {
         return pretty;
     }
 
-    protected abstract class ResourceUpdater<T> {
+    public abstract class ResourceUpdater<T> {
         private final T resource;
         private final V1ObjectMeta metadata;
+        private long startNanos;
+        private boolean currentKnown;
+        private T knownCurrent;
 
-        ResourceUpdater(T resource) {
+        protected ResourceUpdater(T resource) {
             checkNotNull(resource);
             this.resource = resource;
-            V1ObjectMeta meta = null;
-            try {
-                Method method = resource.getClass().getMethod("getMetadata");
-                meta = (V1ObjectMeta) method.invoke(resource);
-            } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            metadata = CommonUtils.getMetadata(resource);
+            if (metadata == null) {
                 consoleLogger.println(String.format("Fail to fetch meta data for %s", resource));
             }
-            metadata = meta;
             checkState(StringUtils.isNotBlank(getName()),
                     Messages.KubernetesClientWrapper_noName(), getKind(), resource);
         }
 
-        final String getNamespace() {
+        protected final String getNamespace() {
             if (metadata != null) {
                 if (metadata.getNamespace() != null) {
                     return metadata.getNamespace();
@@ -69,11 +82,11 @@ public abstract class ResourceManager {
             return Constants.DEFAULT_KUBERNETES_NAMESPACE;
         }
 
-        final T get() {
+        protected final T get() {
             return resource;
         }
 
-        final String getName() {
+        protected final String getName() {
             String name = null;
             if (metadata != null) {
                 name = metadata.getName();
@@ -81,32 +94,53 @@ public abstract class ResourceManager {
             return name;
         }
 
-        final String getKind() {
+        String getKind() {
             return resource.getClass().getSimpleName();
         }
 
+        /**
+         * Use the live resource read already by the caller, instead of reading it again in {@link #createOrApply()}.
+         *
+         * @param current the live resource, or {@code null} if it does not exist
+         */
+        @SuppressWarnings("unchecked")
+        final void setCurrentResource(Object current) {
+            knownCurrent = (T) current;
+            currentKnown = true;
+        }
+
         /**
          * Explicitly apply the configuration if a resource with the same name exists in the namespace in the cluster,
          * or create one if not.
          */
         final void createOrApply() {
-            T original = getCurrentResource();
-            T current = get();
-            T updated;
-            if (original != null) {
-                updated = applyResource(original, current);
-                logApplied(updated);
-            } else {
-                updated = createResource(get());
-                logCreated(updated);
+            startNanos = System.nanoTime();
+            try {
+                T original = currentKnown ? knownCurrent : getCurrentResource();
+                T current = get();
+                T updated;
+                if (original != null) {
+                    updated = applyResource(original, current);
+                    logApplied(updated);
+                } else {
+                    updated = createResource(get());
+                    logCreated(updated);
+                }
+                notifyUpdate(original, updated);
+                publish(original == null ? DeploymentEvent.Type.CREATED : DeploymentEvent.Type.UPDATED,
+                        original, updated);
+            } catch (RuntimeException e) {
+                publish(DeploymentEvent.Type.FAILED, null, get());
+                throw e;
             }
-            notifyUpdate(original, updated);
         }
 
         final void delete() {
+            startNanos = System.nanoTime();
             try {
                 V1Status status = deleteResource(get());
                 logDeleted(status);
+                publish(status == null ? DeploymentEvent.Type.NOT_FOUND : DeploymentEvent.Type.DELETED, null, get());
             } catch (JsonSyntaxException e) {
                 if (e.getCause() instanceof IllegalStateException) {
                     IllegalStateException ise = (IllegalStateException) e.getCause();
@@ -114,45 +148,131 @@ public abstract class ResourceManager {
                             "Expected a string but was BEGIN_OBJECT")) {
                         LOGGER.debug("Catching exception because of issue "
                                 + "https://github.com/kubernetes-client/java/issues/86", e);
-                        consoleLogger.println(Messages.KubernetesClientWrapper_deleted(get(), null));
+                        logResult(DeploymentJournal.ACTION_DELETED, null, null);
+                        publish(DeploymentEvent.Type.DELETED, null, get());
                     } else {
+                        publish(DeploymentEvent.Type.FAILED, null, get());
                         throw e;
                     }
                 } else {
+                    publish(DeploymentEvent.Type.FAILED, null, get());
                     throw e;
                 }
+            } catch (RuntimeException e) {
+                publish(DeploymentEvent.Type.FAILED, null, get());
+                throw e;
             }
+        }
 
+        /**
+         * Publish the outcome to the event bus, if anyone subscribes to it.
+         */
+        private void publish(DeploymentEvent.Type type, Object original, Object current) {
+            if (eventBus == null || !eventBus.hasSubscribers()) {
+                return;
+            }
+            String resourceVersion = null;
+            if (type == DeploymentEvent.Type.CREATED || type == DeploymentEvent.Type.UPDATED) {
+                V1ObjectMeta meta = current == null ? null : CommonUtils.getMetadata(current);
+                resourceVersion = meta == null ? null : meta.getResourceVersion();
+            }
+            String namespace = metadata == null ? null : metadata.getNamespace();
+            eventBus.publish(new DeploymentEvent(type, cluster, getKind(), namespace, getName(), resourceVersion,
+                    original, current, System.nanoTime() - startNanos));
         }
 
-        abstract T getCurrentResource();
+        protected abstract T getCurrentResource();
+
+        protected abstract T applyResource(T original, T current);
 
-        abstract T applyResource(T original, T current);
+        protected abstract T createResource(T current);
 
-        abstract T createResource(T current);
+        protected abstract V1Status deleteResource(T current);
 
-        abstract V1Status deleteResource(T current);
+        protected abstract void notifyUpdate(T original, T current);
 
-        abstract void notifyUpdate(T original, T current);
+        /**
+         * Whether the objects returned by the api calls can be printed in the verbose mode.
+         */
+        boolean isPrintable() {
+            return true;
+        }
 
         void logApplied(T res) {
-            getConsoleLogger().println(Messages.KubernetesClientWrapper_applied(res.getClass().getSimpleName(), res));
+            logResult(DeploymentJournal.ACTION_APPLIED, res, res);
         }
 
         void logCreated(T res) {
-            getConsoleLogger().println(Messages.KubernetesClientWrapper_created(res.getClass().getSimpleName(), res));
+            logResult(DeploymentJournal.ACTION_CREATED, res, res);
         }
+
         void logDeleted(V1Status status) {
             if (status != null) {
-                getConsoleLogger().println(
-                        Messages.KubernetesClientWrapper_deleted(get().getClass().getSimpleName(), status));
+                logResult(DeploymentJournal.ACTION_DELETED, null, status);
+            } else {
+                getConsoleLogger().println(Messages.KubernetesClientWrapper_resourceNotFound(getKind(), getName()));
+                notifyResult(DeploymentJournal.ACTION_NOT_FOUND, null);
+            }
+        }
+
+        /**
+         * Print one line for the resource with the action, the resource version and the latency, followed by the
+         * object returned by the api call in the verbose mode.
+         */
+        final void logResult(String action, Object updated, Object detail) {
+            String actionMessage;
+            if (DeploymentJournal.ACTION_CREATED.equals(action)) {
+                actionMessage = Messages.KubernetesClientWrapper_actionCreated();
+            } else if (DeploymentJournal.ACTION_DELETED.equals(action)) {
+                actionMessage = Messages.KubernetesClientWrapper_actionDeleted();
             } else {
-                getConsoleLogger().println(
-                        Messages.KubernetesClientWrapper_resourceNotFound(get().getClass().getSimpleName(), getName()));
+                actionMessage = Messages.KubernetesClientWrapper_actionApplied();
+            }
+            String resourceVersion = null;
+            if (updated != null) {
+                V1ObjectMeta meta = CommonUtils.getMetadata(updated);
+                resourceVersion = meta == null ? null : meta.getResourceVersion();
+            }
+            // the cluster scoped resources have no namespace
+            String qualifiedName = metadata == null || metadata.getNamespace() == null
+                    ? getName() : metadata.getNamespace() + "/" + getName();
+            getConsoleLogger().println(Messages.KubernetesClientWrapper_resourceResult(
+                    actionMessage, getKind(), qualifiedName, StringUtils.defaultString(resourceVersion, "-"),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+            if (verbose && detail != null && isPrintable()) {
+                getConsoleLogger().println(detail);
+            }
+            notifyResult(action, resourceVersion);
+        }
+
+        private void notifyResult(String action, String resourceVersion) {
+            if (resultListener != null) {
+                String namespace = metadata == null ? null : metadata.getNamespace();
+                resultListener.onResult(getKind(), namespace, getName(), action, resourceVersion);
             }
         }
     }
 
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    public ResourceManager setVerbose(boolean verbose) {
+        this.verbose = verbose;
+        return this;
+    }
+
+    ResourceManager setResultListener(ResultListener resultListener) {
+        this.resultListener = resultListener;
+        return this;
+    }
+
+    ResourceManager setEventBus(DeploymentEventBus bus, String clusterName) {
+        this.eventBus = bus;
+        this.cluster = clusterName;
+        return this;
+    }
+
     public PrintStream getConsoleLogger() {
         return consoleLogger;
     }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import hudson.ExtensionPoint;
+import io.kubernetes.client.openapi.ApiClient;
+
+import java.io.Serializable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Creates the {@link ResourceManager.ResourceUpdater}s of one resource class.
+ * <p>
+ * The built-in kinds are registered in {@link ResourceUpdaterRegistry}. Other plugins can add kinds by annotating a
+ * subclass with {@link hudson.Extension}, together with a {@link ResourceManager} subclass holding the updater. The
+ * extensions are looked up on the controller and sent to the agent running the deployment, so they must be
+ * serializable.
+ *
+ * @param <M> the type of the resource manager
+ * @param <T> the type of the resource
+ */
+public abstract class ResourceUpdaterFactory<M extends ResourceManager, T> implements ExtensionPoint, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Class<M> managerClass;
+    private final Class<T> resourceClass;
+
+    protected ResourceUpdaterFactory(Class<M> managerClass, Class<T> resourceClass) {
+        this.managerClass = checkNotNull(managerClass);
+        this.resourceClass = checkNotNull(resourceClass);
+    }
+
+    public final Class<M> getManagerClass() {
+        return managerClass;
+    }
+
+    public final Class<T> getResourceClass() {
+        return resourceClass;
+    }
+
+    /**
+     * @return the API version of the kind, e.g., {@code example.com/v1}, if the configurations of the kind should be
+     * loaded into {@link #getResourceClass()}, or {@code null} if the class is one of the Kubernetes models
+     */
+    public String getApiVersion() {
+        return null;
+    }
+
+    /**
+     * @return the kind, if {@link #getApiVersion()} is not {@code null}
+     */
+    public String getKind() {
+        return null;
+    }
+
+    /**
+     * Create the resource manager for one resource.
+     *
+     * @param client the API client of the cluster
+     * @return the resource manager
+     */
+    public abstract M createManager(ApiClient client);
+
+    /**
+     * Create the updater of the resource.
+     *
+     * @param manager  the resource manager returned by {@link #createManager(ApiClient)}
+     * @param resource the resource
+     * @return the updater
+     */
+    public abstract ResourceManager.ResourceUpdater<T> createUpdater(M manager, T resource);
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import hudson.ExtensionList;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.models.AppsV1beta1Deployment;
+import io.kubernetes.client.openapi.models.ExtensionsV1beta1Deployment;
+import io.kubernetes.client.openapi.models.ExtensionsV1beta1Ingress;
+import io.kubernetes.client.openapi.models.NetworkingV1beta1Ingress;
+import io.kubernetes.client.openapi.models.V1ClusterRole;
+import io.kubernetes.client.openapi.models.V1ClusterRoleBinding;
+import io.kubernetes.client.openapi.models.V1ConfigMap;
+import io.kubernetes.client.openapi.models.V1DaemonSet;
+import io.kubernetes.client.openapi.models.V1Deployment;
+import io.kubernetes.client.openapi.models.V1HorizontalPodAutoscaler;
+import io.kubernetes.client.openapi.models.V1Job;
+import io.kubernetes.client.openapi.models.V1Namespace;
+import io.kubernetes.client.openapi.models.V1NetworkPolicy;
+import io.kubernetes.client.openapi.models.V1PersistentVolume;
+import io.kubernetes.client.openapi.models.V1PersistentVolumeClaim;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1ReplicaSet;
+import io.kubernetes.client.openapi.models.V1ReplicationController;
+import io.kubernetes.client.openapi.models.V1Role;
+import io.kubernetes.client.openapi.models.V1RoleBinding;
+import io.kubernetes.client.openapi.models.V1Secret;
+import io.kubernetes.client.openapi.models.V1Service;
+import io.kubernetes.client.openapi.models.V1ServiceAccount;
+import io.kubernetes.client.openapi.models.V1StatefulSet;
+import io.kubernetes.client.openapi.models.V1beta1CronJob;
+import io.kubernetes.client.openapi.models.V1beta1DaemonSet;
+import io.kubernetes.client.openapi.models.V1beta1ReplicaSet;
+import io.kubernetes.client.openapi.models.V1beta1StatefulSet;
+import io.kubernetes.client.openapi.models.V1beta2DaemonSet;
+import io.kubernetes.client.openapi.models.V1beta2Deployment;
+import io.kubernetes.client.openapi.models.V1beta2ReplicaSet;
+import io.kubernetes.client.openapi.models.V1beta2StatefulSet;
+import io.kubernetes.client.openapi.models.V2alpha1CronJob;
+import io.kubernetes.client.openapi.models.V2beta1HorizontalPodAutoscaler;
+import io.kubernetes.client.openapi.models.V2beta2HorizontalPodAutoscaler;
+import jenkins.model.Jenkins;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link ResourceUpdaterFactory}s of the supported resource classes.
+ * <p>
+ * The built-in kinds are always registered, and the extensions from other plugins are added with
+ * {@link #register(Collection)} before the deployment and released with {@link #unregister(Collection)} after it. Each
+ * resource class is resolved to its factory with a single map lookup, and the updaters are created with direct calls
+ * rather than reflection.
+ */
+public final class ResourceUpdaterRegistry {
+    private static final ConcurrentMap<Class<?>, ResourceUpdaterFactory<?, ?>> FACTORIES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Class<?>> EXTENSION_KINDS = new ConcurrentHashMap<>();
+    // the number of running deployments which registered each extension class, guarded by the class lock
+    private static final Map<Class<?>, Integer> EXTENSION_USERS = new HashMap<>();
+
+    static {
+        register(new RawFactory<RawResource>(RawResource.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<RawResource> createUpdater(
+                    RawResourceManager manager, RawResource resource) {
+                return manager.new RawResourceUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1Namespace>(V1Namespace.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1Namespace> createUpdater(
+                    V1ResourceManager manager, V1Namespace resource) {
+                return manager.new NamespaceUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1Deployment>(V1Deployment.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1Deployment> createUpdater(
+                    V1ResourceManager manager, V1Deployment resource) {
+                return manager.new DeploymentUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1Service>(V1Service.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1Service> createUpdater(
+                    V1ResourceManager manager, V1Service resource) {
+                return manager.new ServiceUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1ReplicationController>(V1ReplicationController.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1ReplicationController> createUpdater(
+                    V1ResourceManager manager, V1ReplicationController resource) {
+                return manager.new ReplicationControllerUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1DaemonSet>(V1DaemonSet.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1DaemonSet> createUpdater(
+                    V1ResourceManager manager, V1DaemonSet resource) {
+                return manager.new DaemonSetUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1Job>(V1Job.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1Job> createUpdater(V1ResourceManager manager, V1Job resource) {
+                return manager.new JobUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1Pod>(V1Pod.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1Pod> createUpdater(V1ResourceManager manager, V1Pod resource) {
+                return manager.new PodUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1HorizontalPodAutoscaler>(V1HorizontalPodAutoscaler.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1HorizontalPodAutoscaler> createUpdater(
+                    V1ResourceManager manager, V1HorizontalPodAutoscaler resource) {
+                return manager.new HorizontalPodAutoscalerUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1Secret>(V1Secret.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1Secret> createUpdater(
+                    V1ResourceManager manager, V1Secret resource) {
+                return manager.new SecretUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1ConfigMap>(V1ConfigMap.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1ConfigMap> createUpdater(
+                    V1ResourceManager manager, V1ConfigMap resource) {
+                return manager.new ConfigMapUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1ReplicaSet>(V1ReplicaSet.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1ReplicaSet> createUpdater(
+                    V1ResourceManager manager, V1ReplicaSet resource) {
+                return manager.new ReplicaSetUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1StatefulSet>(V1StatefulSet.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1StatefulSet> createUpdater(
+                    V1ResourceManager manager, V1StatefulSet resource) {
+                return manager.new StatefulSetUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1PersistentVolumeClaim>(V1PersistentVolumeClaim.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1PersistentVolumeClaim> createUpdater(
+                    V1ResourceManager manager, V1PersistentVolumeClaim resource) {
+                return manager.new PersistentVolumeClaimUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1PersistentVolume>(V1PersistentVolume.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1PersistentVolume> createUpdater(
+                    V1ResourceManager manager, V1PersistentVolume resource) {
+                return manager.new PersistentVolumeUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1NetworkPolicy>(V1NetworkPolicy.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1NetworkPolicy> createUpdater(
+                    V1ResourceManager manager, V1NetworkPolicy resource) {
+                return manager.new NetworkPolicyUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1Role>(V1Role.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1Role> createUpdater(V1ResourceManager manager, V1Role resource) {
+                return manager.new RoleUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1RoleBinding>(V1RoleBinding.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1RoleBinding> createUpdater(
+                    V1ResourceManager manager, V1RoleBinding resource) {
+                return manager.new RoleBindingUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1ServiceAccount>(V1ServiceAccount.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1ServiceAccount> createUpdater(
+                    V1ResourceManager manager, V1ServiceAccount resource) {
+                return manager.new ServiceAccountUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1ClusterRole>(V1ClusterRole.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1ClusterRole> createUpdater(
+                    V1ResourceManager manager, V1ClusterRole resource) {
+                return manager.new ClusterRoleUpdater(resource);
+            }
+        });
+        register(new V1Factory<V1ClusterRoleBinding>(V1ClusterRoleBinding.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1ClusterRoleBinding> createUpdater(
+                    V1ResourceManager manager, V1ClusterRoleBinding resource) {
+                return manager.new ClusterRoleBindingUpdater(resource);
+            }
+        });
+        register(new V1beta1Factory<ExtensionsV1beta1Ingress>(ExtensionsV1beta1Ingress.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<ExtensionsV1beta1Ingress> createUpdater(
+                    V1beta1ResourceManager manager, ExtensionsV1beta1Ingress resource) {
+                return manager.new ExtensionsIngressUpdater(resource);
+            }
+        });
+        register(new V1beta1Factory<NetworkingV1beta1Ingress>(NetworkingV1beta1Ingress.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<NetworkingV1beta1Ingress> createUpdater(
+                    V1beta1ResourceManager manager, NetworkingV1beta1Ingress resource) {
+                return manager.new NetworkingIngressUpdater(resource);
+            }
+        });
+        register(new V1beta1Factory<V1beta1DaemonSet>(V1beta1DaemonSet.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1beta1DaemonSet> createUpdater(
+                    V1beta1ResourceManager manager, V1beta1DaemonSet resource) {
+                return manager.new DaemonSetUpdater(resource);
+            }
+        });
+        register(new V1beta1Factory<V1beta1ReplicaSet>(V1beta1ReplicaSet.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1beta1ReplicaSet> createUpdater(
+                    V1beta1ResourceManager manager, V1beta1ReplicaSet resource) {
+                return manager.new ReplicaSetUpdater(resource);
+            }
+        });
+        register(new V1beta1Factory<V1beta1StatefulSet>(V1beta1StatefulSet.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1beta1StatefulSet> createUpdater(
+                    V1beta1ResourceManager manager, V1beta1StatefulSet resource) {
+                return manager.new StatefulSetUpdater(resource);
+            }
+        });
+        register(new V1beta1Factory<V1beta1CronJob>(V1beta1CronJob.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1beta1CronJob> createUpdater(
+                    V1beta1ResourceManager manager, V1beta1CronJob resource) {
+                return manager.new CronJobUpdater(resource);
+            }
+        });
+        register(new V1beta1Factory<ExtensionsV1beta1Deployment>(ExtensionsV1beta1Deployment.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<ExtensionsV1beta1Deployment> createUpdater(
+                    V1beta1ResourceManager manager, ExtensionsV1beta1Deployment resource) {
+                return manager.new ExtensionsDeploymentUpdater(resource);
+            }
+        });
+        register(new V1beta1Factory<AppsV1beta1Deployment>(AppsV1beta1Deployment.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<AppsV1beta1Deployment> createUpdater(
+                    V1beta1ResourceManager manager, AppsV1beta1Deployment resource) {
+                return manager.new AppsDeploymentUpdater(resource);
+            }
+        });
+        register(new V1beta2Factory<V1beta2Deployment>(V1beta2Deployment.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1beta2Deployment> createUpdater(
+                    V1beta2ResourceManager manager, V1beta2Deployment resource) {
+                return manager.new DeploymentUpdater(resource);
+            }
+        });
+        register(new V1beta2Factory<V1beta2DaemonSet>(V1beta2DaemonSet.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1beta2DaemonSet> createUpdater(
+                    V1beta2ResourceManager manager, V1beta2DaemonSet resource) {
+                return manager.new DaemonSetUpdater(resource);
+            }
+        });
+        register(new V1beta2Factory<V1beta2ReplicaSet>(V1beta2ReplicaSet.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1beta2ReplicaSet> createUpdater(
+                    V1beta2ResourceManager manager, V1beta2ReplicaSet resource) {
+                return manager.new ReplicaSetUpdater(resource);
+            }
+        });
+        register(new V1beta2Factory<V1beta2StatefulSet>(V1beta2StatefulSet.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V1beta2StatefulSet> createUpdater(
+                    V1beta2ResourceManager manager, V1beta2StatefulSet resource) {
+                return manager.new StatefulSetUpdater(resource);
+            }
+        });
+        register(new V2beta1Factory<V2beta1HorizontalPodAutoscaler>(V2beta1HorizontalPodAutoscaler.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V2beta1HorizontalPodAutoscaler> createUpdater(
+                    V2beta1ResourceManager manager, V2beta1HorizontalPodAutoscaler resource) {
+                return manager.new HorizontalPodAutoscalerUpdater(resource);
+            }
+        });
+        register(new V2beta2Factory<V2beta2HorizontalPodAutoscaler>(V2beta2HorizontalPodAutoscaler.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V2beta2HorizontalPodAutoscaler> createUpdater(
+                    V2beta2ResourceManager manager, V2beta2HorizontalPodAutoscaler resource) {
+                return manager.new HorizontalPodAutoscalerUpdater(resource);
+            }
+        });
+        register(new V2alpha1Factory<V2alpha1CronJob>(V2alpha1CronJob.class) {
+            @Override
+            public ResourceManager.ResourceUpdater<V2alpha1CronJob> createUpdater(
+                    V2alpha1ResourceManager manager, V2alpha1CronJob resource) {
+                return manager.new CronJobUpdater(resource);
+            }
+        });
+    }
+
+    private ResourceUpdaterRegistry() {
+        // hide constructor
+    }
+
+    private static void register(ResourceUpdaterFactory<?, ?> factory) {
+        FACTORIES.putIfAbsent(factory.getResourceClass(), factory);
+    }
+
+    /**
+     * @return the factories contributed by other plugins, or an empty list if not running on the controller
+     */
+    @SuppressWarnings("rawtypes")
+    public static List<ResourceUpdaterFactory<?, ?>> getExtensions() {
+        if (Jenkins.getInstanceOrNull() == null) {
+            return Collections.emptyList();
+        }
+        List<ResourceUpdaterFactory<?, ?>> result = new ArrayList<>();
+        for (ResourceUpdaterFactory factory : ExtensionList.lookup(ResourceUpdaterFactory.class)) {
+            result.add(factory);
+        }
+        return result;
+    }
+
+    /**
+     * Add the factories contributed by other plugins for a deployment. The built-in kinds cannot be replaced.
+     * <p>
+     * The registry is shared by the deployments running in the JVM, so each call must be paired with a call of
+     * {@link #unregister(Collection)} when the deployment ends.
+     *
+     * @param factories the factories from {@link #getExtensions()}
+     */
+    public static synchronized void register(Collection<? extends ResourceUpdaterFactory<?, ?>> factories) {
+        for (ResourceUpdaterFactory<?, ?> factory : factories) {
+            Class<?> resourceClass = factory.getResourceClass();
+            if (FACTORIES.putIfAbsent(resourceClass, factory) == null) {
+                EXTENSION_USERS.put(resourceClass, 1);
+                if (factory.getApiVersion() != null && factory.getKind() != null) {
+                    EXTENSION_KINDS.putIfAbsent(factory.getApiVersion() + "/" + factory.getKind(), resourceClass);
+                }
+            } else if (EXTENSION_USERS.containsKey(resourceClass)) {
+                EXTENSION_USERS.put(resourceClass, EXTENSION_USERS.get(resourceClass) + 1);
+            }
+        }
+    }
+
+    /**
+     * Release the factories added with {@link #register(Collection)}. An extension class is removed once no running
+     * deployment registered it. The built-in kinds are kept.
+     *
+     * @param factories the factories passed to {@link #register(Collection)}
+     */
+    public static synchronized void unregister(Collection<? extends ResourceUpdaterFactory<?, ?>> factories) {
+        for (ResourceUpdaterFactory<?, ?> factory : factories) {
+            Class<?> resourceClass = factory.getResourceClass();
+            Integer users = EXTENSION_USERS.get(resourceClass);
+            if (users == null) {
+                continue;
+            }
+            if (users > 1) {
+                EXTENSION_USERS.put(resourceClass, users - 1);
+            } else {
+                EXTENSION_USERS.remove(resourceClass);
+                FACTORIES.remove(resourceClass);
+                EXTENSION_KINDS.values().removeAll(Collections.singleton(resourceClass));
+            }
+        }
+    }
+
+    /**
+     * @return whether the resources of the class can be handled by an updater
+     */
+    public static boolean isSupported(Class<?> resourceClass) {
+        return FACTORIES.containsKey(resourceClass);
+    }
+
+    /**
+     * @return the resource class registered by an extension for the kind, or {@code null} if there's none
+     */
+    static Class<?> getExtensionClass(String apiVersion, String kind) {
+        return EXTENSION_KINDS.get(apiVersion + "/" + kind);
+    }
+
+    /**
+     * Create the updater of the resource, with the resource manager prepared by the given callback.
+     *
+     * @param client   the API client of the cluster
+     * @param resource the resource
+     * @param setup    prepares the resource manager, e.g., its logger
+     * @return the updater, or {@code null} if the resource class is not supported
+     */
+    static ResourceManager.ResourceUpdater<?> createUpdater(ApiClient client, Object resource, ManagerSetup setup) {
+        ResourceUpdaterFactory<?, ?> factory = FACTORIES.get(resource.getClass());
+        return factory == null ? null : createUpdater(factory, client, resource, setup);
+    }
+
+    private static <M extends ResourceManager, T> ResourceManager.ResourceUpdater<T> createUpdater(
+            ResourceUpdaterFactory<M, T> factory, ApiClient client, Object resource, ManagerSetup setup) {
+        M manager = factory.createManager(client);
+        setup.setup(manager);
+        return factory.createUpdater(manager, factory.getResourceClass().cast(resource));
+    }
+
+    /**
+     * Prepares the resource manager before the updater is created.
+     */
+    interface ManagerSetup {
+        void setup(ResourceManager manager);
+    }
+
+    private abstract static class RawFactory<T> extends ResourceUpdaterFactory<RawResourceManager, T> {
+        private static final long serialVersionUID = 1L;
+
+        RawFactory(Class<T> resourceClass) {
+            super(RawResourceManager.class, resourceClass);
+        }
+
+        @Override
+        public RawResourceManager createManager(ApiClient client) {
+            return new RawResourceManager(client);
+        }
+    }
+
+    private abstract static class V1Factory<T> extends ResourceUpdaterFactory<V1ResourceManager, T> {
+        private static final long serialVersionUID = 1L;
+
+        V1Factory(Class<T> resourceClass) {
+            super(V1ResourceManager.class, resourceClass);
+        }
+
+        @Override
+        public V1ResourceManager createManager(ApiClient client) {
+            return new V1ResourceManager(client);
+        }
+    }
+
+    private abstract static class V1beta1Factory<T> extends ResourceUpdaterFactory<V1beta1ResourceManager, T> {
+        private static final long serialVersionUID = 1L;
+
+        V1beta1Factory(Class<T> resourceClass) {
+            super(V1beta1ResourceManager.class, resourceClass);
+        }
+
+        @Override
+        public V1beta1ResourceManager createManager(ApiClient client) {
+            return new V1beta1ResourceManager(client);
+        }
+    }
+
+    private abstract static class V1beta2Factory<T> extends ResourceUpdaterFactory<V1beta2ResourceManager, T> {
+        private static final long serialVersionUID = 1L;
+
+        V1beta2Factory(Class<T> resourceClass) {
+            super(V1beta2ResourceManager.class, resourceClass);
+        }
+
+        @Override
+        public V1beta2ResourceManager createManager(ApiClient client) {
+            return new V1beta2ResourceManager(client);
+        }
+    }
+
+    private abstract static class V2beta1Factory<T> extends ResourceUpdaterFactory<V2beta1ResourceManager, T> {
+        private static final long serialVersionUID = 1L;
+
+        V2beta1Factory(Class<T> resourceClass) {
+            super(V2beta1ResourceManager.class, resourceClass);
+        }
+
+        @Override
+        public V2beta1ResourceManager createManager(ApiClient client) {
+            return new V2beta1ResourceManager(client);
+        }
+    }
+
+    private abstract static class V2beta2Factory<T> extends ResourceUpdaterFactory<V2beta2ResourceManager, T> {
+        private static final long serialVersionUID = 1L;
+
+        V2beta2Factory(Class<T> resourceClass) {
+            super(V2beta2ResourceManager.class, resourceClass);
+        }
+
+        @Override
+        public V2beta2ResourceManager createManager(ApiClient client) {
+            return new V2beta2ResourceManager(client);
+        }
+    }
+
+    private abstract static class V2alpha1Factory<T> extends ResourceUpdaterFactory<V2alpha1ResourceManager, T> {
+        private static final long serialVersionUID = 1L;
+
+        V2alpha1Factory(Class<T> resourceClass) {
+            super(V2alpha1ResourceManager.class, resourceClass);
+        }
+
+        @Override
+        public V2alpha1ResourceManager createManager(ApiClient client) {
+            return new V2alpha1ResourceManager(client);
+        }
+    }
+}
@@ -6,10 +6,18 @@
 
 package com.microsoft.jenkins.kubernetes.wrapper;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.microsoft.jenkins.kubernetes.util.CommonUtils;
 import com.microsoft.jenkins.kubernetes.util.Constants;
 import com.microsoft.jenkins.kubernetes.util.KubernetesJsonUtils;
+import com.microsoft.jenkins.kubernetes.util.ModelCopier;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.JSON;
+import io.kubernetes.client.openapi.Pair;
 import io.kubernetes.client.openapi.apis.AppsV1Api;
 import io.kubernetes.client.openapi.apis.AutoscalingV1Api;
 import io.kubernetes.client.openapi.apis.BatchV1Api;
@@ -25,6 +33,7 @@ import io.kubernetes.client.openapi.models.V1HorizontalPodAutoscaler;
 import io.kubernetes.client.openapi.models.V1Job;
 import io.kubernetes.client.openapi.models.V1Namespace;
 import io.kubernetes.client.openapi.models.V1NetworkPolicy;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
 import io.kubernetes.client.openapi.models.V1PersistentVolume;
 import io.kubernetes.client.openapi.models.V1PersistentVolumeClaim;
 import io.kubernetes.client.openapi.models.V1Pod;
@@ -39,12 +48,24 @@ import io.kubernetes.client.openapi.models.V1ServiceAccount;
 import io.kubernetes.client.openapi.models.V1ServicePort;
 import io.kubernetes.client.openapi.models.V1StatefulSet;
 import io.kubernetes.client.openapi.models.V1Status;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
-
+import org.apache.http.HttpStatus;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.X509KeyManager;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.microsoft.jenkins.kubernetes.util.Constants.DRY_RUN_ALL;
@@ -62,9 +83,53 @@ public class V1ResourceManager extends ResourceManager {
 
     private V1ResourceUpdateMonitor resourceUpdateMonitor = V1ResourceUpdateMonitor.NOOP;
 
+    private static final long DRY_RUN_CACHE_SIZE = 256L;
+    private static final long DRY_RUN_CACHE_TTL_MINUTES = 60L;
+
+    /**
+     * Results of the server dry-run creations, keyed by the cluster, the credentials, the kind, the namespace, the
+     * name and the hash of the desired object. The credentials are part of the key because the admission of the
+     * cluster may default the objects differently for each user. The callers get copies, because they modify the
+     * returned objects.
+     */
+    private static final Cache<List<Object>, Object> DRY_RUN_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(DRY_RUN_CACHE_SIZE)
+            .expireAfterWrite(DRY_RUN_CACHE_TTL_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    private final ApiClient client;
+    private final String cluster;
+    private String credentials;
+    /**
+     * Key of the last dry-run result served from the cache, or {@code null} if it was a fresh dry-run.
+     */
+    private List<Object> cachedDryRunKey;
+
+    /**
+     * Creates the server dry-run request object.
+     *
+     * @param <T> the model type
+     */
+    interface DryRunCall<T> {
+        T create(T dryRunReq) throws ApiException;
+    }
+
+    /**
+     * Builds the object to be put from the dry-run result, and puts it.
+     *
+     * @param <T> the model type
+     */
+    interface PutCall<T> {
+        T build();
+
+        T replace(T putObject) throws ApiException;
+    }
+
     public V1ResourceManager(ApiClient client) {
         super(true);
         checkNotNull(client);
+        this.client = client;
+        cluster = client.getBasePath();
 
         coreV1ApiInstance = new CoreV1Api(client);
         appsV1ApiInstance = new AppsV1Api(client);
@@ -77,6 +142,8 @@ public class V1ResourceManager extends ResourceManager {
     public V1ResourceManager(ApiClient client, boolean pretty) {
         super(pretty);
         checkNotNull(client);
+        this.client = client;
+        cluster = client.getBasePath();
 
         coreV1ApiInstance = new CoreV1Api(client);
         appsV1ApiInstance = new AppsV1Api(client);
@@ -86,6 +153,141 @@ public class V1ResourceManager extends ResourceManager {
         rbacV1Api = new RbacAuthorizationV1Api(client);
     }
 
+    /**
+     * Create the object with server dry-run to get it populated with the default values, or reuse the result of an
+     * earlier dry-run of the same desired object in the same cluster with the same credentials.
+     *
+     * @param current   the desired object, which is not modified
+     * @param type      the model type
+     * @param namespace the namespace of the object
+     * @param name      the name of the object
+     * @param call      creates the dry-run request object, which has a generated name
+     * @param <T>       the model type
+     * @return the defaulted object, owned by the caller
+     * @throws ApiException if the dry-run creation failed
+     */
+    <T> T dryRun(T current, Class<T> type, String namespace, String name, DryRunCall<T> call)
+            throws ApiException {
+        List<Object> key = dryRunKey(current, type, namespace, name);
+        Object cached = DRY_RUN_CACHE.getIfPresent(key);
+        cachedDryRunKey = cached == null ? null : key;
+        if (cached != null) {
+            return ModelCopier.copy(type.cast(cached));
+        }
+
+        // Build dryRun Request Object from a copy, to avoid modifications to the original object.
+        T dryRunReq = ModelCopier.copy(current);
+        V1ObjectMeta metadata = CommonUtils.getMetadata(dryRunReq);
+        metadata.setName(null);
+        metadata.setGenerateName(name);
+        metadata.setNamespace(namespace);
+        T dryRunRes = call.create(dryRunReq);
+        if (dryRunRes == null) {
+            return null;
+        }
+        DRY_RUN_CACHE.put(key, ModelCopier.copy(dryRunRes));
+        return dryRunRes;
+    }
+
+    private List<Object> dryRunKey(Object current, Class<?> type, String namespace, String name) {
+        if (credentials == null) {
+            credentials = credentialsOf(client);
+        }
+        JSON json = KubernetesJsonUtils.getKubernetesJson();
+        String desired = json.serialize(current);
+        return Arrays.<Object>asList(cluster, credentials, type.getName(), namespace, name,
+                Hashing.sha256().hashString(desired, StandardCharsets.UTF_8).toString());
+    }
+
+    /**
+     * Fingerprint the credentials the client authenticates with: the authentication headers, the client certificates
+     * and the exec credential plugin.
+     */
+    private static String credentialsOf(ApiClient client) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        Map<String, String> headers = new TreeMap<>();
+        client.updateParamsForAuth(client.getAuthentications().keySet().toArray(new String[0]),
+                new ArrayList<Pair>(), headers, new HashMap<String, String>());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            putString(hasher, header.getKey());
+            putString(hasher, header.getValue());
+        }
+        KeyManager[] keyManagers = client.getKeyManagers();
+        if (keyManagers != null) {
+            for (KeyManager keyManager : keyManagers) {
+                if (keyManager instanceof X509KeyManager) {
+                    putCertificates(hasher, (X509KeyManager) keyManager);
+                }
+            }
+        }
+        OkHttpClient httpClient = client.getHttpClient();
+        String tls = ClientCertificateTlsCache.fingerprintOf(httpClient.sslSocketFactory());
+        if (tls != null) {
+            putString(hasher, tls);
+        }
+        for (Interceptor interceptor : httpClient.interceptors()) {
+            if (interceptor instanceof ExecCredentialTokenCache.TokenInterceptor) {
+                putString(hasher, ((ExecCredentialTokenCache.TokenInterceptor) interceptor).getConfig().fingerprint());
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void putCertificates(Hasher hasher, X509KeyManager keyManager) {
+        for (String keyType : new String[]{"RSA", "EC"}) {
+            String[] aliases = keyManager.getClientAliases(keyType, null);
+            if (aliases == null) {
+                continue;
+            }
+            for (String alias : aliases) {
+                X509Certificate[] chain = keyManager.getCertificateChain(alias);
+                if (chain == null || chain.length == 0) {
+                    continue;
+                }
+                try {
+                    hasher.putBytes(chain[0].getEncoded());
+                } catch (CertificateEncodingException e) {
+                    putString(hasher, chain[0].getSubjectX500Principal().getName());
+                }
+            }
+        }
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        // length prefixed, so that the boundaries between the values are part of the fingerprint
+        hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Put the object built from the dry-run result. If the put is rejected with 409 or 422 while the dry-run result
+     * came from the cache, the cached result may be stale, e.g., the cluster was upgraded or its admission changed. The
+     * entry is dropped, and the put is retried once with a fresh dry-run.
+     *
+     * @param call builds the object to be put with {@link #dryRun}, and puts it
+     * @param <T>  the model type
+     * @return the object returned by the put
+     * @throws ApiException if the put failed
+     */
+    <T> T replaceWithDryRun(PutCall<T> call) throws ApiException {
+        cachedDryRunKey = null;
+        T putObject = call.build();
+        List<Object> key = cachedDryRunKey;
+        try {
+            return call.replace(putObject);
+        } catch (ApiException e) {
+            if (key == null
+                    || (e.getCode() != HttpStatus.SC_CONFLICT && e.getCode() != HttpStatus.SC_UNPROCESSABLE_ENTITY)) {
+                throw e;
+            }
+            DRY_RUN_CACHE.invalidate(key);
+            return call.replace(call.build());
+        }
+    }
+
+    static void invalidateDryRunCache() {
+        DRY_RUN_CACHE.invalidateAll();
+    }
+
     /**
      * In the case of different image names, the default imagePullPolicy will be different.
      * E.g. Nginx => Always   Nginx:1.79 => IfNotPresent
@@ -145,7 +347,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ReplicaSet getCurrentResource() {
+        protected V1ReplicaSet getCurrentResource() {
             V1ReplicaSet replicaSet = null;
             try {
                 replicaSet = appsV1ApiInstance.readNamespacedReplicaSet(getName(), getNamespace(), getPretty(),
@@ -157,7 +359,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ReplicaSet applyResource(V1ReplicaSet original, V1ReplicaSet current) {
+        protected V1ReplicaSet applyResource(V1ReplicaSet original, V1ReplicaSet current) {
             V1ReplicaSet replicaSet = null;
             try {
                 replicaSet = appsV1ApiInstance.replaceNamespacedReplicaSet(getName(), getNamespace(), current,
@@ -169,7 +371,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ReplicaSet createResource(V1ReplicaSet current) {
+        protected V1ReplicaSet createResource(V1ReplicaSet current) {
             V1ReplicaSet replicaSet = null;
             try {
                 replicaSet = appsV1ApiInstance.createNamespacedReplicaSet(
@@ -181,7 +383,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1ReplicaSet current) {
+        protected V1Status deleteResource(V1ReplicaSet current) {
             V1Status result = null;
             try {
                 result = appsV1ApiInstance.deleteNamespacedReplicaSet(
@@ -193,7 +395,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1ReplicaSet original, V1ReplicaSet current) {
+        protected void notifyUpdate(V1ReplicaSet original, V1ReplicaSet current) {
             resourceUpdateMonitor.onReplicaSetUpdate(original, current);
         }
     }
@@ -204,7 +406,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Deployment getCurrentResource() {
+        protected V1Deployment getCurrentResource() {
             V1Deployment deployment = null;
             try {
                 deployment = appsV1ApiInstance.readNamespacedDeployment(getName(), getNamespace(), getPretty(),
@@ -216,7 +418,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Deployment applyResource(V1Deployment original, V1Deployment current) {
+        protected V1Deployment applyResource(V1Deployment original, V1Deployment current) {
             V1Deployment deployment = null;
             try {
                 deployment = appsV1ApiInstance.replaceNamespacedDeployment(getName(), getNamespace(), current,
@@ -228,7 +430,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Deployment createResource(V1Deployment current) {
+        protected V1Deployment createResource(V1Deployment current) {
             V1Deployment deployment = null;
             try {
                 deployment = appsV1ApiInstance.createNamespacedDeployment(
@@ -240,7 +442,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1Deployment current) {
+        protected V1Status deleteResource(V1Deployment current) {
             V1Status result = null;
             try {
                 result = appsV1ApiInstance.deleteNamespacedDeployment(
@@ -253,7 +455,7 @@ public class V1ResourceManager extends ResourceManager {
 
 
         @Override
-        void notifyUpdate(V1Deployment original, V1Deployment current) {
+        protected void notifyUpdate(V1Deployment original, V1Deployment current) {
             resourceUpdateMonitor.onDeploymentUpdate(original, current);
         }
     }
@@ -264,7 +466,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1DaemonSet getCurrentResource() {
+        protected V1DaemonSet getCurrentResource() {
             V1DaemonSet daemonSet = null;
             try {
                 daemonSet = appsV1ApiInstance.readNamespacedDaemonSet(getName(), getNamespace(), getPretty(),
@@ -276,7 +478,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1DaemonSet applyResource(V1DaemonSet original, V1DaemonSet current) {
+        protected V1DaemonSet applyResource(V1DaemonSet original, V1DaemonSet current) {
             V1DaemonSet daemonSet = null;
             try {
                 daemonSet = appsV1ApiInstance.replaceNamespacedDaemonSet(getName(), getNamespace(), current,
@@ -288,7 +490,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1DaemonSet createResource(V1DaemonSet current) {
+        protected V1DaemonSet createResource(V1DaemonSet current) {
             V1DaemonSet daemonSet = null;
             try {
                 daemonSet = appsV1ApiInstance.createNamespacedDaemonSet(
@@ -300,7 +502,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1DaemonSet current) {
+        protected V1Status deleteResource(V1DaemonSet current) {
             V1Status result = null;
             try {
                 result = appsV1ApiInstance.deleteNamespacedDaemonSet(
@@ -312,7 +514,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1DaemonSet original, V1DaemonSet current) {
+        protected void notifyUpdate(V1DaemonSet original, V1DaemonSet current) {
             resourceUpdateMonitor.onDaemonSetUpdate(original, current);
         }
     }
@@ -323,7 +525,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ReplicationController getCurrentResource() {
+        protected V1ReplicationController getCurrentResource() {
             V1ReplicationController replicationController = null;
             try {
                 replicationController = coreV1ApiInstance.readNamespacedReplicationController(getName(),
@@ -335,7 +537,8 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ReplicationController applyResource(V1ReplicationController original, V1ReplicationController current) {
+        protected V1ReplicationController applyResource(V1ReplicationController original,
+                                                        V1ReplicationController current) {
             V1ReplicationController replicationController = null;
             try {
                 replicationController = coreV1ApiInstance.replaceNamespacedReplicationController(getName(),
@@ -347,7 +550,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ReplicationController createResource(V1ReplicationController current) {
+        protected V1ReplicationController createResource(V1ReplicationController current) {
             V1ReplicationController replicationController = null;
             try {
                 replicationController = coreV1ApiInstance.createNamespacedReplicationController(getNamespace(),
@@ -359,7 +562,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1ReplicationController current) {
+        protected V1Status deleteResource(V1ReplicationController current) {
             V1Status result = null;
             try {
                 result = coreV1ApiInstance.deleteNamespacedReplicationController(
@@ -371,7 +574,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1ReplicationController original, V1ReplicationController current) {
+        protected void notifyUpdate(V1ReplicationController original, V1ReplicationController current) {
             resourceUpdateMonitor.onReplicationControllerUpdate(original, current);
         }
     }
@@ -382,7 +585,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Service getCurrentResource() {
+        protected V1Service getCurrentResource() {
             V1Service service = null;
             try {
                 service = coreV1ApiInstance.readNamespacedService(getName(), getNamespace(), getPretty(),
@@ -394,7 +597,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Service applyResource(V1Service original, V1Service current) {
+        protected V1Service applyResource(V1Service original, V1Service current) {
             List<V1ServicePort> originalPorts = original.getSpec().getPorts();
             List<V1ServicePort> currentPorts = current.getSpec().getPorts();
             // Pin the nodePort to the public port
@@ -452,7 +655,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Service createResource(V1Service current) {
+        protected V1Service createResource(V1Service current) {
             V1Service service = null;
             try {
                 service = coreV1ApiInstance.createNamespacedService(
@@ -464,7 +667,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1Service current) {
+        protected V1Status deleteResource(V1Service current) {
             V1Status result = null;
             try {
                 result = coreV1ApiInstance.deleteNamespacedService(
@@ -476,7 +679,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1Service original, V1Service current) {
+        protected void notifyUpdate(V1Service original, V1Service current) {
             resourceUpdateMonitor.onServiceUpdate(original, current);
         }
     }
@@ -487,7 +690,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Job getCurrentResource() {
+        protected V1Job getCurrentResource() {
             V1Job job = null;
             try {
                 job = batchV1ApiInstance.readNamespacedJob(getName(), getNamespace(), getPretty(), true, true);
@@ -498,12 +701,21 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Job applyResource(V1Job original, V1Job current) {
+        protected V1Job applyResource(final V1Job original, final V1Job current) {
             V1Job job = null;
-            V1Job putJob = getPutObject(original, current);
             try {
-                job = batchV1ApiInstance.replaceNamespacedJob(
-                        getName(), getNamespace(), putJob, getPretty(), null, null);
+                job = replaceWithDryRun(new PutCall<V1Job>() {
+                    @Override
+                    public V1Job build() {
+                        return getPutObject(original, current);
+                    }
+
+                    @Override
+                    public V1Job replace(V1Job putJob) throws ApiException {
+                        return batchV1ApiInstance.replaceNamespacedJob(
+                                getName(), getNamespace(), putJob, getPretty(), null, null);
+                    }
+                });
             } catch (ApiException e) {
                 handleApiException(e);
             }
@@ -523,17 +735,15 @@ public class V1ResourceManager extends ResourceManager {
          * @return Job With Default Value
          */
         V1Job getPutObject(V1Job original, V1Job current) {
-            // Clone Object to avoid modifications to the original object.
-            V1Job dryRunReq = KubernetesJsonUtils.getKubernetesJson().deserialize(
-                    KubernetesJsonUtils.getKubernetesJson().serialize(current), V1Job.class);
-            // Build dryRun Request Object
             V1Job dryRunRes = null;
-            dryRunReq.getMetadata().setName(null);
-            dryRunReq.getMetadata().setGenerateName(getName());
-            dryRunReq.getMetadata().setNamespace(getNamespace());
             try {
-                dryRunRes = batchV1ApiInstance.createNamespacedJob(dryRunReq.getMetadata().getNamespace(),
-                        dryRunReq,  getPretty(), DRY_RUN_ALL, null);
+                dryRunRes = dryRun(current, V1Job.class, getNamespace(), getName(), new DryRunCall<V1Job>() {
+                    @Override
+                    public V1Job create(V1Job dryRunReq) throws ApiException {
+                        return batchV1ApiInstance.createNamespacedJob(dryRunReq.getMetadata().getNamespace(),
+                                dryRunReq, getPretty(), DRY_RUN_ALL, null);
+                    }
+                });
             } catch (ApiException e) {
                 handleApiException(e);
             }
@@ -570,7 +780,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Job createResource(V1Job current) {
+        protected V1Job createResource(V1Job current) {
             V1Job job = null;
             try {
                 job = batchV1ApiInstance.createNamespacedJob(
@@ -582,7 +792,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1Job current) {
+        protected V1Status deleteResource(V1Job current) {
             V1Status result = null;
             try {
                 result = batchV1ApiInstance.deleteNamespacedJob(
@@ -594,7 +804,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1Job original, V1Job current) {
+        protected void notifyUpdate(V1Job original, V1Job current) {
             resourceUpdateMonitor.onJobUpdate(original, current);
         }
     }
@@ -605,7 +815,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Pod getCurrentResource() {
+        protected V1Pod getCurrentResource() {
             V1Pod pod = null;
             try {
                 pod = coreV1ApiInstance.readNamespacedPod(getName(), getNamespace(), getPretty(), true, true);
@@ -616,12 +826,21 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Pod applyResource(V1Pod original, V1Pod current) {
+        protected V1Pod applyResource(final V1Pod original, final V1Pod current) {
             V1Pod pod = null;
-            V1Pod putPod = getPutObject(original, current);
             try {
-                pod = coreV1ApiInstance.replaceNamespacedPod(
-                        getName(), getNamespace(), putPod, getPretty(), null, null);
+                pod = replaceWithDryRun(new PutCall<V1Pod>() {
+                    @Override
+                    public V1Pod build() {
+                        return getPutObject(original, current);
+                    }
+
+                    @Override
+                    public V1Pod replace(V1Pod putPod) throws ApiException {
+                        return coreV1ApiInstance.replaceNamespacedPod(
+                                getName(), getNamespace(), putPod, getPretty(), null, null);
+                    }
+                });
             } catch (ApiException e) {
                 handleApiException(e);
             }
@@ -641,17 +860,15 @@ public class V1ResourceManager extends ResourceManager {
          * @return Pod With Default Value
          */
         V1Pod getPutObject(V1Pod original, V1Pod current) {
-            // Clone Object to avoid modifications to the original object.
-            V1Pod dryRunReq = KubernetesJsonUtils.getKubernetesJson().deserialize(
-                    KubernetesJsonUtils.getKubernetesJson().serialize(current), V1Pod.class);
-            // Build dryRun Request Object
             V1Pod dryRunRes = null;
-            dryRunReq.getMetadata().setName(null);
-            dryRunReq.getMetadata().setGenerateName(getName());
-            dryRunReq.getMetadata().setNamespace(getNamespace());
             try {
-                dryRunRes = coreV1ApiInstance.createNamespacedPod(dryRunReq.getMetadata().getNamespace(),
-                        dryRunReq, getPretty(), DRY_RUN_ALL, null);
+                dryRunRes = dryRun(current, V1Pod.class, getNamespace(), getName(), new DryRunCall<V1Pod>() {
+                    @Override
+                    public V1Pod create(V1Pod dryRunReq) throws ApiException {
+                        return coreV1ApiInstance.createNamespacedPod(dryRunReq.getMetadata().getNamespace(),
+                                dryRunReq, getPretty(), DRY_RUN_ALL, null);
+                    }
+                });
             } catch (ApiException e) {
                 handleApiException(e);
             }
@@ -681,7 +898,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Pod createResource(V1Pod current) {
+        protected V1Pod createResource(V1Pod current) {
             V1Pod pod = null;
             try {
                 pod = coreV1ApiInstance.createNamespacedPod(
@@ -693,7 +910,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1Pod current) {
+        protected V1Status deleteResource(V1Pod current) {
             V1Status result = null;
             try {
                 result = coreV1ApiInstance.deleteNamespacedPod(
@@ -705,7 +922,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1Pod original, V1Pod current) {
+        protected void notifyUpdate(V1Pod original, V1Pod current) {
             resourceUpdateMonitor.onPodUpdate(original, current);
         }
     }
@@ -716,7 +933,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ConfigMap getCurrentResource() {
+        protected V1ConfigMap getCurrentResource() {
             V1ConfigMap configMap = null;
             try {
                 configMap = coreV1ApiInstance.readNamespacedConfigMap(getName(), getNamespace(),
@@ -728,7 +945,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ConfigMap applyResource(V1ConfigMap original, V1ConfigMap current) {
+        protected V1ConfigMap applyResource(V1ConfigMap original, V1ConfigMap current) {
             V1ConfigMap configMap = null;
             try {
                 configMap = coreV1ApiInstance.replaceNamespacedConfigMap(getName(), getNamespace(),
@@ -740,7 +957,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ConfigMap createResource(V1ConfigMap current) {
+        protected V1ConfigMap createResource(V1ConfigMap current) {
             V1ConfigMap configMap = null;
             try {
                 configMap = coreV1ApiInstance.createNamespacedConfigMap(
@@ -752,7 +969,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1ConfigMap current) {
+        protected V1Status deleteResource(V1ConfigMap current) {
             V1Status result = null;
             try {
                 result = coreV1ApiInstance.deleteNamespacedConfigMap(
@@ -764,7 +981,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1ConfigMap original, V1ConfigMap current) {
+        protected void notifyUpdate(V1ConfigMap original, V1ConfigMap current) {
             resourceUpdateMonitor.onConfigMapUpdate(original, current);
         }
     }
@@ -775,7 +992,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Secret getCurrentResource() {
+        protected V1Secret getCurrentResource() {
             V1Secret secret = null;
             try {
                 secret = coreV1ApiInstance.readNamespacedSecret(
@@ -787,7 +1004,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Secret applyResource(V1Secret original, V1Secret current) {
+        protected V1Secret applyResource(V1Secret original, V1Secret current) {
             V1Secret secret = null;
             try {
                 secret = coreV1ApiInstance.replaceNamespacedSecret(
@@ -799,7 +1016,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Secret createResource(V1Secret current) {
+        protected V1Secret createResource(V1Secret current) {
             V1Secret secret = null;
             try {
                 secret = coreV1ApiInstance.createNamespacedSecret(
@@ -811,7 +1028,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1Secret current) {
+        protected V1Status deleteResource(V1Secret current) {
             V1Status result = null;
             try {
                 result = coreV1ApiInstance.deleteNamespacedSecret(
@@ -823,19 +1040,14 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1Secret original, V1Secret current) {
+        protected void notifyUpdate(V1Secret original, V1Secret current) {
             resourceUpdateMonitor.onSecretUpdate(original, current);
         }
 
         @Override
-        void logApplied(V1Secret res) {
+        boolean isPrintable() {
             // do not show the secret details
-            getConsoleLogger().println(Messages.KubernetesClientWrapper_applied("Secret", "name: " + getName()));
-        }
-
-        @Override
-        void logCreated(V1Secret res) {
-            getConsoleLogger().println(Messages.KubernetesClientWrapper_created(getKind(), "name: " + getName()));
+            return false;
         }
     }
 
@@ -845,7 +1057,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Namespace getCurrentResource() {
+        protected V1Namespace getCurrentResource() {
             V1Namespace result = null;
             try {
                 result = coreV1ApiInstance.readNamespace(getName(), getPretty(), true, true);
@@ -856,7 +1068,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Namespace applyResource(V1Namespace original, V1Namespace current) {
+        protected V1Namespace applyResource(V1Namespace original, V1Namespace current) {
             V1Namespace result = null;
             try {
                 result = coreV1ApiInstance.replaceNamespace(getName(), current, getPretty(), null, null);
@@ -867,7 +1079,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Namespace createResource(V1Namespace current) {
+        protected V1Namespace createResource(V1Namespace current) {
             V1Namespace result = null;
             try {
                 result = coreV1ApiInstance.createNamespace(current, getPretty(), null, null);
@@ -878,7 +1090,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1Namespace current) {
+        protected V1Status deleteResource(V1Namespace current) {
             V1Status result = null;
             try {
                 result = coreV1ApiInstance.deleteNamespace(
@@ -890,7 +1102,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1Namespace original, V1Namespace current) {
+        protected void notifyUpdate(V1Namespace original, V1Namespace current) {
             resourceUpdateMonitor.onNamespaceUpdate(original, current);
         }
     }
@@ -901,7 +1113,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1HorizontalPodAutoscaler getCurrentResource() {
+        protected V1HorizontalPodAutoscaler getCurrentResource() {
             V1HorizontalPodAutoscaler result = null;
             try {
                 result = autoscalingV1Api.readNamespacedHorizontalPodAutoscaler(
@@ -913,7 +1125,8 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1HorizontalPodAutoscaler applyResource(V1HorizontalPodAutoscaler original, V1HorizontalPodAutoscaler current) {
+        protected V1HorizontalPodAutoscaler applyResource(V1HorizontalPodAutoscaler original,
+                                                          V1HorizontalPodAutoscaler current) {
             V1HorizontalPodAutoscaler result = null;
             try {
                 result = autoscalingV1Api.replaceNamespacedHorizontalPodAutoscaler(
@@ -925,7 +1138,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1HorizontalPodAutoscaler createResource(V1HorizontalPodAutoscaler current) {
+        protected V1HorizontalPodAutoscaler createResource(V1HorizontalPodAutoscaler current) {
             V1HorizontalPodAutoscaler result = null;
             try {
                 result = autoscalingV1Api.createNamespacedHorizontalPodAutoscaler(
@@ -937,7 +1150,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1HorizontalPodAutoscaler current) {
+        protected V1Status deleteResource(V1HorizontalPodAutoscaler current) {
             V1Status result = null;
             try {
                 result = autoscalingV1Api.deleteNamespacedHorizontalPodAutoscaler(
@@ -950,7 +1163,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1HorizontalPodAutoscaler original, V1HorizontalPodAutoscaler current) {
+        protected void notifyUpdate(V1HorizontalPodAutoscaler original, V1HorizontalPodAutoscaler current) {
             resourceUpdateMonitor.onHorizontalPodAutoscalerUpdate(original, current);
         }
     }
@@ -961,7 +1174,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1StatefulSet getCurrentResource() {
+        protected V1StatefulSet getCurrentResource() {
             V1StatefulSet result = null;
             try {
                 result = appsV1ApiInstance.readNamespacedStatefulSet(
@@ -973,12 +1186,21 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1StatefulSet applyResource(V1StatefulSet original, V1StatefulSet current) {
+        protected V1StatefulSet applyResource(final V1StatefulSet original, final V1StatefulSet current) {
             V1StatefulSet result = null;
             try {
-                V1StatefulSet putStatefulSet = getPutObject(original, current);
-                result = appsV1ApiInstance.replaceNamespacedStatefulSet(
-                        getName(), getNamespace(), putStatefulSet, getPretty(), null, null);
+                result = replaceWithDryRun(new PutCall<V1StatefulSet>() {
+                    @Override
+                    public V1StatefulSet build() {
+                        return getPutObject(original, current);
+                    }
+
+                    @Override
+                    public V1StatefulSet replace(V1StatefulSet putStatefulSet) throws ApiException {
+                        return appsV1ApiInstance.replaceNamespacedStatefulSet(
+                                getName(), getNamespace(), putStatefulSet, getPretty(), null, null);
+                    }
+                });
             } catch (ApiException e) {
                 handleApiException(e);
             }
@@ -986,7 +1208,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1StatefulSet createResource(V1StatefulSet current) {
+        protected V1StatefulSet createResource(V1StatefulSet current) {
             V1StatefulSet result = null;
             try {
                 result = appsV1ApiInstance.createNamespacedStatefulSet(
@@ -998,7 +1220,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1StatefulSet current) {
+        protected V1Status deleteResource(V1StatefulSet current) {
             V1Status result = null;
             try {
                 result = appsV1ApiInstance.deleteNamespacedStatefulSet(
@@ -1023,17 +1245,17 @@ public class V1ResourceManager extends ResourceManager {
          * @return StatefulSet With Default Value
          */
         V1StatefulSet getPutObject(V1StatefulSet original, V1StatefulSet current) {
-            // Clone Object to avoid modifications to the original object.
-            V1StatefulSet dryRunReq = KubernetesJsonUtils.getKubernetesJson().deserialize(
-                    KubernetesJsonUtils.getKubernetesJson().serialize(current), V1StatefulSet.class);
-            // Build dryRun Request Object
             V1StatefulSet dryRunRes = null;
-            dryRunReq.getMetadata().setName(null);
-            dryRunReq.getMetadata().setGenerateName(getName());
-            dryRunReq.getMetadata().setNamespace(getNamespace());
             try {
-                dryRunRes = appsV1ApiInstance.createNamespacedStatefulSet(dryRunReq.getMetadata().getNamespace(),
-                        dryRunReq, getPretty(), DRY_RUN_ALL, null);
+                dryRunRes = dryRun(current, V1StatefulSet.class, getNamespace(), getName(),
+                        new DryRunCall<V1StatefulSet>() {
+                            @Override
+                            public V1StatefulSet create(V1StatefulSet dryRunReq) throws ApiException {
+                                return appsV1ApiInstance.createNamespacedStatefulSet(
+                                        dryRunReq.getMetadata().getNamespace(), dryRunReq, getPretty(),
+                                        DRY_RUN_ALL, null);
+                            }
+                        });
             } catch (ApiException e) {
                 handleApiException(e);
             }
@@ -1059,7 +1281,7 @@ public class V1ResourceManager extends ResourceManager {
 
 
         @Override
-        void notifyUpdate(V1StatefulSet original, V1StatefulSet current) {
+        protected void notifyUpdate(V1StatefulSet original, V1StatefulSet current) {
             resourceUpdateMonitor.onStatefulSetUpdate(original, current);
         }
     }
@@ -1070,7 +1292,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1PersistentVolumeClaim getCurrentResource() {
+        protected V1PersistentVolumeClaim getCurrentResource() {
             V1PersistentVolumeClaim result = null;
             try {
                 result = coreV1ApiInstance.readNamespacedPersistentVolumeClaim(
@@ -1082,7 +1304,8 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1PersistentVolumeClaim applyResource(V1PersistentVolumeClaim original, V1PersistentVolumeClaim current) {
+        protected V1PersistentVolumeClaim applyResource(V1PersistentVolumeClaim original,
+                                                        V1PersistentVolumeClaim current) {
 
 
             // The kubernetes-client library will compare the server config and the current applied config,
@@ -1116,7 +1339,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1PersistentVolumeClaim createResource(V1PersistentVolumeClaim current) {
+        protected V1PersistentVolumeClaim createResource(V1PersistentVolumeClaim current) {
             V1PersistentVolumeClaim result = null;
             try {
                 result = coreV1ApiInstance.createNamespacedPersistentVolumeClaim(
@@ -1128,7 +1351,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1PersistentVolumeClaim current) {
+        protected V1Status deleteResource(V1PersistentVolumeClaim current) {
             V1Status result = null;
             try {
                 result = coreV1ApiInstance.deleteNamespacedPersistentVolumeClaim(
@@ -1141,7 +1364,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1PersistentVolumeClaim original, V1PersistentVolumeClaim current) {
+        protected void notifyUpdate(V1PersistentVolumeClaim original, V1PersistentVolumeClaim current) {
             resourceUpdateMonitor.onPersistentVolumeClaimUpdate(original, current);
         }
     }
@@ -1152,7 +1375,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1PersistentVolume getCurrentResource() {
+        protected V1PersistentVolume getCurrentResource() {
             V1PersistentVolume result = null;
             try {
                 result = coreV1ApiInstance.readPersistentVolume(
@@ -1164,7 +1387,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1PersistentVolume applyResource(V1PersistentVolume original, V1PersistentVolume current) {
+        protected V1PersistentVolume applyResource(V1PersistentVolume original, V1PersistentVolume current) {
             V1PersistentVolume result = null;
             try {
                 result = coreV1ApiInstance.replacePersistentVolume(
@@ -1176,7 +1399,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1PersistentVolume createResource(V1PersistentVolume current) {
+        protected V1PersistentVolume createResource(V1PersistentVolume current) {
             V1PersistentVolume result = null;
             try {
                 result = coreV1ApiInstance.createPersistentVolume(
@@ -1188,7 +1411,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1PersistentVolume current) {
+        protected V1Status deleteResource(V1PersistentVolume current) {
             V1Status result = null;
             try {
                 result = coreV1ApiInstance.deletePersistentVolume(
@@ -1201,7 +1424,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1PersistentVolume original, V1PersistentVolume current) {
+        protected void notifyUpdate(V1PersistentVolume original, V1PersistentVolume current) {
             resourceUpdateMonitor.onPersistentVolumeUpdate(original, current);
         }
     }
@@ -1212,7 +1435,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1NetworkPolicy getCurrentResource() {
+        protected V1NetworkPolicy getCurrentResource() {
             V1NetworkPolicy result = null;
             try {
                 result = networkingV1Api.readNamespacedNetworkPolicy(
@@ -1224,7 +1447,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1NetworkPolicy applyResource(V1NetworkPolicy original, V1NetworkPolicy current) {
+        protected V1NetworkPolicy applyResource(V1NetworkPolicy original, V1NetworkPolicy current) {
             V1NetworkPolicy result = null;
             try {
                 result = networkingV1Api.replaceNamespacedNetworkPolicy(
@@ -1236,7 +1459,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1NetworkPolicy createResource(V1NetworkPolicy current) {
+        protected V1NetworkPolicy createResource(V1NetworkPolicy current) {
             V1NetworkPolicy result = null;
             try {
                 result = networkingV1Api.createNamespacedNetworkPolicy(
@@ -1248,7 +1471,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1NetworkPolicy current) {
+        protected V1Status deleteResource(V1NetworkPolicy current) {
             V1Status result = null;
             try {
                 result = networkingV1Api.deleteNamespacedNetworkPolicy(
@@ -1261,7 +1484,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1NetworkPolicy original, V1NetworkPolicy current) {
+        protected void notifyUpdate(V1NetworkPolicy original, V1NetworkPolicy current) {
             resourceUpdateMonitor.onNetworkPolicyUpdate(original, current);
         }
     }
@@ -1272,7 +1495,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Role getCurrentResource() {
+        protected V1Role getCurrentResource() {
             V1Role result = null;
             try {
                 result = rbacV1Api.readNamespacedRole(
@@ -1284,7 +1507,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Role applyResource(V1Role original, V1Role current) {
+        protected V1Role applyResource(V1Role original, V1Role current) {
             V1Role result = null;
             try {
                 result = rbacV1Api.replaceNamespacedRole(
@@ -1296,7 +1519,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Role createResource(V1Role current) {
+        protected V1Role createResource(V1Role current) {
             V1Role result = null;
             try {
                 result = rbacV1Api.createNamespacedRole(
@@ -1308,7 +1531,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1Role current) {
+        protected V1Status deleteResource(V1Role current) {
             V1Status result = null;
             try {
                 result = rbacV1Api.deleteNamespacedRole(
@@ -1321,7 +1544,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1Role original, V1Role current) {
+        protected void notifyUpdate(V1Role original, V1Role current) {
             resourceUpdateMonitor.onRoleUpdate(original, current);
         }
     }
@@ -1332,7 +1555,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1RoleBinding getCurrentResource() {
+        protected V1RoleBinding getCurrentResource() {
             V1RoleBinding result = null;
             try {
                 result = rbacV1Api.readNamespacedRoleBinding(
@@ -1344,7 +1567,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1RoleBinding applyResource(V1RoleBinding original, V1RoleBinding current) {
+        protected V1RoleBinding applyResource(V1RoleBinding original, V1RoleBinding current) {
             V1RoleBinding result = null;
             try {
                 result = rbacV1Api.replaceNamespacedRoleBinding(
@@ -1356,7 +1579,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1RoleBinding createResource(V1RoleBinding current) {
+        protected V1RoleBinding createResource(V1RoleBinding current) {
             V1RoleBinding result = null;
             try {
                 result = rbacV1Api.createNamespacedRoleBinding(
@@ -1368,7 +1591,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1RoleBinding current) {
+        protected V1Status deleteResource(V1RoleBinding current) {
             V1Status result = null;
             try {
                 result = rbacV1Api.deleteNamespacedRoleBinding(
@@ -1381,7 +1604,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1RoleBinding original, V1RoleBinding current) {
+        protected void notifyUpdate(V1RoleBinding original, V1RoleBinding current) {
             resourceUpdateMonitor.onRoleBindingUpdate(original, current);
         }
     }
@@ -1392,7 +1615,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ServiceAccount getCurrentResource() {
+        protected V1ServiceAccount getCurrentResource() {
             V1ServiceAccount result = null;
             try {
                 result = coreV1ApiInstance.readNamespacedServiceAccount(
@@ -1404,7 +1627,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ServiceAccount applyResource(V1ServiceAccount original, V1ServiceAccount current) {
+        protected V1ServiceAccount applyResource(V1ServiceAccount original, V1ServiceAccount current) {
             V1ServiceAccount result = null;
             try {
                 result = coreV1ApiInstance.replaceNamespacedServiceAccount(
@@ -1416,7 +1639,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ServiceAccount createResource(V1ServiceAccount current) {
+        protected V1ServiceAccount createResource(V1ServiceAccount current) {
             V1ServiceAccount result = null;
             try {
                 result = coreV1ApiInstance.createNamespacedServiceAccount(
@@ -1428,7 +1651,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1ServiceAccount current) {
+        protected V1Status deleteResource(V1ServiceAccount current) {
             V1Status result = null;
             try {
                 result = coreV1ApiInstance.deleteNamespacedServiceAccount(
@@ -1441,7 +1664,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1ServiceAccount original, V1ServiceAccount current) {
+        protected void notifyUpdate(V1ServiceAccount original, V1ServiceAccount current) {
             resourceUpdateMonitor.onServiceAccountUpdate(original, current);
         }
     }
@@ -1452,7 +1675,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ClusterRole getCurrentResource() {
+        protected V1ClusterRole getCurrentResource() {
             V1ClusterRole result = null;
             try {
                 result = rbacV1Api.readClusterRole(
@@ -1464,7 +1687,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ClusterRole applyResource(V1ClusterRole original, V1ClusterRole current) {
+        protected V1ClusterRole applyResource(V1ClusterRole original, V1ClusterRole current) {
             V1ClusterRole result = null;
             try {
                 result = rbacV1Api.replaceClusterRole(
@@ -1476,7 +1699,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ClusterRole createResource(V1ClusterRole current) {
+        protected V1ClusterRole createResource(V1ClusterRole current) {
             V1ClusterRole result = null;
             try {
                 result = rbacV1Api.createClusterRole(
@@ -1488,7 +1711,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1ClusterRole current) {
+        protected V1Status deleteResource(V1ClusterRole current) {
             V1Status result = null;
             try {
                 result = rbacV1Api.deleteClusterRole(
@@ -1501,7 +1724,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1ClusterRole original, V1ClusterRole current) {
+        protected void notifyUpdate(V1ClusterRole original, V1ClusterRole current) {
             resourceUpdateMonitor.onClusterRoleUpdate(original, current);
         }
     }
@@ -1512,7 +1735,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ClusterRoleBinding getCurrentResource() {
+        protected V1ClusterRoleBinding getCurrentResource() {
             V1ClusterRoleBinding result = null;
             try {
                 result = rbacV1Api.readClusterRoleBinding(
@@ -1524,7 +1747,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ClusterRoleBinding applyResource(V1ClusterRoleBinding original, V1ClusterRoleBinding current) {
+        protected V1ClusterRoleBinding applyResource(V1ClusterRoleBinding original, V1ClusterRoleBinding current) {
             V1ClusterRoleBinding result = null;
             try {
                 result = rbacV1Api.replaceClusterRoleBinding(
@@ -1536,7 +1759,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1ClusterRoleBinding createResource(V1ClusterRoleBinding current) {
+        protected V1ClusterRoleBinding createResource(V1ClusterRoleBinding current) {
             V1ClusterRoleBinding result = null;
             try {
                 result = rbacV1Api.createClusterRoleBinding(
@@ -1548,7 +1771,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1ClusterRoleBinding current) {
+        protected V1Status deleteResource(V1ClusterRoleBinding current) {
             V1Status result = null;
             try {
                 result = rbacV1Api.deleteClusterRoleBinding(
@@ -1561,7 +1784,7 @@ public class V1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1ClusterRoleBinding original, V1ClusterRoleBinding current) {
+        protected void notifyUpdate(V1ClusterRoleBinding original, V1ClusterRoleBinding current) {
             resourceUpdateMonitor.onClusterRoleBindingUpdate(original, current);
         }
     }
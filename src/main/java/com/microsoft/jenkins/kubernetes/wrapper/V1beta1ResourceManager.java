@@ -66,7 +66,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1ReplicaSet getCurrentResource() {
+        protected V1beta1ReplicaSet getCurrentResource() {
             V1beta1ReplicaSet replicaSet = null;
             try {
                 replicaSet = extensionsV1beta1Api.readNamespacedReplicaSet(getName(), getNamespace(),
@@ -78,7 +78,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1ReplicaSet applyResource(V1beta1ReplicaSet original, V1beta1ReplicaSet current) {
+        protected V1beta1ReplicaSet applyResource(V1beta1ReplicaSet original, V1beta1ReplicaSet current) {
             V1beta1ReplicaSet replicaSet = null;
             try {
                 replicaSet = extensionsV1beta1Api.replaceNamespacedReplicaSet(getName(), getNamespace(),
@@ -90,7 +90,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1ReplicaSet createResource(V1beta1ReplicaSet current) {
+        protected V1beta1ReplicaSet createResource(V1beta1ReplicaSet current) {
             V1beta1ReplicaSet replicaSet = null;
             try {
                 replicaSet = extensionsV1beta1Api.createNamespacedReplicaSet(
@@ -102,7 +102,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1beta1ReplicaSet current) {
+        protected V1Status deleteResource(V1beta1ReplicaSet current) {
             V1Status result = null;
             try {
                 result = extensionsV1beta1Api.deleteNamespacedReplicaSet(
@@ -115,7 +115,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1beta1ReplicaSet original, V1beta1ReplicaSet current) {
+        protected void notifyUpdate(V1beta1ReplicaSet original, V1beta1ReplicaSet current) {
             resourceUpdateMonitor.onReplicaSetUpdate(original, current);
         }
     }
@@ -126,7 +126,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1DaemonSet getCurrentResource() {
+        protected V1beta1DaemonSet getCurrentResource() {
             V1beta1DaemonSet daemonSet = null;
             try {
                 daemonSet = extensionsV1beta1Api.readNamespacedDaemonSet(getName(), getNamespace(),
@@ -138,7 +138,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1DaemonSet applyResource(V1beta1DaemonSet original, V1beta1DaemonSet current) {
+        protected V1beta1DaemonSet applyResource(V1beta1DaemonSet original, V1beta1DaemonSet current) {
             V1beta1DaemonSet daemonSet = null;
             try {
                 daemonSet = extensionsV1beta1Api.replaceNamespacedDaemonSet(getName(), getNamespace(),
@@ -150,7 +150,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1DaemonSet createResource(V1beta1DaemonSet current) {
+        protected V1beta1DaemonSet createResource(V1beta1DaemonSet current) {
             V1beta1DaemonSet daemonSet = null;
             try {
                 daemonSet = extensionsV1beta1Api.createNamespacedDaemonSet(getNamespace(),
@@ -162,7 +162,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1beta1DaemonSet current) {
+        protected V1Status deleteResource(V1beta1DaemonSet current) {
             V1Status result = null;
             try {
                 result = extensionsV1beta1Api.deleteNamespacedDaemonSet(
@@ -175,7 +175,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1beta1DaemonSet original, V1beta1DaemonSet current) {
+        protected void notifyUpdate(V1beta1DaemonSet original, V1beta1DaemonSet current) {
             resourceUpdateMonitor.onDaemonSetUpdate(original, current);
         }
     }
@@ -187,7 +187,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        ExtensionsV1beta1Ingress getCurrentResource() {
+        protected ExtensionsV1beta1Ingress getCurrentResource() {
             ExtensionsV1beta1Ingress ingress = null;
             try {
                 ingress = extensionsV1beta1Api.readNamespacedIngress(getName(), getNamespace(), getPretty(),
@@ -199,7 +199,8 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        ExtensionsV1beta1Ingress applyResource(ExtensionsV1beta1Ingress original, ExtensionsV1beta1Ingress current) {
+        protected ExtensionsV1beta1Ingress applyResource(ExtensionsV1beta1Ingress original,
+                                                         ExtensionsV1beta1Ingress current) {
             ExtensionsV1beta1Ingress ingress = null;
             try {
                 ingress = extensionsV1beta1Api.replaceNamespacedIngress(getName(), getNamespace(), current,
@@ -211,7 +212,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        ExtensionsV1beta1Ingress createResource(ExtensionsV1beta1Ingress current) {
+        protected ExtensionsV1beta1Ingress createResource(ExtensionsV1beta1Ingress current) {
             ExtensionsV1beta1Ingress ingress = null;
             try {
                 ingress = extensionsV1beta1Api.createNamespacedIngress(getNamespace(),
@@ -223,7 +224,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(ExtensionsV1beta1Ingress current) {
+        protected V1Status deleteResource(ExtensionsV1beta1Ingress current) {
             V1Status result = null;
             try {
                 result = extensionsV1beta1Api.deleteNamespacedIngress(
@@ -237,7 +238,7 @@ public class V1beta1ResourceManager extends ResourceManager {
 
 
         @Override
-        void notifyUpdate(ExtensionsV1beta1Ingress original, ExtensionsV1beta1Ingress current) {
+        protected void notifyUpdate(ExtensionsV1beta1Ingress original, ExtensionsV1beta1Ingress current) {
             resourceUpdateMonitor.onExtensionsIngressUpdate(original, current);
         }
     }
@@ -248,7 +249,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        NetworkingV1beta1Ingress getCurrentResource() {
+        protected NetworkingV1beta1Ingress getCurrentResource() {
             NetworkingV1beta1Ingress ingress = null;
             try {
                 ingress = networkingV1beta1Api.readNamespacedIngress(getName(), getNamespace(), getPretty(),
@@ -260,7 +261,8 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        NetworkingV1beta1Ingress applyResource(NetworkingV1beta1Ingress original, NetworkingV1beta1Ingress current) {
+        protected NetworkingV1beta1Ingress applyResource(NetworkingV1beta1Ingress original,
+                                                         NetworkingV1beta1Ingress current) {
             NetworkingV1beta1Ingress ingress = null;
             try {
                 ingress = networkingV1beta1Api.replaceNamespacedIngress(getName(), getNamespace(), current,
@@ -272,7 +274,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        NetworkingV1beta1Ingress createResource(NetworkingV1beta1Ingress current) {
+        protected NetworkingV1beta1Ingress createResource(NetworkingV1beta1Ingress current) {
             NetworkingV1beta1Ingress ingress = null;
             try {
                 ingress = networkingV1beta1Api.createNamespacedIngress(getNamespace(),
@@ -284,7 +286,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(NetworkingV1beta1Ingress current) {
+        protected V1Status deleteResource(NetworkingV1beta1Ingress current) {
             V1Status result = null;
             try {
                 result = networkingV1beta1Api.deleteNamespacedIngress(
@@ -298,7 +300,7 @@ public class V1beta1ResourceManager extends ResourceManager {
 
 
         @Override
-        void notifyUpdate(NetworkingV1beta1Ingress original, NetworkingV1beta1Ingress current) {
+        protected void notifyUpdate(NetworkingV1beta1Ingress original, NetworkingV1beta1Ingress current) {
             resourceUpdateMonitor.onNetworkingIngressUpdate(original, current);
         }
     }
@@ -310,7 +312,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        ExtensionsV1beta1Deployment getCurrentResource() {
+        protected ExtensionsV1beta1Deployment getCurrentResource() {
             ExtensionsV1beta1Deployment deployment = null;
             try {
                 deployment = extensionsV1beta1Api.readNamespacedDeployment(getName(), getNamespace(), getPretty(),
@@ -322,7 +324,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        ExtensionsV1beta1Deployment applyResource(ExtensionsV1beta1Deployment original,
+        protected ExtensionsV1beta1Deployment applyResource(ExtensionsV1beta1Deployment original,
                                                   ExtensionsV1beta1Deployment current) {
             ExtensionsV1beta1Deployment deployment = null;
             try {
@@ -335,7 +337,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        ExtensionsV1beta1Deployment createResource(ExtensionsV1beta1Deployment current) {
+        protected ExtensionsV1beta1Deployment createResource(ExtensionsV1beta1Deployment current) {
             ExtensionsV1beta1Deployment deployment = null;
             try {
                 deployment = extensionsV1beta1Api.createNamespacedDeployment(getNamespace(),
@@ -347,7 +349,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(ExtensionsV1beta1Deployment current) {
+        protected V1Status deleteResource(ExtensionsV1beta1Deployment current) {
             V1Status result = null;
             try {
                 result = extensionsV1beta1Api.deleteNamespacedDeployment(
@@ -361,7 +363,7 @@ public class V1beta1ResourceManager extends ResourceManager {
 
 
         @Override
-        void notifyUpdate(ExtensionsV1beta1Deployment original, ExtensionsV1beta1Deployment current) {
+        protected void notifyUpdate(ExtensionsV1beta1Deployment original, ExtensionsV1beta1Deployment current) {
             resourceUpdateMonitor.onDeploymentUpdate(original, current);
         }
     }
@@ -372,7 +374,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        AppsV1beta1Deployment getCurrentResource() {
+        protected AppsV1beta1Deployment getCurrentResource() {
             AppsV1beta1Deployment deployment = null;
             try {
                 deployment = appsV1beta1Api.readNamespacedDeployment(getName(), getNamespace(), getPretty(),
@@ -384,7 +386,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        AppsV1beta1Deployment applyResource(AppsV1beta1Deployment original,
+        protected AppsV1beta1Deployment applyResource(AppsV1beta1Deployment original,
                                             AppsV1beta1Deployment current) {
             AppsV1beta1Deployment deployment = null;
             try {
@@ -397,7 +399,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        AppsV1beta1Deployment createResource(AppsV1beta1Deployment current) {
+        protected AppsV1beta1Deployment createResource(AppsV1beta1Deployment current) {
             AppsV1beta1Deployment deployment = null;
             try {
                 deployment = appsV1beta1Api.createNamespacedDeployment(getNamespace(),
@@ -409,7 +411,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(AppsV1beta1Deployment current) {
+        protected V1Status deleteResource(AppsV1beta1Deployment current) {
             V1Status result = null;
             try {
                 result = appsV1beta1Api.deleteNamespacedDeployment(
@@ -422,7 +424,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(AppsV1beta1Deployment original, AppsV1beta1Deployment current) {
+        protected void notifyUpdate(AppsV1beta1Deployment original, AppsV1beta1Deployment current) {
             resourceUpdateMonitor.onDeploymentUpdate(original, current);
         }
     }
@@ -433,7 +435,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1StatefulSet getCurrentResource() {
+        protected V1beta1StatefulSet getCurrentResource() {
             V1beta1StatefulSet result = null;
             try {
                 result = appsV1beta1Api.readNamespacedStatefulSet(
@@ -445,7 +447,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1StatefulSet applyResource(V1beta1StatefulSet original, V1beta1StatefulSet current) {
+        protected V1beta1StatefulSet applyResource(V1beta1StatefulSet original, V1beta1StatefulSet current) {
             V1beta1StatefulSet result = null;
             try {
                 result = appsV1beta1Api.replaceNamespacedStatefulSet(
@@ -457,7 +459,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1StatefulSet createResource(V1beta1StatefulSet current) {
+        protected V1beta1StatefulSet createResource(V1beta1StatefulSet current) {
             V1beta1StatefulSet result = null;
             try {
                 result = appsV1beta1Api.createNamespacedStatefulSet(
@@ -469,7 +471,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1beta1StatefulSet current) {
+        protected V1Status deleteResource(V1beta1StatefulSet current) {
             V1Status result = null;
             try {
                 result = appsV1beta1Api.deleteNamespacedStatefulSet(
@@ -482,7 +484,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1beta1StatefulSet original, V1beta1StatefulSet current) {
+        protected void notifyUpdate(V1beta1StatefulSet original, V1beta1StatefulSet current) {
             resourceUpdateMonitor.onStatefulSetUpdate(original, current);
         }
     }
@@ -493,7 +495,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1CronJob getCurrentResource() {
+        protected V1beta1CronJob getCurrentResource() {
             V1beta1CronJob result = null;
             try {
                 result = batchV1beta1Api.readNamespacedCronJob(
@@ -505,7 +507,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1CronJob applyResource(V1beta1CronJob original, V1beta1CronJob current) {
+        protected V1beta1CronJob applyResource(V1beta1CronJob original, V1beta1CronJob current) {
             V1beta1CronJob result = null;
             try {
                 result = batchV1beta1Api.replaceNamespacedCronJob(
@@ -517,7 +519,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta1CronJob createResource(V1beta1CronJob current) {
+        protected V1beta1CronJob createResource(V1beta1CronJob current) {
             V1beta1CronJob result = null;
             try {
                 result = batchV1beta1Api.createNamespacedCronJob(
@@ -529,7 +531,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1beta1CronJob current) {
+        protected V1Status deleteResource(V1beta1CronJob current) {
             V1Status result = null;
             try {
                 result = batchV1beta1Api.deleteNamespacedCronJob(
@@ -542,7 +544,7 @@ public class V1beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1beta1CronJob original, V1beta1CronJob current) {
+        protected void notifyUpdate(V1beta1CronJob original, V1beta1CronJob current) {
             resourceUpdateMonitor.onCronJobUpdate(original, current);
         }
     }
@@ -45,7 +45,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2Deployment getCurrentResource() {
+        protected V1beta2Deployment getCurrentResource() {
             V1beta2Deployment deployment = null;
             try {
                 deployment = appsV1beta2Api.readNamespacedDeployment(getName(), getNamespace(), getPretty(),
@@ -57,7 +57,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2Deployment applyResource(V1beta2Deployment original, V1beta2Deployment current) {
+        protected V1beta2Deployment applyResource(V1beta2Deployment original, V1beta2Deployment current) {
             V1beta2Deployment deployment = null;
             try {
                 deployment = appsV1beta2Api.replaceNamespacedDeployment(getName(), getNamespace(), current,
@@ -69,7 +69,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2Deployment createResource(V1beta2Deployment current) {
+        protected V1beta2Deployment createResource(V1beta2Deployment current) {
             V1beta2Deployment deployment = null;
             try {
                 deployment = appsV1beta2Api.createNamespacedDeployment(
@@ -81,7 +81,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1beta2Deployment current) {
+        protected V1Status deleteResource(V1beta2Deployment current) {
             V1Status result = null;
             try {
                 result = appsV1beta2Api.deleteNamespacedDeployment(
@@ -94,7 +94,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1beta2Deployment original, V1beta2Deployment current) {
+        protected void notifyUpdate(V1beta2Deployment original, V1beta2Deployment current) {
             resourceUpdateMonitor.onDeploymentUpdate(original, current);
         }
     }
@@ -105,7 +105,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2DaemonSet getCurrentResource() {
+        protected V1beta2DaemonSet getCurrentResource() {
             V1beta2DaemonSet daemonSet = null;
             try {
                 daemonSet = appsV1beta2Api.readNamespacedDaemonSet(getName(), getNamespace(),
@@ -117,7 +117,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2DaemonSet applyResource(V1beta2DaemonSet original, V1beta2DaemonSet current) {
+        protected V1beta2DaemonSet applyResource(V1beta2DaemonSet original, V1beta2DaemonSet current) {
             V1beta2DaemonSet daemonSet = null;
             try {
                 daemonSet = appsV1beta2Api.replaceNamespacedDaemonSet(getName(), getNamespace(),
@@ -129,7 +129,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2DaemonSet createResource(V1beta2DaemonSet current) {
+        protected V1beta2DaemonSet createResource(V1beta2DaemonSet current) {
             V1beta2DaemonSet daemonSet = null;
             try {
                 daemonSet = appsV1beta2Api.createNamespacedDaemonSet(getNamespace(),
@@ -141,7 +141,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1beta2DaemonSet current) {
+        protected V1Status deleteResource(V1beta2DaemonSet current) {
             V1Status result = null;
             try {
                 result = appsV1beta2Api.deleteNamespacedDaemonSet(
@@ -155,7 +155,7 @@ public class V1beta2ResourceManager extends ResourceManager {
 
 
         @Override
-        void notifyUpdate(V1beta2DaemonSet original, V1beta2DaemonSet current) {
+        protected void notifyUpdate(V1beta2DaemonSet original, V1beta2DaemonSet current) {
             resourceUpdateMonitor.onDaemonSetUpdate(original, current);
         }
     }
@@ -166,7 +166,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2ReplicaSet getCurrentResource() {
+        protected V1beta2ReplicaSet getCurrentResource() {
             V1beta2ReplicaSet replicaSet = null;
             try {
                 replicaSet = appsV1beta2Api.readNamespacedReplicaSet(getName(), getNamespace(),
@@ -178,7 +178,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2ReplicaSet applyResource(V1beta2ReplicaSet original, V1beta2ReplicaSet current) {
+        protected V1beta2ReplicaSet applyResource(V1beta2ReplicaSet original, V1beta2ReplicaSet current) {
             V1beta2ReplicaSet replicaSet = null;
             try {
                 replicaSet = appsV1beta2Api.replaceNamespacedReplicaSet(getName(), getNamespace(),
@@ -190,7 +190,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2ReplicaSet createResource(V1beta2ReplicaSet current) {
+        protected V1beta2ReplicaSet createResource(V1beta2ReplicaSet current) {
             V1beta2ReplicaSet replicaSet = null;
             try {
                 replicaSet = appsV1beta2Api.createNamespacedReplicaSet(getNamespace(),
@@ -202,7 +202,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1beta2ReplicaSet current) {
+        protected V1Status deleteResource(V1beta2ReplicaSet current) {
             V1Status result = null;
             try {
                 result = appsV1beta2Api.deleteNamespacedReplicaSet(
@@ -215,7 +215,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1beta2ReplicaSet original, V1beta2ReplicaSet current) {
+        protected void notifyUpdate(V1beta2ReplicaSet original, V1beta2ReplicaSet current) {
             resourceUpdateMonitor.onReplicaSetUpdate(original, current);
         }
     }
@@ -226,7 +226,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2StatefulSet getCurrentResource() {
+        protected V1beta2StatefulSet getCurrentResource() {
             V1beta2StatefulSet result = null;
             try {
                 result = appsV1beta2Api.readNamespacedStatefulSet(
@@ -238,7 +238,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2StatefulSet applyResource(V1beta2StatefulSet original, V1beta2StatefulSet current) {
+        protected V1beta2StatefulSet applyResource(V1beta2StatefulSet original, V1beta2StatefulSet current) {
             V1beta2StatefulSet result = null;
             try {
                 result = appsV1beta2Api.replaceNamespacedStatefulSet(
@@ -250,7 +250,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1beta2StatefulSet createResource(V1beta2StatefulSet current) {
+        protected V1beta2StatefulSet createResource(V1beta2StatefulSet current) {
             V1beta2StatefulSet result = null;
             try {
                 result = appsV1beta2Api.createNamespacedStatefulSet(
@@ -262,7 +262,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V1beta2StatefulSet current) {
+        protected V1Status deleteResource(V1beta2StatefulSet current) {
             V1Status result = null;
             try {
                 result = appsV1beta2Api.deleteNamespacedStatefulSet(
@@ -275,7 +275,7 @@ public class V1beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V1beta2StatefulSet original, V1beta2StatefulSet current) {
+        protected void notifyUpdate(V1beta2StatefulSet original, V1beta2StatefulSet current) {
             resourceUpdateMonitor.onStatefulSetUpdate(original, current);
         }
     }
@@ -46,7 +46,7 @@ public class V2alpha1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V2alpha1CronJob getCurrentResource() {
+        protected V2alpha1CronJob getCurrentResource() {
             V2alpha1CronJob result = null;
             try {
                 result = batchV2alpha1Api.readNamespacedCronJob(
@@ -58,7 +58,7 @@ public class V2alpha1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V2alpha1CronJob applyResource(V2alpha1CronJob original, V2alpha1CronJob current) {
+        protected V2alpha1CronJob applyResource(V2alpha1CronJob original, V2alpha1CronJob current) {
             V2alpha1CronJob result = null;
             try {
                 result = batchV2alpha1Api.replaceNamespacedCronJob(
@@ -70,7 +70,7 @@ public class V2alpha1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V2alpha1CronJob createResource(V2alpha1CronJob current) {
+        protected V2alpha1CronJob createResource(V2alpha1CronJob current) {
             V2alpha1CronJob result = null;
             try {
                 result = batchV2alpha1Api.createNamespacedCronJob(
@@ -82,7 +82,7 @@ public class V2alpha1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V2alpha1CronJob current) {
+        protected V1Status deleteResource(V2alpha1CronJob current) {
             V1Status result = null;
             try {
                 result = batchV2alpha1Api.deleteNamespacedCronJob(
@@ -95,7 +95,7 @@ public class V2alpha1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V2alpha1CronJob original, V2alpha1CronJob current) {
+        protected void notifyUpdate(V2alpha1CronJob original, V2alpha1CronJob current) {
             resourceUpdateMonitor.onCronJobUpdate(original, current);
         }
     }
@@ -45,7 +45,7 @@ public class V2beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V2beta1HorizontalPodAutoscaler getCurrentResource() {
+        protected V2beta1HorizontalPodAutoscaler getCurrentResource() {
             V2beta1HorizontalPodAutoscaler result = null;
             try {
                 result = autoscalingV2beta1Api.readNamespacedHorizontalPodAutoscaler(
@@ -57,7 +57,7 @@ public class V2beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V2beta1HorizontalPodAutoscaler applyResource(
+        protected V2beta1HorizontalPodAutoscaler applyResource(
                 V2beta1HorizontalPodAutoscaler original, V2beta1HorizontalPodAutoscaler current) {
             V2beta1HorizontalPodAutoscaler result = null;
             try {
@@ -70,7 +70,7 @@ public class V2beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V2beta1HorizontalPodAutoscaler createResource(V2beta1HorizontalPodAutoscaler current) {
+        protected V2beta1HorizontalPodAutoscaler createResource(V2beta1HorizontalPodAutoscaler current) {
             V2beta1HorizontalPodAutoscaler result = null;
             try {
                 result = autoscalingV2beta1Api.createNamespacedHorizontalPodAutoscaler(
@@ -82,7 +82,7 @@ public class V2beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V2beta1HorizontalPodAutoscaler current) {
+        protected V1Status deleteResource(V2beta1HorizontalPodAutoscaler current) {
             V1Status result = null;
             try {
                 result = autoscalingV2beta1Api.deleteNamespacedHorizontalPodAutoscaler(
@@ -95,7 +95,7 @@ public class V2beta1ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V2beta1HorizontalPodAutoscaler original, V2beta1HorizontalPodAutoscaler current) {
+        protected void notifyUpdate(V2beta1HorizontalPodAutoscaler original, V2beta1HorizontalPodAutoscaler current) {
             resourceUpdateMonitor.onHorizontalPodAutoscalerUpdate(original, current);
         }
     }
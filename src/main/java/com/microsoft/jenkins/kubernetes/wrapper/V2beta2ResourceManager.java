@@ -45,7 +45,7 @@ public class V2beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V2beta2HorizontalPodAutoscaler getCurrentResource() {
+        protected V2beta2HorizontalPodAutoscaler getCurrentResource() {
             V2beta2HorizontalPodAutoscaler result = null;
             try {
                 result = autoscalingV2beta2Api.readNamespacedHorizontalPodAutoscaler(
@@ -57,7 +57,7 @@ public class V2beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V2beta2HorizontalPodAutoscaler applyResource(
+        protected V2beta2HorizontalPodAutoscaler applyResource(
                 V2beta2HorizontalPodAutoscaler original, V2beta2HorizontalPodAutoscaler current) {
             V2beta2HorizontalPodAutoscaler result = null;
             try {
@@ -70,7 +70,7 @@ public class V2beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V2beta2HorizontalPodAutoscaler createResource(V2beta2HorizontalPodAutoscaler current) {
+        protected V2beta2HorizontalPodAutoscaler createResource(V2beta2HorizontalPodAutoscaler current) {
             V2beta2HorizontalPodAutoscaler result = null;
             try {
                 result = autoscalingV2beta2Api.createNamespacedHorizontalPodAutoscaler(
@@ -82,7 +82,7 @@ public class V2beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        V1Status deleteResource(V2beta2HorizontalPodAutoscaler current) {
+        protected V1Status deleteResource(V2beta2HorizontalPodAutoscaler current) {
             V1Status result = null;
             try {
                 result = autoscalingV2beta2Api.deleteNamespacedHorizontalPodAutoscaler(
@@ -95,7 +95,7 @@ public class V2beta2ResourceManager extends ResourceManager {
         }
 
         @Override
-        void notifyUpdate(V2beta2HorizontalPodAutoscaler original, V2beta2HorizontalPodAutoscaler current) {
+        protected void notifyUpdate(V2beta2HorizontalPodAutoscaler original, V2beta2HorizontalPodAutoscaler current) {
             resourceUpdateMonitor.onHorizontalPodAutoscalerUpdate(original, current);
         }
     }
@@ -6,12 +6,47 @@
 
 package com.microsoft.jenkins.kubernetes;
 
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.jenkins.kubernetes.credentials.ResolvedDockerRegistryEndpoint;
 import com.microsoft.jenkins.kubernetes.util.Constants;
+import com.microsoft.jenkins.kubernetes.wrapper.DiscoverySnapshot;
 import com.microsoft.jenkins.kubernetes.wrapper.KubernetesClientWrapper;
+import com.microsoft.jenkins.kubernetes.wrapper.RawResource;
 import hudson.EnvVars;
+import hudson.FilePath;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.models.V1ConfigMap;
+import io.kubernetes.client.openapi.models.V1DeploymentBuilder;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.apache.commons.codec.binary.Base64;
+import org.jenkinsci.plugins.docker.commons.credentials.DockerRegistryToken;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -42,6 +77,498 @@ public class KubernetesClientWrapperTest {
         assertTrue(KubernetesClientWrapper.prepareSecretName(null, new String(new char[lengthLimit + 1]).replace('\0', 'a'), new EnvVars()).length() <= Constants.KUBERNETES_NAME_LENGTH_LIMIT);
     }
 
+    @Test
+    public void testPrepareSecretNameFromRegistries() throws Exception {
+        ResolvedDockerRegistryEndpoint hub = endpoint("https://index.docker.io/v1/", "user", "password");
+        ResolvedDockerRegistryEndpoint acr = endpoint("https://acr.azurecr.io", "acr-user", "password");
+
+        String name = KubernetesClientWrapper.prepareSecretName(null, "job", Arrays.asList(hub, acr), new EnvVars());
+        assertTrue(name.startsWith(Constants.KUBERNETES_SECRET_NAME_PREFIX));
+        assertTrue(Constants.KUBERNETES_NAME_PATTERN.matcher(name).matches());
+        // stable for the same registries and users, in any order and with any password
+        assertEquals(name, KubernetesClientWrapper.prepareSecretName(
+                null, "job", Arrays.asList(acr, hub), new EnvVars()));
+        assertEquals(name, KubernetesClientWrapper.prepareSecretName("  ", "job", Arrays.asList(
+                hub, endpoint("https://acr.azurecr.io", "acr-user", "rotated")), new EnvVars()));
+
+        assertFalse(name.equals(KubernetesClientWrapper.prepareSecretName(null, "job", Arrays.asList(
+                hub, endpoint("https://acr.azurecr.io", "other-user", "password")), new EnvVars())));
+        // each job owns its secret, so that the pruning by one job does not affect the others
+        assertFalse(name.equals(KubernetesClientWrapper.prepareSecretName(
+                null, "other-job", Arrays.asList(hub, acr), new EnvVars())));
+        assertEquals("configured", KubernetesClientWrapper.prepareSecretName(
+                "configured", "job", Arrays.asList(hub, acr), new EnvVars()));
+    }
+
+    private static ResolvedDockerRegistryEndpoint endpoint(String url, String user, String password)
+            throws Exception {
+        String auth = Base64.encodeBase64String((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+        return new ResolvedDockerRegistryEndpoint(new URL(url), new DockerRegistryToken("", auth));
+    }
+
+    @Test
+    public void testPruneSecrets() throws Exception {
+        Map<String, String> labels = KubernetesClientWrapper.secretLabels("folder/job");
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("{\"kind\": \"SecretList\", \"apiVersion\": \"v1\", \"items\": ["
+                + secretJson("current", labels, null) + ", "
+                + secretJson("unused", labels, null) + ", "
+                + secretJson("old-1", labels, 1) + ", "
+                + secretJson("old-5", labels, 5) + ", "
+                + secretJson("recent", labels, 9) + "]}"));
+        server.enqueue(new MockResponse().setBody(secretJson("unused", labels, 10)));
+        server.enqueue(new MockResponse().setBody("{\"kind\": \"Status\", \"apiVersion\": \"v1\"}"));
+        server.start();
+        try {
+            ApiClient client = new ApiClient();
+            client.setBasePath("http://" + server.getHostName() + ":" + server.getPort());
+            new KubernetesClientWrapper(client).withLogger(new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"))
+                    .pruneSecrets("default", "current", "folder/job", 10, 2);
+
+            String jobSelector = Constants.KUBERNETES_MANAGED_BY_LABEL + "=" + Constants.KUBERNETES_MANAGED_BY_VALUE
+                    + "," + Constants.KUBERNETES_JOB_LABEL + "=" + labels.get(Constants.KUBERNETES_JOB_LABEL);
+            RecordedRequest list = server.takeRequest();
+            assertEquals("GET", list.getMethod());
+            assertEquals(jobSelector, list.getRequestUrl().queryParameter("labelSelector"));
+
+            // the secret found unused for the first time is only marked
+            RecordedRequest mark = server.takeRequest();
+            assertEquals("PUT", mark.getMethod());
+            assertEquals("/api/v1/namespaces/default/secrets/unused", mark.getPath());
+            assertTrue(mark.getBody().readUtf8().contains(
+                    "\"" + Constants.KUBERNETES_SUPERSEDED_LABEL + "\":\"10\""));
+
+            RecordedRequest delete = server.takeRequest();
+            assertEquals("DELETE", delete.getMethod());
+            assertEquals(jobSelector + "," + Constants.KUBERNETES_SUPERSEDED_LABEL + " in (1,5)",
+                    delete.getRequestUrl().queryParameter("labelSelector"));
+            assertEquals("metadata.name!=current", delete.getRequestUrl().queryParameter("fieldSelector"));
+            assertEquals(3, server.getRequestCount());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testCreateOrReplaceSecretsSkipsUnchanged() throws Exception {
+        final Map<String, String> secrets = new ConcurrentHashMap<>();
+        final AtomicInteger writes = new AtomicInteger();
+        final AtomicInteger reads = new AtomicInteger();
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getRequestUrl().encodedPath();
+                if ("GET".equals(request.getMethod())) {
+                    reads.incrementAndGet();
+                    String body = secrets.get(path);
+                    return body == null ? new MockResponse().setResponseCode(404) : new MockResponse().setBody(body);
+                }
+                writes.incrementAndGet();
+                String body = request.getBody().readUtf8();
+                secrets.put("POST".equals(request.getMethod()) ? path + "/secret" : path, body);
+                return new MockResponse().setResponseCode(201).setBody(body);
+            }
+        });
+        server.start();
+        try {
+            ApiClient client = new ApiClient();
+            client.setBasePath("http://" + server.getHostName() + ":" + server.getPort());
+            KubernetesClientWrapper wrapper = new KubernetesClientWrapper(client)
+                    .withLogger(new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+            List<ResolvedDockerRegistryEndpoint> credentials = Collections.singletonList(
+                    endpoint("https://index.docker.io/v1/", "user", "password"));
+            Map<String, String> labels = KubernetesClientWrapper.secretLabels("job");
+
+            wrapper.createOrReplaceSecrets(Arrays.asList("ns-1", "ns-2"), "secret", credentials, labels);
+            assertEquals(2, writes.get());
+            // the live secret is read once per namespace
+            assertEquals(2, reads.get());
+            String written = secrets.get("/api/v1/namespaces/ns-1/secrets/secret");
+            assertNotNull(written);
+            assertTrue(written.contains(Constants.KUBERNETES_SECRET_HASH_ANNOTATION));
+
+            wrapper.createOrReplaceSecrets(Arrays.asList("ns-1", "ns-2"), "secret", credentials, labels);
+            wrapper.createOrReplaceSecrets("ns-1", "secret", credentials, labels);
+            assertEquals(2, writes.get());
+
+            wrapper.createOrReplaceSecrets("ns-1", "secret", Collections.singletonList(
+                    endpoint("https://index.docker.io/v1/", "user", "changed")), labels);
+            assertEquals(3, writes.get());
+
+            // the secret used by another job is not written again
+            wrapper.createOrReplaceSecrets("ns-2", "secret", credentials,
+                    KubernetesClientWrapper.secretLabels("other-job"));
+            assertEquals(3, writes.get());
+
+            // unless the pruning of the job which wrote it marked it as unused
+            String path = "/api/v1/namespaces/ns-2/secrets/secret";
+            JsonObject marked = new JsonParser().parse(secrets.get(path)).getAsJsonObject();
+            marked.getAsJsonObject("metadata").getAsJsonObject("labels")
+                    .addProperty(Constants.KUBERNETES_SUPERSEDED_LABEL, "2");
+            secrets.put(path, marked.toString());
+            wrapper.createOrReplaceSecrets("ns-2", "secret", credentials,
+                    KubernetesClientWrapper.secretLabels("other-job"));
+            assertEquals(4, writes.get());
+            assertFalse(secrets.get(path).contains(Constants.KUBERNETES_SUPERSEDED_LABEL));
+            assertTrue(secrets.get(path).contains(KubernetesClientWrapper.secretLabels("other-job")
+                    .get(Constants.KUBERNETES_JOB_LABEL)));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static String secretJson(String name, Map<String, String> jobLabels, Integer superseded) {
+        return "{\"metadata\": {\"name\": \"" + name + "\", \"namespace\": \"default\", \"labels\": {"
+                + "\"" + Constants.KUBERNETES_MANAGED_BY_LABEL + "\": \"" + Constants.KUBERNETES_MANAGED_BY_VALUE + "\", "
+                + (superseded == null ? "" : "\"" + Constants.KUBERNETES_SUPERSEDED_LABEL + "\": \"" + superseded + "\", ")
+                + "\"" + Constants.KUBERNETES_JOB_LABEL + "\": \"" + jobLabels.get(Constants.KUBERNETES_JOB_LABEL) + "\"}}}";
+    }
+
+    @Test
+    public void testPruneSecretsSharedBetweenJobs() throws Exception {
+        FakeSecrets secrets = new FakeSecrets();
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(secrets);
+        server.start();
+        try {
+            ApiClient client = new ApiClient();
+            client.setBasePath("http://" + server.getHostName() + ":" + server.getPort());
+            KubernetesClientWrapper wrapper = new KubernetesClientWrapper(client)
+                    .withLogger(new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+            List<ResolvedDockerRegistryEndpoint> credentials = Collections.singletonList(
+                    endpoint("https://index.docker.io/v1/", "user", "password"));
+
+            // both jobs are configured with the same secret name, job-a wrote it and job-b uses it unchanged
+            wrapper.createOrReplaceSecrets("default", "shared", credentials,
+                    KubernetesClientWrapper.secretLabels("job-a"));
+            wrapper.createOrReplaceSecrets("default", "shared", credentials,
+                    KubernetesClientWrapper.secretLabels("job-b"));
+
+            // job-a moves to another secret, and finds the shared one unused
+            wrapper.createOrReplaceSecrets("default", "job-a-only", credentials,
+                    KubernetesClientWrapper.secretLabels("job-a"));
+            wrapper.pruneSecrets("default", "job-a-only", "job-a", 2, 1);
+            assertTrue(secrets.get("shared").contains(Constants.KUBERNETES_SUPERSEDED_LABEL));
+
+            // job-b still uses the shared secret, which takes it over and removes the mark
+            wrapper.createOrReplaceSecrets("default", "shared", credentials,
+                    KubernetesClientWrapper.secretLabels("job-b"));
+            assertFalse(secrets.get("shared").contains(Constants.KUBERNETES_SUPERSEDED_LABEL));
+
+            wrapper.createOrReplaceSecrets("default", "job-a-only", credentials,
+                    KubernetesClientWrapper.secretLabels("job-a"));
+            wrapper.pruneSecrets("default", "job-a-only", "job-a", 5, 1);
+            assertNotNull(secrets.get("shared"));
+            assertNotNull(secrets.get("job-a-only"));
+
+            // job-b moves away from the shared secret too, which is deleted by job-b once it has not used it
+            wrapper.createOrReplaceSecrets("default", "job-b-only", credentials,
+                    KubernetesClientWrapper.secretLabels("job-b"));
+            wrapper.pruneSecrets("default", "job-b-only", "job-b", 3, 1);
+            assertNotNull(secrets.get("shared"));
+            wrapper.pruneSecrets("default", "job-b-only", "job-b", 4, 1);
+            assertNull(secrets.get("shared"));
+            assertNotNull(secrets.get("job-a-only"));
+            assertNotNull(secrets.get("job-b-only"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    /**
+     * In-memory secrets of the namespace {@code default}, with the label and field selectors used by the pruning.
+     */
+    private static final class FakeSecrets extends Dispatcher {
+        private static final String PREFIX = "/api/v1/namespaces/default/secrets";
+        private final Map<String, JsonObject> secrets = new ConcurrentHashMap<>();
+
+        String get(String name) {
+            JsonObject secret = secrets.get(name);
+            return secret == null ? null : secret.toString();
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            String path = request.getRequestUrl().encodedPath();
+            String name = path.length() > PREFIX.length() ? path.substring(PREFIX.length() + 1) : null;
+            switch (request.getMethod()) {
+                case "GET":
+                    if (name == null) {
+                        StringBuilder items = new StringBuilder();
+                        for (JsonObject secret : select(request)) {
+                            items.append(items.length() == 0 ? "" : ",").append(secret);
+                        }
+                        return new MockResponse().setBody(
+                                "{\"kind\": \"SecretList\", \"apiVersion\": \"v1\", \"items\": [" + items + "]}");
+                    }
+                    return secrets.containsKey(name)
+                            ? new MockResponse().setBody(secrets.get(name).toString())
+                            : new MockResponse().setResponseCode(404);
+                case "DELETE":
+                    for (JsonObject secret : select(request)) {
+                        secrets.remove(secret.getAsJsonObject("metadata").get("name").getAsString());
+                    }
+                    return new MockResponse().setBody("{\"kind\": \"Status\", \"apiVersion\": \"v1\"}");
+                default:
+                    JsonObject secret = new JsonParser().parse(request.getBody().readUtf8()).getAsJsonObject();
+                    secrets.put(secret.getAsJsonObject("metadata").get("name").getAsString(), secret);
+                    return new MockResponse().setResponseCode(201).setBody(secret.toString());
+            }
+        }
+
+        private List<JsonObject> select(RecordedRequest request) {
+            String labelSelector = request.getRequestUrl().queryParameter("labelSelector");
+            String fieldSelector = request.getRequestUrl().queryParameter("fieldSelector");
+            List<JsonObject> selected = new ArrayList<>();
+            for (JsonObject secret : secrets.values()) {
+                JsonObject metadata = secret.getAsJsonObject("metadata");
+                if (fieldSelector != null
+                        && fieldSelector.equals("metadata.name!=" + metadata.get("name").getAsString())) {
+                    continue;
+                }
+                JsonObject labels = metadata.has("labels") ? metadata.getAsJsonObject("labels") : new JsonObject();
+                if (matches(labels, labelSelector)) {
+                    selected.add(secret);
+                }
+            }
+            return selected;
+        }
+
+        private static boolean matches(JsonObject labels, String selector) {
+            for (String requirement : selector.split(",(?![^(]*\\))")) {
+                int in = requirement.indexOf(" in (");
+                if (in >= 0) {
+                    String key = requirement.substring(0, in);
+                    List<String> values = Arrays.asList(
+                            requirement.substring(in + " in (".length(), requirement.length() - 1).split(","));
+                    if (!labels.has(key) || !values.contains(labels.get(key).getAsString())) {
+                        return false;
+                    }
+                } else {
+                    String[] pair = requirement.split("=", 2);
+                    if (!labels.has(pair[0]) || !pair[1].equals(labels.get(pair[0]).getAsString())) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    @Test
+    public void testForContexts() throws Exception {
+        Map<String, KubernetesClientWrapper> wrappers = KubernetesClientWrapper.forContexts(
+                readResource("kubeconfig-contexts.yml"), Arrays.asList("west-context", "east-context"));
+        assertEquals(Arrays.asList("west-context", "east-context"), new ArrayList<>(wrappers.keySet()));
+        assertEquals("http://west.example.com", wrappers.get("west-context").getClient().getBasePath());
+        assertEquals("http://east.example.com", wrappers.get("east-context").getClient().getBasePath());
+
+        try {
+            KubernetesClientWrapper.forContexts(
+                    readResource("kubeconfig-contexts.yml"), Collections.singletonList("north-context"));
+            fail("Should throw IllegalArgumentException for unknown context");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("north-context"));
+        }
+    }
+
+    private static Reader readResource(String name) {
+        return new InputStreamReader(
+                KubernetesClientWrapperTest.class.getResourceAsStream(name), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testApplyAbortCancelsInFlightCalls() throws Exception {
+        MockWebServer server = new MockWebServer();
+        // the read of the first resource never returns in time
+        server.enqueue(new MockResponse().setResponseCode(404).setHeadersDelay(1, TimeUnit.MINUTES));
+        server.start();
+        try {
+            ApiClient client = new ApiClient();
+            client.setBasePath("http://" + server.getHostName() + ":" + server.getPort());
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final KubernetesClientWrapper wrapper = new KubernetesClientWrapper(client)
+                    .withLogger(new PrintStream(output, true, "UTF-8"));
+            final FilePath configFile = new FilePath(
+                    new File(KubernetesClientWrapperTest.class.getResource("configmaps.yml").toURI()));
+
+            final AtomicReference<Throwable> error = new AtomicReference<>();
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        wrapper.apply(new FilePath[]{configFile});
+                    } catch (Throwable t) {
+                        error.set(t);
+                    }
+                }
+            });
+            thread.start();
+
+            assertNotNull(server.takeRequest(10, TimeUnit.SECONDS));
+            // as the cluster fan-out does when the build is aborted
+            wrapper.cancel();
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(15));
+
+            assertFalse(thread.isAlive());
+            assertTrue(error.get() instanceof InterruptedException);
+            assertEquals(1, server.getRequestCount());
+            String log = output.toString("UTF-8");
+            assertTrue(log.contains("in progress when the deployment was aborted: V1ConfigMap/first-config"));
+            assertTrue(log.contains("1 resource(s) were not applied: [V1ConfigMap/second-config]"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testApplyCustomResourcesAfterDefinition() throws Exception {
+        final Map<String, String> objects = new ConcurrentHashMap<>();
+        final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+        final String crdPath = "/apis/apiextensions.k8s.io/v1beta1/customresourcedefinitions";
+        final String groups = "{\"groups\": [{\"name\": \"apiextensions.k8s.io\", "
+                + "\"versions\": [{\"groupVersion\": \"apiextensions.k8s.io/v1beta1\", \"version\": \"v1beta1\"}]}";
+        objects.put("/version", "{\"major\": \"1\", \"minor\": \"14\", \"gitVersion\": \"v1.14.0\"}");
+        objects.put("/api", "{\"versions\": [\"v1\"]}");
+        objects.put("/apis", groups + "]}");
+        objects.put("/apis/apiextensions.k8s.io/v1beta1",
+                "{\"resources\": [{\"name\": \"customresourcedefinitions\", "
+                        + "\"kind\": \"CustomResourceDefinition\", \"namespaced\": false}]}");
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getRequestUrl().encodedPath();
+                requests.add(request.getMethod() + " " + path);
+                if ("GET".equals(request.getMethod())) {
+                    String body = objects.get(path);
+                    return body == null ? new MockResponse().setResponseCode(404) : new MockResponse().setBody(body);
+                }
+                String body = request.getBody().readUtf8();
+                String name = new JsonParser().parse(body).getAsJsonObject()
+                        .getAsJsonObject("metadata").get("name").getAsString();
+                if (path.equals(crdPath)) {
+                    // the definition is established, and the kind is served
+                    objects.put(path + "/" + name, body.substring(0, body.lastIndexOf('}'))
+                            + ", \"status\": {\"conditions\": [{\"type\": \"Established\", \"status\": \"True\"}]}}");
+                    objects.put("/apis/example.com/v1", "{\"resources\": [{\"name\": \"certificates\", "
+                            + "\"kind\": \"Certificate\", \"namespaced\": true}]}");
+                    objects.put("/apis", groups + ", {\"name\": \"example.com\", \"versions\": "
+                            + "[{\"groupVersion\": \"example.com/v1\", \"version\": \"v1\"}]}]}");
+                } else {
+                    objects.put(path + "/" + name, body);
+                }
+                return new MockResponse().setResponseCode(201).setBody(body);
+            }
+        });
+        server.start();
+        try {
+            ApiClient client = new ApiClient();
+            client.setBasePath("http://" + server.getHostName() + ":" + server.getPort());
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            KubernetesClientWrapper wrapper = new KubernetesClientWrapper(client)
+                    .withLogger(new PrintStream(output, true, "UTF-8"));
+            FilePath configFile = new FilePath(
+                    new File(KubernetesClientWrapperTest.class.getResource("custom-resources.yml").toURI()));
+
+            List<Object> resources = wrapper.loadResources(new FilePath[]{configFile});
+            assertEquals(3, resources.size());
+            assertTrue(resources.get(0) instanceof RawResource);
+            assertTrue(resources.get(1) instanceof RawResource);
+            assertTrue(resources.get(2) instanceof V1ConfigMap);
+
+            DiscoverySnapshot snapshot = wrapper.refreshDiscovery();
+            assertEquals("v1.14.0", snapshot.getServerVersion());
+            assertTrue(snapshot.isServed("v1"));
+            assertFalse(snapshot.isServed("example.com/v1"));
+            wrapper.applyResources(resources);
+            assertTrue(objects.containsKey("/apis/example.com/v1/namespaces/default/certificates/web"));
+            assertTrue(objects.containsKey("/api/v1/namespaces/default/configmaps/app"));
+            assertTrue(snapshot.isServed("example.com/v1"));
+            assertTrue(requests.lastIndexOf("GET " + crdPath + "/certificates.example.com")
+                    < requests.indexOf("GET /apis/example.com/v1"));
+            assertTrue(output.toString("UTF-8")
+                    .contains("Waiting for CustomResourceDefinition certificates.example.com to be established"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testStaleDiscoveryIsRefreshedBeforeRejecting() throws Exception {
+        final Map<String, String> objects = new ConcurrentHashMap<>();
+        final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+        objects.put("/version", "{\"major\": \"1\", \"minor\": \"14\", \"gitVersion\": \"v1.14.0\"}");
+        objects.put("/api", "{\"versions\": [\"v1\"]}");
+        objects.put("/apis", "{\"groups\": []}");
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getRequestUrl().encodedPath();
+                requests.add(request.getMethod() + " " + path);
+                if ("GET".equals(request.getMethod())) {
+                    String body = objects.get(path);
+                    return body == null ? new MockResponse().setResponseCode(404) : new MockResponse().setBody(body);
+                }
+                String body = request.getBody().readUtf8();
+                objects.put(path + "/app", body);
+                return new MockResponse().setResponseCode(201).setBody(body);
+            }
+        });
+        server.start();
+        try {
+            ApiClient client = new ApiClient();
+            client.setBasePath("http://" + server.getHostName() + ":" + server.getPort());
+            KubernetesClientWrapper wrapper = new KubernetesClientWrapper(client)
+                    .withLogger(new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+            DiscoverySnapshot snapshot = wrapper.refreshDiscovery();
+            assertFalse(snapshot.isServed("apps/v1"));
+
+            // the group is served since the snapshot was taken
+            objects.put("/apis", "{\"groups\": [{\"name\": \"apps\", "
+                    + "\"versions\": [{\"groupVersion\": \"apps/v1\", \"version\": \"v1\"}]}]}");
+            wrapper.applyResources(Collections.<Object>singletonList(new V1DeploymentBuilder()
+                    .withApiVersion("apps/v1")
+                    .withKind("Deployment")
+                    .withNewMetadata().withName("app").withNamespace("default").endMetadata()
+                    .build()));
+            assertTrue(objects.containsKey("/apis/apps/v1/namespaces/default/deployments/app"));
+            assertTrue(snapshot.isServed("apps/v1"));
+            assertEquals(2, Collections.frequency(requests, "GET /apis"));
+
+            // the persisted copy keeps the served group versions
+            DiscoverySnapshot persisted = snapshot.withoutResources();
+            assertEquals("v1.14.0", persisted.getServerVersion());
+            assertTrue(persisted.isServed("apps/v1"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testLoadAnchoredResources() throws Exception {
+        KubernetesClientWrapper wrapper = new KubernetesClientWrapper(new ApiClient())
+                .withLogger(new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+        FilePath configFile = new FilePath(
+                new File(KubernetesClientWrapperTest.class.getResource("anchored-resources.yml").toURI()));
+
+        List<Object> resources = wrapper.loadResources(new FilePath[]{configFile});
+        assertEquals(2, resources.size());
+        RawResource certificate = (RawResource) resources.get(0);
+        assertEquals("web", certificate.getMetadata().getName());
+        JsonObject spec = new JsonParser().parse(certificate.toString()).getAsJsonObject().getAsJsonObject("spec");
+        assertEquals("web", spec.getAsJsonObject("selector").getAsJsonObject("matchLabels").get("app").getAsString());
+        assertEquals("web", spec.getAsJsonObject("template").getAsJsonObject("metadata")
+                .getAsJsonObject("labels").get("app").getAsString());
+
+        V1ConfigMap configMap = (V1ConfigMap) resources.get(1);
+        assertEquals(Collections.singletonMap("app", "web"), configMap.getMetadata().getAnnotations());
+        assertEquals("value", configMap.getData().get("key"));
+    }
+
     private <T extends Exception> void assertException(Class<T> clazz, Runnable action) {
         try {
             action.run();
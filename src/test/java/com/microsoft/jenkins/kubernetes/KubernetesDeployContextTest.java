@@ -7,6 +7,8 @@
 package com.microsoft.jenkins.kubernetes;
 
 import com.google.common.collect.ImmutableList;
+import com.microsoft.jenkins.kubernetes.command.PartialFailurePolicy;
+import com.microsoft.jenkins.kubernetes.credentials.KubernetesCredentialsType;
 import com.microsoft.jenkins.kubernetes.credentials.ResolvedDockerRegistryEndpoint;
 import com.microsoft.jenkins.kubernetes.util.Constants;
 import hudson.model.Item;
@@ -21,6 +23,7 @@ import java.util.List;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -70,6 +73,49 @@ public class KubernetesDeployContextTest {
                 ), context.getDockerCredentials());
     }
 
+    @Test
+    public void testKubeconfigIds() {
+        KubernetesDeployContext context = new KubernetesDeployContext();
+        assertListEquals(ImmutableList.of(), context.getKubeconfigIds());
+
+        context.setKubeconfigIds(Arrays.asList(" cluster-1 ", "", null, "cluster-2", "cluster-1"));
+        assertListEquals(ImmutableList.of("cluster-1", "cluster-2"), context.getKubeconfigIds());
+    }
+
+    @Test
+    public void testValidateContexts() {
+        KubernetesDeployContext context = new KubernetesDeployContext();
+        context.setCredentialsType(KubernetesCredentialsType.Text.name());
+        context.validateContexts();
+
+        context.setContexts(Arrays.asList("east", "west"));
+        try {
+            context.validateContexts();
+            fail("contexts cannot be selected with the text credentials");
+        } catch (IllegalArgumentException e) {
+            assertEquals(Messages.KubernetesDeployContext_contextsNotSupported(KubernetesCredentialsType.Text),
+                    e.getMessage());
+        }
+
+        context.setKubeconfigId("kubeconfig");
+        context.validateContexts();
+        context.setKubeconfigId(null);
+        context.setCredentialsType(KubernetesCredentialsType.SSH.name());
+        context.validateContexts();
+    }
+
+    @Test
+    public void testPartialFailurePolicy() {
+        KubernetesDeployContext context = new KubernetesDeployContext();
+        assertEquals(PartialFailurePolicy.FAIL, context.getPartialFailurePolicyEnum());
+
+        context.setPartialFailurePolicy("unstable");
+        assertEquals(PartialFailurePolicy.UNSTABLE, context.getPartialFailurePolicyEnum());
+
+        context.setPartialFailurePolicy("unknown");
+        assertEquals(PartialFailurePolicy.FAIL, context.getPartialFailurePolicyEnum());
+    }
+
     private <T> void assertListEquals(List<? extends T> expected, List<? extends T> actual) {
         assertNotNull(actual);
         assertEquals(expected.toString(), actual.toString());
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.domains.Domain;
+import com.microsoft.jenkins.kubernetes.credentials.KubeconfigCredentials;
+import hudson.model.Result;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.LoggerRule;
+import org.jvnet.hudson.test.RestartableJenkinsRule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link KubernetesDeployStepExecution}.
+ */
+public class KubernetesDeployStepExecutionTest {
+    private static final long TIMEOUT_SECONDS = 60L;
+
+    @Rule
+    public RestartableJenkinsRule story = new RestartableJenkinsRule();
+
+    @Rule
+    public LoggerRule logging = new LoggerRule()
+            .record(KubernetesDeployStepExecution.class, Level.FINE).capture(100);
+
+    private final ClusterDispatcher cluster = new ClusterDispatcher();
+    private final MockWebServer server = new MockWebServer();
+
+    @Before
+    public void setUp() throws Exception {
+        server.setDispatcher(cluster);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cluster.release.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void testAbort() {
+        story.then(new RestartableJenkinsRule.Step() {
+            @Override
+            public void run(JenkinsRule r) throws Throwable {
+                WorkflowRun run = createJob(r).scheduleBuild2(0).waitForStart();
+                assertTrue(cluster.called.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+                run.doStop();
+                r.assertBuildStatus(Result.ABORTED, r.waitForCompletion(run));
+                cluster.release.countDown();
+                // the interrupted worker finishes later, and does not complete the step again
+                waitForLog("Kubernetes deployment failed after the step was completed");
+            }
+        });
+    }
+
+    @Test
+    public void testResume() {
+        story.then(new RestartableJenkinsRule.Step() {
+            @Override
+            public void run(JenkinsRule r) throws Throwable {
+                createJob(r).scheduleBuild2(0).waitForStart();
+                assertTrue(cluster.called.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+        });
+        story.then(new RestartableJenkinsRule.Step() {
+            @Override
+            public void run(JenkinsRule r) throws Throwable {
+                // the worker started before the restart stays blocked, as if the old controller was gone
+                cluster.hang = false;
+                WorkflowRun run = r.jenkins.getItemByFullName("deploy", WorkflowJob.class).getBuildByNumber(1);
+                r.assertBuildStatusSuccess(r.waitForCompletion(run));
+                r.assertLogContains(Messages.KubernetesDeployStepExecution_resuming(), run);
+                r.assertLogContains(Messages.DeploymentCommand_resumed(), run);
+                r.assertLogContains(Messages.KubernetesDeploy_finished(), run);
+            }
+        });
+    }
+
+    private WorkflowJob createJob(JenkinsRule r) throws Exception {
+        String kubeconfig = "apiVersion: v1\n"
+                + "kind: Config\n"
+                + "clusters:\n"
+                + "- name: test\n"
+                + "  cluster:\n"
+                + "    server: http://" + server.getHostName() + ":" + server.getPort() + "\n"
+                + "contexts:\n"
+                + "- name: test\n"
+                + "  context:\n"
+                + "    cluster: test\n"
+                + "    user: test\n"
+                + "current-context: test\n"
+                + "users:\n"
+                + "- name: test\n"
+                + "  user:\n"
+                + "    token: secret\n";
+        CredentialsProvider.lookupStores(r.jenkins).iterator().next().addCredentials(Domain.global(),
+                new KubeconfigCredentials(CredentialsScope.GLOBAL, "kubeconfig", "",
+                        new KubeconfigCredentials.DirectEntryKubeconfigSource(kubeconfig)));
+
+        WorkflowJob job = r.jenkins.createProject(WorkflowJob.class, "deploy");
+        job.setDefinition(new CpsFlowDefinition("node {\n"
+                + "  writeFile file: 'app.yaml', text: '''apiVersion: v1\n"
+                + "kind: ConfigMap\n"
+                + "metadata:\n"
+                + "  name: app\n"
+                + "  namespace: default\n"
+                + "data:\n"
+                + "  key: value\n"
+                + "'''\n"
+                + "  kubernetesDeploy kubeconfigId: 'kubeconfig', configs: 'app.yaml'\n"
+                + "}\n", true));
+        return job;
+    }
+
+    private void waitForLog(String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (System.nanoTime() < deadline) {
+            for (LogRecord record : logging.getRecords()) {
+                if (message.equals(record.getMessage())) {
+                    return;
+                }
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("not logged: " + message);
+    }
+
+    /**
+     * Kubernetes API which holds the calls until released, and creates the ConfigMap.
+     */
+    private static final class ClusterDispatcher extends Dispatcher {
+        private final CountDownLatch called = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean hang = true;
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            called.countDown();
+            if (hang) {
+                release.await();
+                return new MockResponse().setResponseCode(500).setBody("{\"kind\": \"Status\", \"code\": 500}");
+            }
+            String path = request.getPath();
+            if ("/version".equals(path)) {
+                return new MockResponse()
+                        .setBody("{\"major\": \"1\", \"minor\": \"14\", \"gitVersion\": \"v1.14.0\"}");
+            } else if ("/api".equals(path)) {
+                return new MockResponse().setBody("{\"kind\": \"APIVersions\", \"versions\": [\"v1\"]}");
+            } else if ("/apis".equals(path)) {
+                return new MockResponse().setBody("{\"kind\": \"APIGroupList\", \"groups\": []}");
+            } else if ("POST".equals(request.getMethod())
+                    && path.startsWith("/api/v1/namespaces/default/configmaps")) {
+                return new MockResponse().setBody(request.getBody().readUtf8());
+            }
+            return new MockResponse().setResponseCode(404).setBody("{\"kind\": \"Status\", \"code\": 404}");
+        }
+    }
+}
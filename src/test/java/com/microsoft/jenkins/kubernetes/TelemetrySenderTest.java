@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link TelemetrySender}.
+ */
+public class TelemetrySenderTest {
+    @Test
+    public void testDropWhenSinkBlocks() throws Exception {
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        TelemetrySender sender = new TelemetrySender(new TelemetrySender.Sink() {
+            @Override
+            public void send(String item, String action, Map<String, String> properties) throws Exception {
+                sending.countDown();
+                release.await();
+            }
+        });
+        try {
+            assertTrue(sender.offer("item", "action", Collections.<String, String>emptyMap()));
+            assertTrue(sending.await(10, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+            for (int i = 0; i < TelemetrySender.QUEUE_CAPACITY; ++i) {
+                assertTrue(sender.offer("item", "action", Collections.<String, String>emptyMap()));
+            }
+            assertFalse(sender.offer("item", "action", Collections.<String, String>emptyMap()));
+            assertEquals(1, sender.getDropped());
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+        } finally {
+            release.countDown();
+            sender.stop();
+        }
+    }
+
+    @Test
+    public void testBackOffWhenSinkFails() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch failed = new CountDownLatch(1);
+        TelemetrySender sender = new TelemetrySender(new TelemetrySender.Sink() {
+            @Override
+            public void send(String item, String action, Map<String, String> properties) throws Exception {
+                attempts.incrementAndGet();
+                failed.countDown();
+                throw new Exception("unreachable");
+            }
+        });
+        try {
+            sender.offer("item", "action", Collections.<String, String>emptyMap());
+            assertTrue(failed.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 10; ++i) {
+                sender.offer("item", "action", Collections.<String, String>emptyMap());
+            }
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (sender.getDropped() < 11 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(11, sender.getDropped());
+            assertEquals(1, attempts.get());
+        } finally {
+            sender.stop();
+        }
+    }
+}
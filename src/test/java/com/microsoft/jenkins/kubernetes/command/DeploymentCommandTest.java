@@ -4,6 +4,9 @@ import com.microsoft.jenkins.kubernetes.wrapper.KubernetesClientWrapper;
 import io.kubernetes.client.openapi.ApiClient;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -29,4 +32,12 @@ public class DeploymentCommandTest {
         when(client.getBasePath()).thenReturn(host);
         assertEquals(host, DeploymentCommand.getMasterHost(wrapper));
     }
+
+    @Test
+    public void testSplitNamespaces() {
+        assertEquals(Collections.emptyList(), DeploymentCommand.splitNamespaces(null));
+        assertEquals(Collections.emptyList(), DeploymentCommand.splitNamespaces(" , "));
+        assertEquals(Collections.singletonList("default"), DeploymentCommand.splitNamespaces("default"));
+        assertEquals(Arrays.asList("front", "back"), DeploymentCommand.splitNamespaces(" front,back ,,front"));
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.credentials;
+
+import hudson.model.Item;
+import org.jenkinsci.plugins.docker.commons.credentials.DockerRegistryEndpoint;
+import org.jenkinsci.plugins.docker.commons.credentials.DockerRegistryToken;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DockerRegistryTokenCache}.
+ */
+public class DockerRegistryTokenCacheTest {
+    @After
+    public void tearDown() {
+        DockerRegistryTokenCache.invalidateAll();
+    }
+
+    @Test
+    public void testResolveCached() throws Exception {
+        Item item = mock(Item.class);
+        when(item.getFullName()).thenReturn("folder/job");
+        DockerRegistryToken hubToken = new DockerRegistryToken("", "aHViOnBhc3N3b3Jk");
+        DockerRegistryToken acrToken = new DockerRegistryToken("", "YWNyOnBhc3N3b3Jk");
+        DockerRegistryEndpoint hub = endpoint("https://index.docker.io/v1/", "hub", hubToken);
+        DockerRegistryEndpoint acr = endpoint("https://acr.azurecr.io", "acr", acrToken);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream logger = new PrintStream(out, true, "UTF-8");
+        List<ResolvedDockerRegistryEndpoint> resolved =
+                DockerRegistryTokenCache.resolve(item, Arrays.asList(hub, acr), logger);
+        assertEquals(2, resolved.size());
+        assertEquals(new URL("https://index.docker.io/v1/"), resolved.get(0).getUrl());
+        assertEquals(hubToken, resolved.get(0).getToken());
+        assertEquals(new URL("https://acr.azurecr.io"), resolved.get(1).getUrl());
+        assertEquals(acrToken, resolved.get(1).getToken());
+
+        resolved = DockerRegistryTokenCache.resolve(item, Arrays.asList(acr, hub), logger);
+        assertEquals(acrToken, resolved.get(0).getToken());
+        assertEquals(hubToken, resolved.get(1).getToken());
+        verify(hub, times(1)).getToken(any(Item.class));
+        verify(acr, times(1)).getToken(any(Item.class));
+        assertTrue(out.toString("UTF-8").contains("https://acr.azurecr.io"));
+
+        Item other = mock(Item.class);
+        when(other.getFullName()).thenReturn("other-job");
+        DockerRegistryTokenCache.resolve(other, Collections.singletonList(hub), logger);
+        verify(hub, times(2)).getToken(any(Item.class));
+    }
+
+    @Test
+    public void testResolveMissingCredentials() throws Exception {
+        DockerRegistryEndpoint missing = endpoint("https://index.docker.io/v1/", "missing", null);
+        try {
+            DockerRegistryTokenCache.resolve(mock(Item.class), Collections.singletonList(missing), null);
+            fail("Should throw IllegalArgumentException for missing credentials");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("No credentials found"));
+        }
+    }
+
+    private static DockerRegistryEndpoint endpoint(String url, String credentialsId, DockerRegistryToken token)
+            throws Exception {
+        DockerRegistryEndpoint endpoint = mock(DockerRegistryEndpoint.class);
+        when(endpoint.getEffectiveUrl()).thenReturn(new URL(url));
+        when(endpoint.getCredentialsId()).thenReturn(credentialsId);
+        when(endpoint.getToken(any(Item.class))).thenReturn(token);
+        return endpoint;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.credentials;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link KubeconfigCredentials}.
+ */
+public class KubeconfigCredentialsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFileOnMasterContentFollowsFileChanges() throws Exception {
+        File file = folder.newFile("kubeconfig");
+        FileUtils.writeStringToFile(file, "first");
+        long lastModified = file.lastModified();
+
+        KubeconfigCredentials.FileOnMasterKubeconfigSource source =
+                new KubeconfigCredentials.FileOnMasterKubeconfigSource(file.getAbsolutePath());
+        assertEquals("first", source.getContent());
+
+        // same size and modification time, the cached content is used
+        FileUtils.writeStringToFile(file, "other");
+        file.setLastModified(lastModified);
+        assertEquals("first", source.getContent());
+
+        // the size changed
+        FileUtils.writeStringToFile(file, "second content");
+        file.setLastModified(lastModified);
+        assertEquals("second content", source.getContent());
+
+        // the modification time changed
+        FileUtils.writeStringToFile(file, "third content!");
+        file.setLastModified(lastModified - 10000L);
+        assertEquals("third content!", source.getContent());
+
+        FileUtils.writeStringToFile(file, "fourth content");
+        file.setLastModified(lastModified - 10000L);
+        source.invalidateContent();
+        assertEquals("fourth content", source.getContent());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.credentials;
+
+import com.cloudbees.jenkins.plugins.sshcredentials.SSHUserPrivateKey;
+import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link SSHKubeconfigCache}.
+ */
+public class SSHKubeconfigCacheTest {
+    @Test
+    public void testKeyIsNotTheCredentialsId() {
+        // the same ID in the stores of two folders
+        SSHUserPrivateKey first = privateKey("shared", "admin", "first-key");
+        SSHUserPrivateKey second = privateKey("shared", "admin", "second-key");
+        assertNotNull(SSHKubeconfigCache.key("master", 22, first, ".kube/config"));
+        assertNotEquals(SSHKubeconfigCache.key("master", 22, first, ".kube/config"),
+                SSHKubeconfigCache.key("master", 22, second, ".kube/config"));
+
+        assertNotEquals(SSHKubeconfigCache.key("master", 22, first, ".kube/config"),
+                SSHKubeconfigCache.key("master", 22, privateKey("shared", "other", "first-key"), ".kube/config"));
+
+        // the same secret under another ID shares the entry
+        assertEquals(SSHKubeconfigCache.key("master", 22, first, ".kube/config"),
+                SSHKubeconfigCache.key("master", 22, privateKey("copy", "admin", "first-key"), ".kube/config"));
+    }
+
+    @Test
+    public void testUnknownCredentialsAreNotCached() {
+        StandardUsernameCredentials credentials = mock(StandardUsernameCredentials.class);
+        when(credentials.getId()).thenReturn("shared");
+        when(credentials.getUsername()).thenReturn("admin");
+        assertNull(SSHKubeconfigCache.key("master", 22, credentials, ".kube/config"));
+    }
+
+    private static SSHUserPrivateKey privateKey(String id, String username, String key) {
+        SSHUserPrivateKey credentials = mock(SSHUserPrivateKey.class);
+        when(credentials.getId()).thenReturn(id);
+        when(credentials.getUsername()).thenReturn(username);
+        when(credentials.getPrivateKeys()).thenReturn(Collections.singletonList(key));
+        return credentials;
+    }
+}
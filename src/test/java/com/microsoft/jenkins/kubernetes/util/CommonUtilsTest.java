@@ -8,6 +8,9 @@ package com.microsoft.jenkins.kubernetes.util;
 
 import com.google.common.collect.ImmutableMap;
 import hudson.util.VariableResolver;
+import io.kubernetes.client.openapi.models.V1ConfigMap;
+import io.kubernetes.client.openapi.models.V1ConfigMapBuilder;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
@@ -18,6 +21,8 @@ import java.util.Map;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -131,6 +136,33 @@ public class CommonUtilsTest {
         }
     }
 
+    @Test
+    public void testMetadataAccess() {
+        V1ConfigMap configMap = new V1ConfigMapBuilder().withApiVersion("v1")
+                .withNewMetadata().withName("app").withNamespace("ns").endMetadata().build();
+        assertSame(configMap.getMetadata(), CommonUtils.getMetadata(configMap));
+        assertEquals("app", CommonUtils.getResourceName(configMap));
+        assertEquals("v1", CommonUtils.getApiVersion(configMap));
+
+        assertNull(CommonUtils.getMetadata(new V1ConfigMap()));
+        assertNull(CommonUtils.getResourceName(new V1ConfigMap()));
+        assertNull(CommonUtils.getMetadata("app"));
+        assertNull(CommonUtils.getApiVersion("app"));
+        // the getters of a non-public class
+        assertEquals("hidden", CommonUtils.getResourceName(new Hidden()));
+        assertNull(CommonUtils.getApiVersion(new Hidden()));
+    }
+
+    private static final class Hidden {
+        public V1ObjectMeta getMetadata() {
+            return new V1ObjectMeta().name("hidden");
+        }
+
+        public Integer getApiVersion() {
+            return 1;
+        }
+    }
+
     /**
      * Check the character set in a string, and returns an integer mask which represents the results as followed:
      * <p>
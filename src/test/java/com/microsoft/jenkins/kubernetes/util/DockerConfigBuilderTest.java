@@ -93,6 +93,13 @@ public class DockerConfigBuilderTest {
         verifyAuthsObject(node, endpoints);
     }
 
+    @Test
+    public void testBuildDockerConfigJsonString() throws Exception {
+        JsonNode node = MAPPER.readTree(new DockerConfigBuilder(Arrays.asList(endpoints)).buildDockerConfigJsonString());
+        assertEquals(1, node.size());
+        verifyAuthsObject(node.get("auths"), endpoints);
+    }
+
     @Test
     public void testBuildDockercfgBase64() throws Exception {
         String base64 = new DockerConfigBuilder(Arrays.asList(endpoints)).buildDockercfgBase64();
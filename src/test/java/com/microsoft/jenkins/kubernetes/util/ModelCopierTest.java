@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.util;
+
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.openapi.models.V1StatefulSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for {@link ModelCopier}.
+ */
+public class ModelCopierTest {
+    @Test
+    public void testCopy() {
+        V1StatefulSet original = ModelCopierBenchmark.statefulSet(3);
+        V1StatefulSet copy = ModelCopier.copy(original);
+
+        assertEquals(original, copy);
+        assertEquals(KubernetesJsonUtils.getKubernetesJson().serialize(original),
+                KubernetesJsonUtils.getKubernetesJson().serialize(copy));
+        assertNotSame(original.getMetadata(), copy.getMetadata());
+        assertNotSame(original.getMetadata().getLabels(), copy.getMetadata().getLabels());
+        assertNotSame(original.getSpec().getTemplate().getSpec().getContainers(),
+                copy.getSpec().getTemplate().getSpec().getContainers());
+        Quantity cpu = original.getSpec().getTemplate().getSpec().getContainers().get(0)
+                .getResources().getLimits().get("cpu");
+        assertSame(cpu, copy.getSpec().getTemplate().getSpec().getContainers().get(0)
+                .getResources().getLimits().get("cpu"));
+
+        copy.getMetadata().getLabels().put("app", "changed");
+        copy.getSpec().getTemplate().getSpec().getContainers().get(1).setImage("changed");
+        copy.getSpec().getTemplate().getSpec().getContainers().remove(2);
+        assertEquals("app", original.getMetadata().getLabels().get("app"));
+        assertEquals("nginx:1", original.getSpec().getTemplate().getSpec().getContainers().get(1).getImage());
+        assertEquals(3, original.getSpec().getTemplate().getSpec().getContainers().size());
+    }
+
+    @Test
+    public void testCopyNull() {
+        assertNull(ModelCopier.copy(null));
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import io.kubernetes.client.openapi.ApiClient;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ApiCallStats}.
+ */
+public class ApiCallStatsTest {
+    @Test
+    public void testPathTemplate() {
+        assertTemplate("/api/v1/namespaces/{namespace}/pods/{name}", "pods", "/api/v1/namespaces/ns/pods/app");
+        assertTemplate("/api/v1/namespaces/{namespace}/pods/{name}/status", "pods",
+                "/api/v1/namespaces/ns/pods/app/status");
+        assertTemplate("/apis/apps/v1/namespaces/{namespace}/deployments", "deployments",
+                "/apis/apps/v1/namespaces/ns/deployments");
+        assertTemplate("/api/v1/namespaces/{name}", "namespaces", "/api/v1/namespaces/ns");
+        assertTemplate("/api/v1/namespaces", "namespaces", "/api/v1/namespaces");
+        assertTemplate("/apis/rbac.authorization.k8s.io/v1/clusterroles/{name}", "clusterroles",
+                "/apis/rbac.authorization.k8s.io/v1/clusterroles/admin");
+        assertTemplate("/apis/apps/v1", "/apis/apps/v1", "/apis/apps/v1");
+        assertTemplate("/version", "/version", "/version");
+        assertTemplate("/", "/", "/");
+    }
+
+    @Test
+    public void testCalls() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("{\"kind\": \"ConfigMap\"}")
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setResponseCode(409).setBody("conflict"));
+        server.enqueue(new MockResponse().setBody("{}"));
+        server.start();
+        try {
+            ApiClient client = new ApiClient();
+            client.setBasePath("http://" + server.getHostName() + ":" + server.getPort());
+            KubernetesClientWrapper wrapper = new KubernetesClientWrapper(client);
+            ApiCallStats stats = wrapper.getApiCallStats();
+            OkHttpClient httpClient = client.getHttpClient();
+
+            try (Response response = httpClient.newCall(new Request.Builder()
+                    .url(server.url("/api/v1/namespaces/ns/configmaps/app")).build()).execute()) {
+                assertEquals("{\"kind\": \"ConfigMap\"}", response.body().string());
+            }
+            RequestBody body = RequestBody.create(MediaType.parse("application/json"), "{\"a\":1}");
+            try (Response response = httpClient.newCall(new Request.Builder()
+                    .url(server.url("/api/v1/namespaces/ns/configmaps")).post(body).build()).execute()) {
+                assertEquals(409, response.code());
+                assertEquals("conflict", response.body().string());
+            }
+            try (Response response = httpClient.newCall(new Request.Builder()
+                    .url(server.url("/apis/apps/v1/namespaces/ns/deployments/app")).build()).execute()) {
+                assertEquals("{}", response.body().string());
+            }
+
+            assertEquals(3, stats.getCallCount());
+            List<ApiCallStats.Call> slowest = stats.getSlowestCalls();
+            assertEquals(3, slowest.size());
+            ApiCallStats.Call first = slowest.get(0);
+            assertEquals("GET", first.getMethod());
+            assertEquals("/api/v1/namespaces/{namespace}/configmaps/{name}", first.getPathTemplate());
+            assertEquals(200, first.getStatus());
+            assertEquals(21, first.getResponseBytes());
+            // the body was delayed after the headers
+            assertTrue(first.getLatencyNanos() >= TimeUnit.MILLISECONDS.toNanos(200));
+            assertTrue(first.getTtfbNanos() < first.getLatencyNanos());
+
+            Map<String, long[]> resources = stats.getResourceTotals();
+            assertArrayEquals(new long[]{2, 7, 29}, resources.get("configmaps"));
+            assertArrayEquals(new long[]{1, 0, 2}, resources.get("deployments"));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            stats.writeSummary(new PrintStream(out, true, "UTF-8"));
+            String summary = out.toString("UTF-8");
+            assertTrue(summary, summary.contains(Messages.ApiCallStats_summary(3, 7, 31, 1)));
+            assertTrue(summary, summary.contains(" 409 POST   /api/v1/namespaces/{namespace}/configmaps\n"));
+            assertTrue(summary, summary.contains("  configmaps         2            7           29\n"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        final ApiCallStats stats = new ApiCallStats();
+        final OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addNetworkInterceptor(stats.interceptor())
+                .build();
+        final MockWebServer server = new MockWebServer();
+        for (int i = 0; i < 8; ++i) {
+            server.enqueue(new MockResponse().setBody("ok"));
+        }
+        server.start();
+        try {
+            Thread[] threads = new Thread[4];
+            for (int i = 0; i < threads.length; ++i) {
+                threads[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 2; ++j) {
+                            try (Response response = httpClient.newCall(new Request.Builder()
+                                    .url(server.url("/api/v1/pods")).build()).execute()) {
+                                response.body().string();
+                            } catch (Exception e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(8, stats.getCallCount());
+            assertArrayEquals(new long[]{8, 0, 16}, stats.getResourceTotals().get("pods"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        ApiCallStats stats = new ApiCallStats();
+        final List<ApiCallStats.Call> calls = new ArrayList<>();
+        stats.addListener(new ApiCallStats.Listener() {
+            @Override
+            public void onCall(ApiCallStats.Call call) {
+                calls.add(call);
+            }
+        });
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addNetworkInterceptor(stats.interceptor())
+                .build();
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "0").setBody("busy"));
+        server.enqueue(new MockResponse().setBody("ok"));
+        server.enqueue(new MockResponse().setBody("ok"));
+        server.start();
+        try {
+            for (int i = 0; i < 2; ++i) {
+                try (Response response = httpClient.newCall(new Request.Builder()
+                        .url(server.url("/api/v1/pods")).build()).execute()) {
+                    assertEquals("ok", response.body().string());
+                }
+            }
+        } finally {
+            server.shutdown();
+        }
+
+        // the call retried by the client, then a new call of its own
+        assertEquals(3, calls.size());
+        assertEquals(503, calls.get(0).getStatus());
+        assertFalse(calls.get(0).isRetry());
+        assertEquals(200, calls.get(1).getStatus());
+        assertTrue(calls.get(1).isRetry());
+        assertEquals(2, calls.get(1).getResponseBytes());
+        assertFalse(calls.get(2).isRetry());
+        assertEquals(3, stats.getCallCount());
+    }
+
+    @Test
+    public void testNoCalls() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ApiCallStats().writeSummary(new PrintStream(out, true, "UTF-8"));
+        assertEquals(0, out.size());
+    }
+
+    private static void assertTemplate(String template, String resource, String path) {
+        List<String> segments = path.equals("/")
+                ? Collections.<String>emptyList()
+                : Arrays.asList(path.substring(1).split("/"));
+        assertEquals(template, ApiCallStats.pathTemplate(segments));
+        assertEquals(resource, ApiCallStats.resource(segments));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+import org.junit.Test;
+
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ClientCertificateTlsCache}.
+ */
+public class ClientCertificateTlsCacheTest {
+    private final HeldCertificate ca = new HeldCertificate.Builder()
+            .certificateAuthority(0)
+            .rsa2048()
+            .build();
+
+    @Test
+    public void testCachedPerFingerprint() {
+        HeldCertificate client = clientCertificate();
+        ClientCertificateTlsCache.Tls tls = ClientCertificateTlsCache.get(
+                ca.certificatePem(), client.certificatePem(), client.privateKeyPkcs1Pem());
+        assertSame(tls, ClientCertificateTlsCache.get(
+                ca.certificatePem(), client.certificatePem(), client.privateKeyPkcs1Pem()));
+
+        HeldCertificate other = clientCertificate();
+        assertNotSame(tls, ClientCertificateTlsCache.get(
+                ca.certificatePem(), other.certificatePem(), other.privateKeyPkcs1Pem()));
+    }
+
+    /**
+     * Deploys twice to a local TLS server which requires a client certificate. Both deployments share the cached
+     * TLS settings, and authenticate with the client certificate. The second deployment resumes the TLS session of
+     * the first one instead of doing the full handshake.
+     */
+    @Test
+    public void testHandshakeWithLocalTlsServer() throws Exception {
+        String hostName = InetAddress.getByName("localhost").getCanonicalHostName();
+        HeldCertificate serverCertificate = new HeldCertificate.Builder()
+                .addSubjectAlternativeName(hostName)
+                .rsa2048()
+                .signedBy(ca)
+                .build();
+        HandshakeCertificates serverCertificates = new HandshakeCertificates.Builder()
+                .heldCertificate(serverCertificate, ca.certificate())
+                .addTrustedCertificate(ca.certificate())
+                .build();
+        HeldCertificate client = clientCertificate();
+
+        MockWebServer server = new MockWebServer();
+        server.useHttps(serverCertificates.sslSocketFactory(), false);
+        server.requireClientAuth();
+        server.enqueue(new MockResponse().setBody("{}"));
+        server.enqueue(new MockResponse().setBody("{}"));
+        server.start();
+        try {
+            String url = "https://" + hostName + ":" + server.getPort();
+            ClientCertificateTlsCache.Tls tls = ClientCertificateTlsCache.get(
+                    ca.certificatePem(), client.certificatePem(), client.privateKeyPkcs1Pem());
+            List<Long> sessionCreationTimes = new ArrayList<>();
+            for (int i = 0; i < 2; ++i) {
+                OkHttpClient httpClient = newHttpClient(url, client, sessionCreationTimes);
+                assertSame(tls.getSocketFactory(), httpClient.sslSocketFactory());
+                try (Response response = httpClient.newCall(new Request.Builder().url(url + "/api").build())
+                        .execute()) {
+                    assertEquals(200, response.code());
+                }
+                Handshake handshake = server.takeRequest().getHandshake();
+                assertNotNull(handshake);
+                assertEquals(client.certificate(), handshake.peerCertificates().get(0));
+            }
+            // a resumed session keeps the creation time of the session it resumes
+            assertEquals(2, sessionCreationTimes.size());
+            assertEquals(sessionCreationTimes.get(0), sessionCreationTimes.get(1));
+
+            // the server does not accept a client without certificate
+            HandshakeCertificates trustOnly = new HandshakeCertificates.Builder()
+                    .addTrustedCertificate(ca.certificate())
+                    .build();
+            OkHttpClient anonymous = new OkHttpClient.Builder()
+                    .sslSocketFactory(trustOnly.sslSocketFactory(), trustOnly.trustManager())
+                    .build();
+            try {
+                anonymous.newCall(new Request.Builder().url(url + "/api").build()).execute().close();
+                fail("the handshake should fail without client certificate");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private OkHttpClient newHttpClient(String url, HeldCertificate client, final List<Long> sessionCreationTimes) {
+        KubernetesClientWrapper wrapper = new KubernetesClientWrapper(
+                url, ca.certificatePem(), client.certificatePem(), client.privateKeyPkcs1Pem());
+        // a new connection pool as in a new build, so that only the TLS settings are shared
+        return wrapper.getClient().getHttpClient().newBuilder()
+                .connectionPool(new ConnectionPool())
+                .eventListener(new EventListener() {
+                    @Override
+                    public void connectionAcquired(Call call, Connection connection) {
+                        sessionCreationTimes.add(((SSLSocket) connection.socket()).getSession().getCreationTime());
+                    }
+                })
+                .build();
+    }
+
+    private HeldCertificate clientCertificate() {
+        return new HeldCertificate.Builder()
+                .commonName("deployer")
+                .rsa2048()
+                .signedBy(ca)
+                .build();
+    }
+}
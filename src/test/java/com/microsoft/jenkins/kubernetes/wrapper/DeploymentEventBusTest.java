@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link DeploymentEventBus}.
+ */
+public class DeploymentEventBusTest {
+    @Test
+    public void testDelivery() {
+        DeploymentEventBus bus = new DeploymentEventBus();
+        assertFalse(bus.hasSubscribers());
+        assertFalse(bus.publish(event("ignored")));
+
+        final List<String> first = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> second = Collections.synchronizedList(new ArrayList<String>());
+        bus.subscribe(new DeploymentEventBus.Subscriber() {
+            @Override
+            public void onEvent(DeploymentEvent event) {
+                first.add(event.getName());
+                throw new IllegalStateException("does not stop the delivery");
+            }
+        }).subscribe(new DeploymentEventBus.Subscriber() {
+            @Override
+            public void onEvent(DeploymentEvent event) {
+                second.add(event.getName());
+            }
+        });
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(bus.publish(event("app-" + i)));
+        }
+        bus.close();
+
+        assertEquals(10, first.size());
+        assertEquals(first, second);
+        assertEquals("app-0", second.get(0));
+        assertEquals("app-9", second.get(9));
+        assertFalse(bus.publish(event("closed")));
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        DeploymentEventBus bus = new DeploymentEventBus(2);
+        final CountDownLatch received = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        bus.subscribe(new DeploymentEventBus.Subscriber() {
+            @Override
+            public void onEvent(DeploymentEvent event) {
+                received.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(bus.publish(event("blocking")));
+        assertTrue(received.await(10, TimeUnit.SECONDS));
+        assertTrue(bus.publish(event("app-1")));
+        assertTrue(bus.publish(event("app-2")));
+        // the publisher is never blocked by a slow subscriber
+        assertFalse(bus.publish(event("app-3")));
+        assertEquals(1, bus.getDropped());
+        release.countDown();
+        bus.close();
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        DeploymentEvent event = new DeploymentEvent(DeploymentEvent.Type.UPDATED, "east", "V1ConfigMap", "default",
+                "app", "2", new Object(), new Object(), 5);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(event);
+        }
+        DeploymentEvent copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (DeploymentEvent) in.readObject();
+        }
+
+        assertEquals(event.toString(), copy.toString());
+        assertEquals("east", copy.getCluster());
+        assertEquals("2", copy.getResourceVersion());
+        assertEquals(5, copy.getDurationNanos());
+        assertEquals(event.getTimestamp(), copy.getTimestamp());
+        // the objects are not sent back from the agents
+        assertNull(copy.getOriginal());
+        assertNull(copy.getCurrent());
+    }
+
+    private static DeploymentEvent event(String name) {
+        return new DeploymentEvent(DeploymentEvent.Type.CREATED, "east", "V1ConfigMap", "default", name, "1",
+                null, null, 0);
+    }
+}
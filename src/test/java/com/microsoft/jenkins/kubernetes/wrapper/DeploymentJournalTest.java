@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link DeploymentJournal}.
+ */
+public class DeploymentJournalTest {
+    @Test
+    public void testRecord() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DeploymentJournal journal = new DeploymentJournal(out);
+        MockWebServer server = new MockWebServer();
+        // retried by the client itself, and the length of the chunked body is only known once it's read
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "0").setBody("error"));
+        server.enqueue(new MockResponse().setResponseCode(200).setChunkedBody("{\"ok\": true}", 4));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("{}"));
+        server.start();
+        try {
+            ApiCallStats stats = new ApiCallStats();
+            stats.addListener(journal.listener());
+            OkHttpClient client = new OkHttpClient.Builder().addNetworkInterceptor(stats.interceptor()).build();
+            Request request = new Request.Builder().url(server.url("/api/v1/namespaces/default/configmaps/app"))
+                    .put(RequestBody.create(MediaType.parse("application/json"), "{\"data\": {}}"))
+                    .build();
+
+            journal.begin();
+            assertTrue(journal.isRecording());
+            for (int i = 0; i < 2; ++i) {
+                try (Response response = client.newCall(request).execute()) {
+                    assertEquals(200, response.code());
+                    response.body().string();
+                }
+            }
+            journal.record("east", "V1ConfigMap", "default", "app", DeploymentJournal.ACTION_APPLIED, "42");
+            // recorded only once
+            journal.record("east", "V1ConfigMap", "default", "app", DeploymentJournal.ACTION_FAILED, null);
+
+            journal.begin();
+            journal.discard();
+            journal.record("east", "V1ConfigMap", "default", "app", DeploymentJournal.ACTION_FAILED, null);
+            journal.close();
+        } finally {
+            server.shutdown();
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())), StandardCharsets.UTF_8))) {
+            JsonObject line = new JsonParser().parse(reader.readLine()).getAsJsonObject();
+            assertEquals("east", line.get("cluster").getAsString());
+            assertEquals("V1ConfigMap", line.get("kind").getAsString());
+            assertEquals("default", line.get("namespace").getAsString());
+            assertEquals("app", line.get("name").getAsString());
+            assertEquals("applied", line.get("action").getAsString());
+            assertEquals(200, line.get("httpStatus").getAsInt());
+            // the body is sent again by the retry, and a new call is not a retry
+            assertEquals(3 * 24, line.get("requestBytes").getAsLong());
+            assertEquals(12 + 2, line.get("responseBytes").getAsLong());
+            assertEquals(1, line.get("retries").getAsInt());
+            assertEquals("42", line.get("resourceVersion").getAsString());
+            assertNull(reader.readLine());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link DeploymentMetrics}.
+ */
+public class DeploymentMetricsTest {
+    @Test
+    public void testResourceLatency() throws Exception {
+        DeploymentMetrics metrics = new DeploymentMetrics();
+        metrics.onEvent(event(DeploymentEvent.Type.CREATED, "east", TimeUnit.MILLISECONDS.toNanos(20)));
+        metrics.onEvent(event(DeploymentEvent.Type.CREATED, "east", TimeUnit.SECONDS.toNanos(2)));
+        metrics.onEvent(event(DeploymentEvent.Type.FAILED, "we\"st", TimeUnit.MINUTES.toNanos(2)));
+
+        String text = write(metrics);
+        String created = "kubernetes_cd_resource_duration_seconds_bucket{cluster=\"east\",kind=\"V1ConfigMap\","
+                + "verb=\"created\",";
+        assertTrue(text.contains("# TYPE kubernetes_cd_resource_duration_seconds histogram\n"));
+        assertTrue(text.contains(created + "le=\"0.01\"} 0\n"));
+        assertTrue(text.contains(created + "le=\"0.025\"} 1\n"));
+        assertTrue(text.contains(created + "le=\"2.5\"} 2\n"));
+        assertTrue(text.contains(created + "le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("kubernetes_cd_resource_duration_seconds_sum{cluster=\"east\",kind=\"V1ConfigMap\","
+                + "verb=\"created\"} 2.02\n"));
+        // the label values are escaped, and the values out of the buckets are only in +Inf
+        assertTrue(text.contains("kubernetes_cd_resource_duration_seconds_bucket{cluster=\"we\\\"st\","
+                + "kind=\"V1ConfigMap\",verb=\"failed\",le=\"60.0\"} 0\n"));
+        assertTrue(text.contains("kubernetes_cd_resource_duration_seconds_count{cluster=\"we\\\"st\","
+                + "kind=\"V1ConfigMap\",verb=\"failed\"} 1\n"));
+    }
+
+    @Test
+    public void testApiCalls() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(302).setHeader("Location", "/moved"));
+        // compressed and chunked, so the length of the body is not known in advance
+        Buffer gzipped = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(gzipped))) {
+            sink.writeUtf8("{\"kind\": \"APIVersions\"}");
+        }
+        long compressedBytes = gzipped.size();
+        server.enqueue(new MockResponse().setHeader("Content-Encoding", "gzip").setChunkedBody(gzipped, 8));
+        server.enqueue(new MockResponse().setResponseCode(409).setBody("conflict"));
+        server.start();
+        try {
+            DeploymentMetrics metrics = new DeploymentMetrics();
+            ApiCallStats stats = new ApiCallStats();
+            stats.addListener(metrics.listener("east"));
+            OkHttpClient client = new OkHttpClient.Builder()
+                    .addNetworkInterceptor(stats.interceptor())
+                    .build();
+            try (Response response = client.newCall(new Request.Builder().url(server.url("/api")).build())
+                    .execute()) {
+                assertEquals(200, response.code());
+                assertEquals("{\"kind\": \"APIVersions\"}", response.body().string());
+            }
+            RequestBody body = RequestBody.create(MediaType.parse("application/json"), "{\"a\":1}");
+            try (Response response = client.newCall(new Request.Builder().url(server.url("/api")).post(body).build())
+                    .execute()) {
+                assertEquals(409, response.code());
+                assertEquals("conflict", response.body().string());
+            }
+            metrics.recordThrottle("east", TimeUnit.MILLISECONDS.toNanos(1500));
+
+            String text = write(metrics);
+            // each attempt is measured, the redirect as well
+            assertTrue(text.contains("kubernetes_cd_api_request_duration_seconds_count{cluster=\"east\","
+                    + "method=\"GET\"} 2\n"));
+            assertTrue(text.contains("kubernetes_cd_api_request_duration_seconds_count{cluster=\"east\","
+                    + "method=\"POST\"} 1\n"));
+            assertTrue(text.contains("kubernetes_cd_api_responses_total{cluster=\"east\",code=\"302\"} 1\n"));
+            assertTrue(text.contains("kubernetes_cd_api_responses_total{cluster=\"east\",code=\"200\"} 1\n"));
+            assertTrue(text.contains("kubernetes_cd_api_responses_total{cluster=\"east\",code=\"409\"} 1\n"));
+            // the bytes actually received, before they're decompressed
+            assertTrue(text.contains("kubernetes_cd_api_bytes_total{cluster=\"east\",direction=\"received\"} "
+                    + (compressedBytes + 8) + "\n"));
+            assertTrue(text.contains("kubernetes_cd_api_bytes_total{cluster=\"east\",direction=\"sent\"} 7\n"));
+            // the redirect is followed with a second network attempt
+            assertTrue(text.contains("kubernetes_cd_api_retries_total{cluster=\"east\"} 1\n"));
+            assertTrue(text.contains("kubernetes_cd_throttle_wait_seconds_total{cluster=\"east\"} 1.5\n"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        DeploymentMetrics first = new DeploymentMetrics();
+        first.onEvent(event(DeploymentEvent.Type.UPDATED, "east", TimeUnit.MILLISECONDS.toNanos(200)));
+        first.recordThrottle("east", TimeUnit.SECONDS.toNanos(1));
+        DeploymentMetrics second = new DeploymentMetrics();
+        second.onEvent(event(DeploymentEvent.Type.UPDATED, "east", TimeUnit.MILLISECONDS.toNanos(300)));
+        second.recordThrottle("east", TimeUnit.SECONDS.toNanos(2));
+
+        DeploymentMetrics totals = new DeploymentMetrics();
+        totals.merge(first);
+        totals.merge(second);
+        String text = write(totals);
+        String labels = "{cluster=\"east\",kind=\"V1ConfigMap\",verb=\"updated\"";
+        assertTrue(text.contains("kubernetes_cd_resource_duration_seconds_bucket" + labels + ",le=\"0.25\"} 1\n"));
+        assertTrue(text.contains("kubernetes_cd_resource_duration_seconds_bucket" + labels + ",le=\"0.5\"} 2\n"));
+        assertTrue(text.contains("kubernetes_cd_resource_duration_seconds_count" + labels + "} 2\n"));
+        assertTrue(text.contains("kubernetes_cd_throttle_wait_seconds_total{cluster=\"east\"} 3.0\n"));
+        // the merged metrics are not changed
+        assertTrue(write(first).contains("kubernetes_cd_resource_duration_seconds_count" + labels + "} 1\n"));
+    }
+
+    private static String write(DeploymentMetrics metrics) throws Exception {
+        StringWriter writer = new StringWriter();
+        metrics.writePrometheus(writer);
+        return writer.toString();
+    }
+
+    private static DeploymentEvent event(DeploymentEvent.Type type, String cluster, long durationNanos) {
+        return new DeploymentEvent(type, cluster, "V1ConfigMap", "default", "app", "1", null, null, durationNanos);
+    }
+}
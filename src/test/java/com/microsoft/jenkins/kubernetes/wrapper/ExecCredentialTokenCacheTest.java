@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import hudson.Functions;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+
+/**
+ * Tests for {@link ExecCredentialTokenCache}.
+ */
+public class ExecCredentialTokenCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File script;
+    private File counter;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeFalse(Functions.isWindows());
+        counter = new File(folder.getRoot(), "count");
+        FileUtils.writeStringToFile(counter, "0", StandardCharsets.UTF_8);
+        // stub exec credential plugin, which issues a new token on each run
+        script = folder.newFile("credential-plugin.sh");
+        FileUtils.writeStringToFile(script, "#!/bin/sh\n"
+                + "count=$(( $(cat \"$COUNTER\") + 1 ))\n"
+                + "echo $count > \"$COUNTER\"\n"
+                + "echo '{\"apiVersion\": \"client.authentication.k8s.io/v1beta1\", \"kind\": \"ExecCredential\", '\n"
+                + "echo '\"status\": {\"token\": \"token-'$count'\", \"expirationTimestamp\": \"'$EXPIRATION'\"}}'\n",
+                StandardCharsets.UTF_8);
+        script.setExecutable(true);
+    }
+
+    @Test
+    public void testTokenIsCachedUntilExpiry() throws Exception {
+        ExecCredentialTokenCache.ExecConfig config = execConfig(OffsetDateTime.now(ZoneOffset.UTC).plusHours(1));
+        assertEquals("token-1", ExecCredentialTokenCache.getToken(config));
+        assertEquals("token-1", ExecCredentialTokenCache.getToken(config));
+        assertEquals(1, runs());
+
+        ExecCredentialTokenCache.invalidate(config, "token-1");
+        assertEquals("token-2", ExecCredentialTokenCache.getToken(config));
+        assertEquals(2, runs());
+    }
+
+    @Test
+    public void testTokenIsRefreshedAheadOfExpiry() throws Exception {
+        // valid for a few more seconds, but within the refresh window
+        ExecCredentialTokenCache.ExecConfig config = execConfig(OffsetDateTime.now(ZoneOffset.UTC).plusSeconds(10));
+        assertEquals("token-1", ExecCredentialTokenCache.getToken(config));
+        assertEquals("token-2", ExecCredentialTokenCache.getToken(config));
+        assertEquals(2, runs());
+    }
+
+    @Test
+    public void testHungPluginIsKilled() throws Exception {
+        ExecCredentialTokenCache.ExecConfig config = new ExecCredentialTokenCache.ExecConfig(
+                "client.authentication.k8s.io/v1beta1", "sleep", Collections.singletonList("30"),
+                Collections.<String, String>emptyMap());
+        long start = System.nanoTime();
+        try {
+            ExecCredentialTokenCache.execute(config, TimeUnit.SECONDS.toMillis(1));
+            fail("the hung plugin should time out");
+        } catch (IOException e) {
+            assertEquals(Messages.ExecCredentialTokenCache_timeout(config, 1), e.getMessage());
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testClientAuthenticatesWithExecToken() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(401));
+        server.enqueue(new MockResponse().setBody("{}"));
+        server.start();
+        try {
+            String kubeconfig = "apiVersion: v1\n"
+                    + "kind: Config\n"
+                    + "clusters:\n"
+                    + "- name: test\n"
+                    + "  cluster:\n"
+                    + "    server: http://" + server.getHostName() + ":" + server.getPort() + "\n"
+                    + "contexts:\n"
+                    + "- name: test\n"
+                    + "  context:\n"
+                    + "    cluster: test\n"
+                    + "    user: exec-user\n"
+                    + "current-context: test\n"
+                    + "users:\n"
+                    + "- name: exec-user\n"
+                    + "  user:\n"
+                    + "    exec:\n"
+                    + "      apiVersion: client.authentication.k8s.io/v1beta1\n"
+                    + "      command: " + script.getAbsolutePath() + "\n"
+                    + "      env:\n"
+                    + "      - name: COUNTER\n"
+                    + "        value: " + counter.getAbsolutePath() + "\n"
+                    + "      - name: EXPIRATION\n"
+                    + "        value: \"" + OffsetDateTime.now(ZoneOffset.UTC).plusHours(1) + "\"\n";
+            KubernetesClientWrapper wrapper = new KubernetesClientWrapper(new StringReader(kubeconfig));
+            wrapper.getClient().getHttpClient()
+                    .newCall(new okhttp3.Request.Builder().url(server.url("/api")).build())
+                    .execute()
+                    .close();
+
+            // the rejected token is replaced and the request retried
+            assertEquals("Bearer token-1", server.takeRequest().getHeader("Authorization"));
+            assertEquals("Bearer token-2", server.takeRequest().getHeader("Authorization"));
+            assertEquals(2, runs());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private ExecCredentialTokenCache.ExecConfig execConfig(OffsetDateTime expiration) {
+        Map<String, String> env = new HashMap<>();
+        env.put("COUNTER", counter.getAbsolutePath());
+        env.put("EXPIRATION", expiration.toString());
+        return new ExecCredentialTokenCache.ExecConfig("client.authentication.k8s.io/v1beta1",
+                script.getAbsolutePath(), Collections.<String>emptyList(), env);
+    }
+
+    private int runs() throws Exception {
+        return Integer.parseInt(FileUtils.readFileToString(counter, StandardCharsets.UTF_8).trim());
+    }
+}
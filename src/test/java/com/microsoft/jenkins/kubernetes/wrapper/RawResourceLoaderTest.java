@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link RawResourceLoader}.
+ */
+public class RawResourceLoaderTest {
+    @Test
+    public void testLoadAll() throws Exception {
+        String yaml = "---\n"
+                + "apiVersion: cert-manager.io/v1\n"
+                + "kind: Certificate\n"
+                + "metadata:\n"
+                + "  name: web\n"
+                + "  namespace: prod\n"
+                + "  labels: {app: web, version: \"1.0\"}\n"
+                + "spec:\n"
+                + "  dnsNames: [a.example.com, b.example.com]\n"
+                + "  mode: 0644\n"
+                + "  port: \"8080\"\n"
+                + "  ratio: 1.5\n"
+                + "  enabled: yes\n"
+                + "  issuerRef: ~\n"
+                + "  plain: hello world\n"
+                + "---\n"
+                + "---\n"
+                + "apiVersion: v1\n"
+                + "kind: ConfigMap\n"
+                + "metadata:\n"
+                + "  name: config\n"
+                + "data:\n"
+                + "  key: |\n"
+                + "    line1\n"
+                + "    line2\n";
+        List<RawResource> resources = new RawResourceLoader().loadAll(new StringReader(yaml));
+        assertEquals(2, resources.size());
+
+        RawResource certificate = resources.get(0);
+        assertEquals("cert-manager.io/v1", certificate.getApiVersion());
+        assertEquals("Certificate", certificate.getKind());
+        assertEquals("web", certificate.getMetadata().getName());
+        assertEquals("prod", certificate.getMetadata().getNamespace());
+        JsonObject json = new JsonParser().parse(certificate.toString()).getAsJsonObject();
+        assertEquals("1.0", json.getAsJsonObject("metadata").getAsJsonObject("labels").get("version").getAsString());
+        JsonObject spec = json.getAsJsonObject("spec");
+        assertEquals(2, spec.getAsJsonArray("dnsNames").size());
+        assertEquals(420, spec.get("mode").getAsInt());
+        assertTrue(spec.get("port").getAsJsonPrimitive().isString());
+        assertEquals(1.5, spec.get("ratio").getAsDouble(), 0);
+        assertTrue(spec.get("enabled").getAsBoolean());
+        assertTrue(spec.get("issuerRef").isJsonNull());
+        assertEquals("hello world", spec.get("plain").getAsString());
+
+        RawResource configMap = resources.get(1);
+        assertEquals("config", configMap.getMetadata().getName());
+        assertEquals(null, configMap.getMetadata().getNamespace());
+        json = new JsonParser().parse(configMap.toString()).getAsJsonObject();
+        assertEquals("line1\nline2\n", json.getAsJsonObject("data").get("key").getAsString());
+
+        RawResource parsed = RawResource.parse("{\"apiVersion\": \"v1\", \"kind\": \"ConfigMap\", \"metadata\": "
+                + "{\"name\": \"config\", \"resourceVersion\": \"42\", \"labels\": {\"a\": \"b\"}}}"
+                .getBytes("UTF-8"));
+        assertEquals("ConfigMap", parsed.getKind());
+        assertEquals("42", parsed.getMetadata().getResourceVersion());
+    }
+
+    @Test
+    public void testInvalidDocuments() {
+        String[] invalid = new String[]{
+                "- a\n- b\n",
+                "metadata:\n  name: missing-kind\n",
+                "apiVersion: v1\nkind: ConfigMap\ndata: &x {a: b}\nother: *x\n",
+        };
+        for (String yaml : invalid) {
+            try {
+                new RawResourceLoader().loadAll(new StringReader(yaml));
+                fail("Expected IOException for " + yaml);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.models.V1ConfigMap;
+import io.kubernetes.client.openapi.models.V1ConfigMapBuilder;
+import io.kubernetes.client.openapi.models.V1PodTemplate;
+import io.kubernetes.client.openapi.models.V1PodTemplateBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ResourceUpdaterRegistry}.
+ */
+public class ResourceUpdaterRegistryTest {
+    private static final ResourceUpdaterRegistry.ManagerSetup NOOP_SETUP = new ResourceUpdaterRegistry.ManagerSetup() {
+        @Override
+        public void setup(ResourceManager manager) {
+        }
+    };
+
+    @Test
+    public void testBuiltInKinds() {
+        assertTrue(ResourceUpdaterRegistry.isSupported(RawResource.class));
+        assertTrue(ResourceUpdaterRegistry.isSupported(V1ConfigMap.class));
+        assertFalse(ResourceUpdaterRegistry.isSupported(String.class));
+
+        final AtomicReference<ResourceManager> prepared = new AtomicReference<>();
+        V1ConfigMap configMap = new V1ConfigMapBuilder().withNewMetadata().withName("app").endMetadata().build();
+        ResourceManager.ResourceUpdater<?> updater = ResourceUpdaterRegistry.createUpdater(new ApiClient(), configMap,
+                new ResourceUpdaterRegistry.ManagerSetup() {
+                    @Override
+                    public void setup(ResourceManager manager) {
+                        prepared.set(manager);
+                    }
+                });
+        assertTrue(updater instanceof V1ResourceManager.ConfigMapUpdater);
+        assertTrue(prepared.get() instanceof V1ResourceManager);
+        assertSame(configMap, updater.get());
+        assertNull(ResourceUpdaterRegistry.createUpdater(new ApiClient(), "app", null));
+    }
+
+    @Test
+    public void testExtensions() {
+        ResourceUpdaterFactory<V1ResourceManager, V1ConfigMap> replacement =
+                new ResourceUpdaterFactory<V1ResourceManager, V1ConfigMap>(V1ResourceManager.class, V1ConfigMap.class) {
+                    @Override
+                    public V1ResourceManager createManager(ApiClient client) {
+                        throw new AssertionError();
+                    }
+
+                    @Override
+                    public ResourceManager.ResourceUpdater<V1ConfigMap> createUpdater(V1ResourceManager manager,
+                                                                                      V1ConfigMap resource) {
+                        throw new AssertionError();
+                    }
+                };
+        ResourceUpdaterFactory<V1ResourceManager, V1PodTemplate> addition =
+                new ResourceUpdaterFactory<V1ResourceManager, V1PodTemplate>(
+                        V1ResourceManager.class, V1PodTemplate.class) {
+                    @Override
+                    public String getApiVersion() {
+                        return "example.com/v1";
+                    }
+
+                    @Override
+                    public String getKind() {
+                        return "Template";
+                    }
+
+                    @Override
+                    public V1ResourceManager createManager(ApiClient client) {
+                        return new V1ResourceManager(client);
+                    }
+
+                    @Override
+                    public ResourceManager.ResourceUpdater<V1PodTemplate> createUpdater(V1ResourceManager manager,
+                                                                                        V1PodTemplate resource) {
+                        return null;
+                    }
+                };
+        List<ResourceUpdaterFactory<?, ?>> factories =
+                Arrays.<ResourceUpdaterFactory<?, ?>>asList(replacement, addition);
+        ResourceUpdaterRegistry.register(factories);
+        try {
+            assertTrue(ResourceUpdaterRegistry.isSupported(V1PodTemplate.class));
+            assertEquals(V1PodTemplate.class, ResourceUpdaterRegistry.getExtensionClass("example.com/v1", "Template"));
+            // the built-in kinds are not replaced
+            V1ConfigMap configMap = new V1ConfigMapBuilder().withNewMetadata().withName("app").endMetadata().build();
+            assertTrue(ResourceUpdaterRegistry.createUpdater(new ApiClient(), configMap, NOOP_SETUP)
+                    instanceof V1ResourceManager.ConfigMapUpdater);
+            V1PodTemplate template = new V1PodTemplateBuilder()
+                    .withNewMetadata().withName("app").endMetadata().build();
+            assertNull(ResourceUpdaterRegistry.createUpdater(new ApiClient(), template, NOOP_SETUP));
+
+            // the extension stays registered while another deployment which registered it is running
+            ResourceUpdaterRegistry.register(factories);
+            ResourceUpdaterRegistry.unregister(factories);
+            assertTrue(ResourceUpdaterRegistry.isSupported(V1PodTemplate.class));
+            assertEquals(V1PodTemplate.class, ResourceUpdaterRegistry.getExtensionClass("example.com/v1", "Template"));
+        } finally {
+            ResourceUpdaterRegistry.unregister(factories);
+        }
+
+        assertFalse(ResourceUpdaterRegistry.isSupported(V1PodTemplate.class));
+        assertNull(ResourceUpdaterRegistry.getExtensionClass("example.com/v1", "Template"));
+        assertTrue(ResourceUpdaterRegistry.isSupported(V1ConfigMap.class));
+    }
+}
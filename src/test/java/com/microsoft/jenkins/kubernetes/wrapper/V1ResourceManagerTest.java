@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.jenkins.kubernetes.wrapper;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1ConfigMapBuilder;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodBuilder;
+import io.kubernetes.client.openapi.models.V1SecretBuilder;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link V1ResourceManager}.
+ */
+public class V1ResourceManagerTest {
+    @After
+    public void tearDown() {
+        V1ResourceManager.invalidateDryRunCache();
+    }
+
+    @Test
+    public void testDryRunCached() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("{\"metadata\": {\"name\": \"app-x1\", \"namespace\": \"ns\"}, "
+                + "\"spec\": {\"restartPolicy\": \"Always\", \"containers\": [{\"name\": \"app\", \"image\": \"nginx\", "
+                + "\"imagePullPolicy\": \"Always\"}]}}"));
+        server.start();
+        try {
+            final ApiClient client = new ApiClient();
+            client.setBasePath("http://" + server.getHostName() + ":" + server.getPort());
+            V1ResourceManager manager = new V1ResourceManager(client);
+            final AtomicInteger calls = new AtomicInteger();
+            V1ResourceManager.DryRunCall<V1Pod> call = new V1ResourceManager.DryRunCall<V1Pod>() {
+                @Override
+                public V1Pod create(V1Pod dryRunReq) throws ApiException {
+                    calls.incrementAndGet();
+                    assertNull(dryRunReq.getMetadata().getName());
+                    assertEquals("app", dryRunReq.getMetadata().getGenerateName());
+                    return new CoreV1Api(client)
+                            .createNamespacedPod("ns", dryRunReq, null, "All", null);
+                }
+            };
+            V1Pod desired = new V1PodBuilder()
+                    .withNewMetadata().withName("app").withNamespace("ns").endMetadata()
+                    .withNewSpec().addNewContainer().withName("app").withImage("nginx").endContainer().endSpec()
+                    .build();
+
+            V1Pod first = manager.dryRun(desired, V1Pod.class, "ns", "app", call);
+            assertEquals("Always", first.getSpec().getRestartPolicy());
+            assertEquals("app", desired.getMetadata().getName());
+            first.getSpec().setRestartPolicy("Never");
+
+            V1Pod second = manager.dryRun(desired, V1Pod.class, "ns", "app", call);
+            assertEquals("Always", second.getSpec().getRestartPolicy());
+            assertEquals(1, calls.get());
+            RecordedRequest request = server.takeRequest();
+            assertEquals("All", request.getRequestUrl().queryParameter("dryRun"));
+
+            desired.getSpec().getContainers().get(0).setImage("nginx:1.19");
+            server.enqueue(new MockResponse().setBody("{\"metadata\": {\"name\": \"app-x2\"}}"));
+            manager.dryRun(desired, V1Pod.class, "ns", "app", call);
+            assertEquals(2, calls.get());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testDryRunCachedPerCredentials() throws Exception {
+        CountingDryRun call = new CountingDryRun();
+        V1Pod desired = pod("nginx");
+
+        new V1ResourceManager(client("token-a")).dryRun(desired, V1Pod.class, "ns", "app", call);
+        new V1ResourceManager(client("token-a")).dryRun(desired, V1Pod.class, "ns", "app", call);
+        assertEquals(1, call.calls.get());
+
+        // same server, but another user may get other defaults from the admission
+        new V1ResourceManager(client("token-b")).dryRun(desired, V1Pod.class, "ns", "app", call);
+        assertEquals(2, call.calls.get());
+    }
+
+    @Test
+    public void testReplaceRetriedAfterStaleDryRun() throws Exception {
+        final V1ResourceManager manager = new V1ResourceManager(client("token-a"));
+        final CountingDryRun call = new CountingDryRun();
+        final V1Pod desired = pod("nginx");
+        manager.dryRun(desired, V1Pod.class, "ns", "app", call);
+
+        final AtomicInteger puts = new AtomicInteger();
+        V1Pod result = manager.replaceWithDryRun(new V1ResourceManager.PutCall<V1Pod>() {
+            @Override
+            public V1Pod build() {
+                try {
+                    return manager.dryRun(desired, V1Pod.class, "ns", "app", call);
+                } catch (ApiException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            @Override
+            public V1Pod replace(V1Pod putObject) throws ApiException {
+                if (puts.incrementAndGet() == 1) {
+                    throw new ApiException(422, "Unprocessable Entity");
+                }
+                return putObject;
+            }
+        });
+
+        assertEquals("nginx", result.getSpec().getContainers().get(0).getImage());
+        assertEquals(2, puts.get());
+        // the stale entry was replaced by a fresh dry-run
+        assertEquals(2, call.calls.get());
+        manager.dryRun(desired, V1Pod.class, "ns", "app", call);
+        assertEquals(2, call.calls.get());
+    }
+
+    @Test
+    public void testReplaceNotRetriedAfterFreshDryRun() throws Exception {
+        final V1ResourceManager manager = new V1ResourceManager(client("token-a"));
+        final CountingDryRun call = new CountingDryRun();
+        final V1Pod desired = pod("nginx");
+
+        final AtomicInteger puts = new AtomicInteger();
+        try {
+            manager.replaceWithDryRun(new V1ResourceManager.PutCall<V1Pod>() {
+                @Override
+                public V1Pod build() {
+                    try {
+                        return manager.dryRun(desired, V1Pod.class, "ns", "app", call);
+                    } catch (ApiException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+
+                @Override
+                public V1Pod replace(V1Pod putObject) throws ApiException {
+                    puts.incrementAndGet();
+                    throw new ApiException(409, "Conflict");
+                }
+            });
+            fail("conflict expected");
+        } catch (ApiException e) {
+            assertEquals(409, e.getCode());
+        }
+        assertEquals(1, puts.get());
+        assertEquals(1, call.calls.get());
+    }
+
+    @Test
+    public void testLogResult() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("{\"kind\": \"Status\", \"code\": 404}"));
+        server.enqueue(new MockResponse().setBody("{\"metadata\": {\"name\": \"app\", \"namespace\": \"ns\", "
+                + "\"resourceVersion\": \"7\"}, \"data\": {\"key\": \"visible\"}}"));
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("{\"kind\": \"Status\", \"code\": 404}"));
+        server.enqueue(new MockResponse().setBody("{\"metadata\": {\"name\": \"registry\", \"namespace\": \"ns\", "
+                + "\"resourceVersion\": \"8\"}, \"stringData\": {\"password\": \"hunter2\"}}"));
+        server.start();
+        try {
+            ApiClient client = new ApiClient();
+            client.setBasePath("http://" + server.getHostName() + ":" + server.getPort());
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            V1ResourceManager manager = new V1ResourceManager(client);
+            manager.setConsoleLogger(new PrintStream(output, true, "UTF-8"));
+            manager.setVerbose(true);
+
+            manager.new ConfigMapUpdater(new V1ConfigMapBuilder()
+                    .withNewMetadata().withName("app").withNamespace("ns").endMetadata()
+                    .addToData("key", "visible")
+                    .build()).createOrApply();
+            manager.new SecretUpdater(new V1SecretBuilder()
+                    .withNewMetadata().withName("registry").withNamespace("ns").endMetadata()
+                    .addToStringData("password", "hunter2")
+                    .build()).createOrApply();
+
+            String log = output.toString("UTF-8");
+            String[] lines = log.split("\\r?\\n");
+            assertTrue(lines[0], lines[0].matches("Created V1ConfigMap ns/app \\(resourceVersion 7\\) in \\d+ ms"));
+            // the object returned by the api call follows in the verbose mode
+            assertTrue(log, lines.length > 2 && log.contains("visible"));
+            String last = lines[lines.length - 1];
+            assertTrue(last, last.matches("Created V1Secret ns/registry \\(resourceVersion 8\\) in \\d+ ms"));
+            // but never for a secret
+            assertFalse(log.contains("hunter2"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static ApiClient client(String token) {
+        ApiClient client = new ApiClient();
+        client.setBasePath("https://kubernetes.example.com");
+        client.setApiKeyPrefix("Bearer");
+        client.setApiKey(token);
+        return client;
+    }
+
+    private static V1Pod pod(String image) {
+        return new V1PodBuilder()
+                .withNewMetadata().withName("app").withNamespace("ns").endMetadata()
+                .withNewSpec().addNewContainer().withName("app").withImage(image).endContainer().endSpec()
+                .build();
+    }
+
+    /**
+     * Answers the dry-run with the request itself, without a server.
+     */
+    private static final class CountingDryRun implements V1ResourceManager.DryRunCall<V1Pod> {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public V1Pod create(V1Pod dryRunReq) {
+            calls.incrementAndGet();
+            return dryRunReq;
+        }
+    }
+}